@@ -0,0 +1,67 @@
+package com.innowise.imageservice.benchmark;
+
+import com.innowise.imageservice.model.OutboxEvent;
+import com.innowise.imageservice.repository.OutboxEventRepository;
+import com.innowise.imageservice.service.ActivityEventProducer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event construction, message key formatting and payload serialization in
+ * {@link ActivityEventProducer}, with the outbox insert replaced by an in-memory repository.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActivityEventBenchmark {
+
+    private static final long USER_ID = 12_345L;
+    private static final long IMAGE_ID = 67_890L;
+    private static final long COMMENT_ID = 13_579L;
+    private static final String COMMENT_CONTENT = "Nice shot, where was it taken?";
+
+    private ActivityEventProducer activityEventProducer;
+    private OutboxEvent lastSaved;
+
+    @Setup
+    public void setUp() {
+        OutboxEventRepository outboxEventRepository = (OutboxEventRepository) Proxy.newProxyInstance(
+                OutboxEventRepository.class.getClassLoader(), new Class<?>[]{OutboxEventRepository.class},
+                (proxy, method, args) -> {
+                    if (!"save".equals(method.getName())) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    lastSaved = (OutboxEvent) args[0];
+                    return lastSaved;
+                });
+        activityEventProducer = new ActivityEventProducer(outboxEventRepository,
+                Jackson2ObjectMapperBuilder.json().build());
+    }
+
+    @Benchmark
+    public OutboxEvent addLikeEvent() {
+        activityEventProducer.sendAddLikeEvent(USER_ID, IMAGE_ID);
+        return lastSaved;
+    }
+
+    @Benchmark
+    public OutboxEvent createCommentEvent() {
+        activityEventProducer.sendCreateCommentEvent(USER_ID, IMAGE_ID, COMMENT_ID, COMMENT_CONTENT);
+        return lastSaved;
+    }
+}
@@ -0,0 +1,74 @@
+package com.innowise.imageservice.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * Compares two JMH result files written with {@code -rf json} and prints the change of every
+ * benchmark present in both. A change is flagged when it is larger than the combined error margins
+ * of the two runs.
+ */
+public final class CompareResults {
+
+    private CompareResults() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: CompareResults <baseline.json> <current.json>");
+            System.exit(2);
+        }
+        Map<String, JsonNode> baseline = read(Path.of(args[0]));
+        Map<String, JsonNode> current = read(Path.of(args[1]));
+
+        System.out.printf("%-90s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+        current.forEach((name, metric) -> {
+            JsonNode before = baseline.get(name);
+            if (before == null) {
+                System.out.printf("%-90s %14s %14.3f %9s%n", name, "-", metric.path("score").asDouble(), "new");
+                return;
+            }
+            double baseScore = before.path("score").asDouble();
+            double score = metric.path("score").asDouble();
+            double change = (score - baseScore) / baseScore * 100;
+            boolean significant = Math.abs(score - baseScore)
+                    > errorOf(before) + errorOf(metric);
+            System.out.printf("%-90s %14.3f %14.3f %8.1f%% %s %s%n", name, baseScore, score, change,
+                    metric.path("scoreUnit").asText(), significant ? "*" : "");
+        });
+    }
+
+    private static Map<String, JsonNode> read(Path file) throws IOException {
+        JsonNode results = new ObjectMapper().readTree(file.toFile());
+        Map<String, JsonNode> metrics = new LinkedHashMap<>();
+        for (JsonNode result : results) {
+            metrics.put(nameOf(result), result.path("primaryMetric"));
+        }
+        return metrics;
+    }
+
+    private static String nameOf(JsonNode result) {
+        String benchmark = result.path("benchmark").asText()
+                .replace(CompareResults.class.getPackageName() + ".", "");
+        JsonNode params = result.path("params");
+        if (params.isMissingNode() || params.isEmpty()) {
+            return benchmark;
+        }
+        return benchmark + StreamSupport.stream(
+                        ((Iterable<Map.Entry<String, JsonNode>>) params::fields).spliterator(), false)
+                .map(param -> param.getKey() + "=" + param.getValue().asText())
+                .collect(Collectors.joining(",", "(", ")"));
+    }
+
+    private static double errorOf(JsonNode metric) {
+        double error = metric.path("scoreError").asDouble();
+        return Double.isNaN(error) ? 0 : error;
+    }
+}
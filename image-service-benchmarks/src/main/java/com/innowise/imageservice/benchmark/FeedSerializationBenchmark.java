@@ -0,0 +1,59 @@
+package com.innowise.imageservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.innowise.imageservice.dto.ImageWithLikeByCurrentUserResponseDto;
+import com.innowise.imageservice.dto.KeysetCursor;
+import com.innowise.imageservice.dto.PaginatedSliceResponseDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes a feed page the way Spring MVC writes the response body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeedSerializationBenchmark {
+
+    @Param({"10", "20", "50", "100"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+    private PaginatedSliceResponseDto<ImageWithLikeByCurrentUserResponseDto> page;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<ImageWithLikeByCurrentUserResponseDto> images = ImageServiceFixtures.images(pageSize, pageSize);
+        images.forEach(image -> image.setUserName("User" + image.getUserId()));
+        ImageWithLikeByCurrentUserResponseDto last = images.getLast();
+        page = PaginatedSliceResponseDto.<ImageWithLikeByCurrentUserResponseDto>builder()
+                .content(images)
+                .pageNumber(0)
+                .pageSize(pageSize)
+                .hasNext(true)
+                .nextCursor(new KeysetCursor(last.getUpdatedAt(), last.getId()).encode())
+                .build();
+    }
+
+    @Benchmark
+    public byte[] writeFeedPage() throws Exception {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,219 @@
+package com.innowise.imageservice.benchmark;
+
+import com.innowise.imageservice.model.Comment;
+import com.innowise.imageservice.model.Image;
+import com.innowise.imageservice.model.Like;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import liquibase.Liquibase;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Insert throughput of the gallery entities through Hibernate against a throwaway Postgres, with
+ * the ids generated by the pooled sequences and batching settings of image-service ({@code sequence})
+ * and with the previous IDENTITY columns ({@code identity}). Needs Docker.
+ * <p>
+ * {@code insertImages} is a bulk import, the bursts are many likes or comments written in one
+ * transaction and {@code insertComment} is a single comment per request. Likes written by the like
+ * toggle are native inserts and do not go through the entity, so their sequence hands out single ids
+ * and the like burst fetches one per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GalleryWriteBenchmark {
+
+    private static final String POSTGRES_IMAGE = "postgres:15";
+    private static final String CHANGELOG = "db/changelog/db.changelog-master.yaml";
+    private static final String IDENTITY_MAPPING = "META-INF/identity-ids-orm.xml";
+    private static final String[] GALLERY_TABLES = {"images", "comments", "likes"};
+    private static final int BULK_SIZE = 500;
+    private static final int BURST_SIZE = 50;
+    private static final long OWNER_ID = 1L;
+
+    @Param({"identity", "sequence"})
+    public String idGeneration;
+
+    private PostgreSQLContainer<?> postgres;
+    private HikariDataSource dataSource;
+    private LocalContainerEntityManagerFactoryBean entityManagerFactoryBean;
+    private EntityManagerFactory entityManagerFactory;
+    private Long imageId;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        postgres = new PostgreSQLContainer<>(POSTGRES_IMAGE);
+        postgres.start();
+
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(postgres.getJdbcUrl());
+        dataSource.setUsername(postgres.getUsername());
+        dataSource.setPassword(postgres.getPassword());
+        dataSource.addDataSourceProperty("reWriteBatchedInserts", "true");
+
+        migrate();
+        boolean identity = "identity".equals(idGeneration);
+        if (identity) {
+            restoreIdentityColumns();
+        }
+        entityManagerFactoryBean = createEntityManagerFactory(identity);
+        entityManagerFactory = entityManagerFactoryBean.getObject();
+    }
+
+    private void migrate() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            Database database = DatabaseFactory.getInstance()
+                    .findCorrectDatabaseImplementation(new JdbcConnection(connection));
+            new Liquibase(CHANGELOG, new ClassLoaderResourceAccessor(), database).update("");
+        }
+    }
+
+    private void restoreIdentityColumns() throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            for (String table : GALLERY_TABLES) {
+                statement.execute("ALTER TABLE gallery.%s ALTER COLUMN id DROP DEFAULT".formatted(table));
+                statement.execute("ALTER TABLE gallery.%s ALTER COLUMN id ADD GENERATED BY DEFAULT AS IDENTITY"
+                        .formatted(table));
+            }
+        }
+    }
+
+    private LocalContainerEntityManagerFactoryBean createEntityManagerFactory(boolean identity) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("hibernate.jdbc.batch_size", 50);
+        properties.put("hibernate.jdbc.batch_versioned_data", true);
+        properties.put("hibernate.order_inserts", true);
+        properties.put("hibernate.order_updates", true);
+
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan(Image.class.getPackageName());
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(properties);
+        if (identity) {
+            factoryBean.setMappingResources(IDENTITY_MAPPING);
+        }
+        factoryBean.afterPropertiesSet();
+        return factoryBean;
+    }
+
+    @Setup(Level.Iteration)
+    public void clearGallery() throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("TRUNCATE gallery.likes, gallery.comments, gallery.images CASCADE");
+        }
+        inTransaction(entityManager -> {
+            Image image = newImage();
+            entityManager.persist(image);
+            imageId = image.getId();
+        });
+    }
+
+    @Benchmark
+    public void insertImages() {
+        inTransaction(entityManager -> {
+            for (int i = 0; i < BULK_SIZE; i++) {
+                entityManager.persist(newImage());
+            }
+        });
+    }
+
+    @Benchmark
+    public void insertCommentBurst() {
+        inTransaction(entityManager -> {
+            Image image = entityManager.getReference(Image.class, imageId);
+            for (int i = 0; i < BURST_SIZE; i++) {
+                entityManager.persist(newComment(image));
+            }
+        });
+    }
+
+    @Benchmark
+    public void insertLikeBurst() {
+        inTransaction(entityManager -> {
+            Image image = entityManager.getReference(Image.class, imageId);
+            for (int i = 0; i < BURST_SIZE; i++) {
+                entityManager.persist(Like.builder()
+                        .createdAt(LocalDateTime.now())
+                        .userId(++sequence)
+                        .image(image)
+                        .build());
+            }
+        });
+    }
+
+    @Benchmark
+    public void insertComment() {
+        inTransaction(entityManager ->
+                entityManager.persist(newComment(entityManager.getReference(Image.class, imageId))));
+    }
+
+    private Image newImage() {
+        return Image.builder()
+                .url("http://localhost:4566/images/benchmark/" + ++sequence + ".jpg")
+                .uploadedAt(LocalDateTime.now())
+                .likes(0L)
+                .userId(OWNER_ID)
+                .build();
+    }
+
+    private Comment newComment(Image image) {
+        return Comment.builder()
+                .content("Comment " + ++sequence)
+                .createdAt(LocalDateTime.now())
+                .userId(OWNER_ID)
+                .image(image)
+                .build();
+    }
+
+    private void inTransaction(Consumer<EntityManager> work) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            work.accept(entityManager);
+            entityManager.getTransaction().commit();
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManagerFactoryBean.destroy();
+        dataSource.close();
+        postgres.stop();
+    }
+}
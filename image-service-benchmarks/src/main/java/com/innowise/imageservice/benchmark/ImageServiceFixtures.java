@@ -0,0 +1,102 @@
+package com.innowise.imageservice.benchmark;
+
+import com.innowise.imageservice.config.ImageProperties;
+import com.innowise.imageservice.config.UserNameBatchProperties;
+import com.innowise.imageservice.config.UserNameCacheProperties;
+import com.innowise.imageservice.dto.CommentWithOwnersResponseDto;
+import com.innowise.imageservice.dto.ImageWithLikeByCurrentUserResponseDto;
+import com.innowise.imageservice.dto.UserNamesResponseDto;
+import com.innowise.imageservice.service.AuthServiceClient;
+import com.innowise.imageservice.service.UserNameBatcher;
+import com.innowise.imageservice.service.UserNameCache;
+import com.innowise.imageservice.service.impl.ImageServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the objects the benchmarks run against without starting a Spring context.
+ */
+final class ImageServiceFixtures {
+
+    static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    private ImageServiceFixtures() {
+    }
+
+    static ImageServiceImpl imageService(ImageProperties imageProperties, UserNameCache userNameCache) {
+        return new ImageServiceImpl(null, null, null, imageProperties, null, null, null, null, null, null,
+                userNameCache, null, null, null, null, null, null, null);
+    }
+
+    /**
+     * Looks up a private method of {@link ImageServiceImpl}, the hot paths worth measuring are not
+     * part of its interface.
+     */
+    static MethodHandle privateMethod(String name, Class<?> returnType, Class<?>... parameterTypes) {
+        try {
+            return MethodHandles.privateLookupIn(ImageServiceImpl.class, MethodHandles.lookup())
+                    .findVirtual(ImageServiceImpl.class, name, MethodType.methodType(returnType, parameterTypes));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("ImageServiceImpl." + name + " is not available", e);
+        }
+    }
+
+    /**
+     * A name cache backed by an in-memory auth-service that knows every user id.
+     */
+    static UserNameCache userNameCache(UserNameBatcher userNameBatcher) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new UserNameCache(userNameBatcher, new UserNameCacheProperties(), meterRegistry);
+    }
+
+    static UserNameBatcher userNameBatcher() {
+        return new UserNameBatcher(new InMemoryAuthServiceClient(), new UserNameBatchProperties(),
+                new SimpleMeterRegistry());
+    }
+
+    static List<ImageWithLikeByCurrentUserResponseDto> images(int count, int distinctOwners) {
+        List<ImageWithLikeByCurrentUserResponseDto> images = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            long ownerId = 1 + id % distinctOwners;
+            images.add(new ImageWithLikeByCurrentUserResponseDto(id,
+                    "http://localhost:4566/images/" + ownerId + "/" + id + ".jpg", "Image " + id,
+                    NOW.minusMinutes(id), id * 3, id % 5, id % 2 == 0, null, ownerId,
+                    "http://localhost:4566/images/renditions/" + id + "-small.jpg",
+                    "http://localhost:4566/images/renditions/" + id + "-medium.jpg",
+                    "http://localhost:4566/images/renditions/" + id + "-large.jpg"));
+        }
+        return images;
+    }
+
+    static List<CommentWithOwnersResponseDto> comments(int count, int distinctOwners) {
+        List<CommentWithOwnersResponseDto> comments = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            long ownerId = 1 + id % distinctOwners;
+            comments.add(new CommentWithOwnersResponseDto(id, "Comment " + id, NOW.minusMinutes(id), ownerId, 1L,
+                    ownerId == 1, null));
+        }
+        return comments;
+    }
+
+    private static final class InMemoryAuthServiceClient extends AuthServiceClient {
+
+        private InMemoryAuthServiceClient() {
+            super(null, new SimpleMeterRegistry());
+        }
+
+        @Override
+        public UserNamesResponseDto getUserNamesByIds(List<Long> userIds) {
+            Map<Long, String> names = new HashMap<>();
+            userIds.forEach(userId -> names.put(userId, "User" + userId));
+            return new UserNamesResponseDto(names);
+        }
+    }
+}
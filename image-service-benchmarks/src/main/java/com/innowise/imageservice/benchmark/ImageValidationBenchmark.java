@@ -0,0 +1,68 @@
+package com.innowise.imageservice.benchmark;
+
+import com.innowise.imageservice.config.ImageProperties;
+import com.innowise.imageservice.exception.InvalidImageTypeException;
+import com.innowise.imageservice.service.impl.ImageServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code validateImageFile} for an accepted upload and for one rejected by its content type.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ImageValidationBenchmark {
+
+    private static final MethodHandle VALIDATE_IMAGE_FILE =
+            ImageServiceFixtures.privateMethod("validateImageFile", void.class, MultipartFile.class);
+    private static final long MIN_BYTES = 100 * 1024;
+    private static final long MAX_BYTES = 10 * 1024 * 1024;
+    private static final int FILE_BYTES = 200 * 1024;
+
+    private ImageServiceImpl imageService;
+    private MultipartFile validFile;
+    private MultipartFile unsupportedFile;
+
+    @Setup
+    public void setUp() {
+        ImageProperties imageProperties = new ImageProperties();
+        imageProperties.setMinBytes(MIN_BYTES);
+        imageProperties.setMaxBytes(MAX_BYTES);
+        imageService = ImageServiceFixtures.imageService(imageProperties, null);
+        byte[] content = new byte[FILE_BYTES];
+        validFile = new MockMultipartFile("file", "image.jpg", "image/jpeg", content);
+        unsupportedFile = new MockMultipartFile("file", "image.gif", "image/gif", content);
+    }
+
+    @Benchmark
+    public void acceptedFile() throws Throwable {
+        VALIDATE_IMAGE_FILE.invoke(imageService, validFile);
+    }
+
+    @Benchmark
+    public Object rejectedFile() throws Throwable {
+        try {
+            VALIDATE_IMAGE_FILE.invoke(imageService, unsupportedFile);
+            throw new IllegalStateException("image/gif was accepted");
+        } catch (InvalidImageTypeException e) {
+            return e;
+        }
+    }
+}
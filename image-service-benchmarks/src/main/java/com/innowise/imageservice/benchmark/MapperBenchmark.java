@@ -0,0 +1,70 @@
+package com.innowise.imageservice.benchmark;
+
+import com.innowise.imageservice.dto.CommentResponseDto;
+import com.innowise.imageservice.dto.ImageResponseDto;
+import com.innowise.imageservice.mapper.CommentMapper;
+import com.innowise.imageservice.mapper.ImageMapper;
+import com.innowise.imageservice.model.Comment;
+import com.innowise.imageservice.model.Image;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    private ImageMapper imageMapper;
+    private CommentMapper commentMapper;
+    private Image image;
+    private Comment comment;
+
+    @Setup
+    public void setUp() {
+        imageMapper = Mappers.getMapper(ImageMapper.class);
+        commentMapper = Mappers.getMapper(CommentMapper.class);
+        image = Image.builder()
+                .id(1L)
+                .url("http://localhost:4566/images/1/1.jpg")
+                .description("Image 1")
+                .uploadedAt(ImageServiceFixtures.NOW)
+                .likes(42L)
+                .userId(1L)
+                .smallUrl("http://localhost:4566/images/renditions/1-small.jpg")
+                .mediumUrl("http://localhost:4566/images/renditions/1-medium.jpg")
+                .largeUrl("http://localhost:4566/images/renditions/1-large.jpg")
+                .contentHash("0".repeat(64))
+                .build();
+        comment = Comment.builder()
+                .id(1L)
+                .content("Comment 1")
+                .createdAt(ImageServiceFixtures.NOW)
+                .userId(1L)
+                .image(image)
+                .build();
+    }
+
+    @Benchmark
+    public ImageResponseDto toImageResponseDto() {
+        return imageMapper.toImageResponseDto(image);
+    }
+
+    @Benchmark
+    public CommentResponseDto toCommentResponseDto() {
+        return commentMapper.toCommentResponseDto(comment);
+    }
+}
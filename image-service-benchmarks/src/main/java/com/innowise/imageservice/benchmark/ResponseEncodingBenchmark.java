@@ -0,0 +1,100 @@
+package com.innowise.imageservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.github.luben.zstd.Zstd;
+import com.innowise.imageservice.dto.ImageWithLikeByCurrentUserResponseDto;
+import com.innowise.imageservice.dto.KeysetCursor;
+import com.innowise.imageservice.dto.PaginatedSliceResponseDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares the negotiable feed page encodings: serialization cost of JSON, CBOR and Smile on their
+ * own and followed by the gzip or zstd pass the gateway applies. Payload sizes are printed once per
+ * trial, since JMH only reports time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseEncodingBenchmark {
+
+    // Netty's default zstd level, which the gateway uses
+    private static final int ZSTD_LEVEL = 3;
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    private ObjectMapper objectMapper;
+    private PaginatedSliceResponseDto<ImageWithLikeByCurrentUserResponseDto> page;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = switch (format) {
+            case "json" -> Jackson2ObjectMapperBuilder.json().build();
+            case "cbor" -> Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+            case "smile" -> Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build();
+            default -> throw new IllegalArgumentException("Unknown format: " + format);
+        };
+        List<ImageWithLikeByCurrentUserResponseDto> images = ImageServiceFixtures.images(pageSize, pageSize);
+        images.forEach(image -> image.setUserName("User" + image.getUserId()));
+        ImageWithLikeByCurrentUserResponseDto last = images.getLast();
+        page = PaginatedSliceResponseDto.<ImageWithLikeByCurrentUserResponseDto>builder()
+                .content(images)
+                .pageNumber(0)
+                .pageSize(pageSize)
+                .hasNext(true)
+                .nextCursor(new KeysetCursor(last.getUpdatedAt(), last.getId()).encode())
+                .build();
+
+        byte[] body = encode();
+        System.out.printf("%n%s page of %d: %d bytes, gzip %d bytes, zstd %d bytes%n",
+                format, pageSize, body.length, gzip(body).length, Zstd.compress(body, ZSTD_LEVEL).length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] encodeGzip() throws IOException {
+        return gzip(objectMapper.writeValueAsBytes(page));
+    }
+
+    @Benchmark
+    public byte[] encodeZstd() throws IOException {
+        return Zstd.compress(objectMapper.writeValueAsBytes(page), ZSTD_LEVEL);
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,76 @@
+package com.innowise.imageservice.benchmark;
+
+import com.innowise.imageservice.dto.CommentWithOwnersResponseDto;
+import com.innowise.imageservice.dto.ImageWithLikeByCurrentUserResponseDto;
+import com.innowise.imageservice.service.UserNameBatcher;
+import com.innowise.imageservice.service.impl.ImageServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code updateUserNames} and {@code updateOwnerNames} with every name already cached, which is
+ * the steady state of the feed and comment pages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserNameEnrichmentBenchmark {
+
+    private static final MethodHandle UPDATE_USER_NAMES =
+            ImageServiceFixtures.privateMethod("updateUserNames", List.class, List.class);
+    private static final MethodHandle UPDATE_OWNER_NAMES =
+            ImageServiceFixtures.privateMethod("updateOwnerNames", List.class, List.class);
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    @Param({"1", "20"})
+    private int distinctOwners;
+
+    private UserNameBatcher userNameBatcher;
+    private ImageServiceImpl imageService;
+    private List<ImageWithLikeByCurrentUserResponseDto> images;
+    private List<CommentWithOwnersResponseDto> comments;
+
+    @Setup
+    public void setUp() throws Throwable {
+        userNameBatcher = ImageServiceFixtures.userNameBatcher();
+        imageService = ImageServiceFixtures.imageService(null, ImageServiceFixtures.userNameCache(userNameBatcher));
+        images = ImageServiceFixtures.images(pageSize, distinctOwners);
+        comments = ImageServiceFixtures.comments(pageSize, distinctOwners);
+        updateUserNames();
+        updateOwnerNames();
+    }
+
+    @TearDown
+    public void tearDown() {
+        userNameBatcher.shutdown();
+    }
+
+    @Benchmark
+    public Object updateUserNames() throws Throwable {
+        return UPDATE_USER_NAMES.invoke(imageService, images);
+    }
+
+    @Benchmark
+    public Object updateOwnerNames() throws Throwable {
+        return UPDATE_OWNER_NAMES.invoke(imageService, comments);
+    }
+}
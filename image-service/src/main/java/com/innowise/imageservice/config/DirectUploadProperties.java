@@ -0,0 +1,16 @@
+package com.innowise.imageservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "images.direct-upload")
+public class DirectUploadProperties {
+    private Duration urlTtl = Duration.ofMinutes(10);
+    private Duration tokenTtl = Duration.ofHours(1);
+    private String tokenSecret;
+}
@@ -0,0 +1,21 @@
+package com.innowise.imageservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "http.client")
+public class HttpClientProperties {
+    private int maxConnections = 200;
+    private int maxConnectionsPerRoute = 50;
+    private Duration connectTimeout = Duration.ofSeconds(1);
+    private Duration readTimeout = Duration.ofSeconds(2);
+    private Duration connectionRequestTimeout = Duration.ofMillis(500);
+    private Duration idleTimeout = Duration.ofSeconds(30);
+    private Duration timeToLive = Duration.ofMinutes(5);
+    private Duration validateAfterInactivity = Duration.ofSeconds(2);
+}
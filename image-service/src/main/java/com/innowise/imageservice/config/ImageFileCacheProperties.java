@@ -0,0 +1,24 @@
+package com.innowise.imageservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "images.file-cache")
+public class ImageFileCacheProperties {
+    /**
+     * Required and owned by this instance alone: files found there at startup are deleted.
+     */
+    private Path directory;
+    private long maxBytes = 1024L * 1024 * 1024;
+    private int loadThreads = 8;
+    private Duration deleteDelay = Duration.ofSeconds(10);
+    private Duration clientMaxAge = Duration.ofDays(7);
+    private Duration notFoundTtl = Duration.ofSeconds(30);
+    private long notFoundMaxKeys = 10_000;
+}
@@ -0,0 +1,14 @@
+package com.innowise.imageservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "images.import")
+public class ImageImportProperties {
+    private int parallelism = 4;
+    private int batchSize = 50;
+    private int maxEntries = 10_000;
+}
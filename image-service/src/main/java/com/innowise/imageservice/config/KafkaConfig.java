@@ -1,21 +1,34 @@
 package com.innowise.imageservice.config;
 
+import com.innowise.imageservice.dto.event.LikeEvent;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 @Configuration
 public class KafkaConfig {
 
+    public static final String LIKE_INVALIDATION_CONTAINER_FACTORY = "likeInvalidationContainerFactory";
+
+    private static final String LIKE_INVALIDATION_GROUP_PREFIX = "image-service-liked-cache-";
+
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
@@ -27,6 +40,7 @@ public class KafkaConfig {
         configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
         configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
         configProps.put(ProducerConfig.LINGER_MS_CONFIG, 10);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, 64 * 1024);
         configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "zstd");
         return new DefaultKafkaProducerFactory<>(configProps);
     }
@@ -35,5 +49,27 @@ public class KafkaConfig {
     public KafkaTemplate<String, Object> kafkaTemplate() {
         return new KafkaTemplate<>(producerFactory());
     }
-}
 
+    /**
+     * Listener factory for the liked-images invalidation. The group id is unique per instance so that
+     * every instance receives every like event; offsets are never committed, so a restarted instance
+     * starts from the latest events and abandoned groups leave nothing behind on the broker.
+     */
+    @Bean(LIKE_INVALIDATION_CONTAINER_FACTORY)
+    @ConditionalOnProperty(prefix = "images.liked-cache", name = "remote-invalidation", havingValue = "true",
+            matchIfMissing = true)
+    public ConcurrentKafkaListenerContainerFactory<String, LikeEvent> likeInvalidationContainerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, LIKE_INVALIDATION_GROUP_PREFIX + UUID.randomUUID());
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+
+        ConcurrentKafkaListenerContainerFactory<String, LikeEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(configProps, new StringDeserializer(),
+                new JsonDeserializer<>(LikeEvent.class)));
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        return factory;
+    }
+}
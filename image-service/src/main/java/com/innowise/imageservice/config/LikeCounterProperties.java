@@ -0,0 +1,16 @@
+package com.innowise.imageservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "images.likes")
+public class LikeCounterProperties {
+    private boolean sharded = false;
+    private int shards = 16;
+    private Duration compactionInterval = Duration.ofSeconds(10);
+}
@@ -0,0 +1,20 @@
+package com.innowise.imageservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "images.liked-cache")
+public class LikedImagesCacheProperties {
+    private boolean enabled = true;
+    private long maxBytes = 64L * 1024 * 1024;
+    private Duration idleTtl = Duration.ofMinutes(30);
+    private Duration ttl = Duration.ofMinutes(5);
+    private int loadThreads = 8;
+    private Duration awaitTimeout = Duration.ofMillis(200);
+    private boolean remoteInvalidation = true;
+}
@@ -0,0 +1,19 @@
+package com.innowise.imageservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "outbox.relay")
+public class OutboxProperties {
+    private boolean enabled = true;
+    private Duration interval = Duration.ofMillis(200);
+    private int batchSize = 500;
+    private Duration sendTimeout = Duration.ofSeconds(10);
+    private Duration retention = Duration.ofDays(1);
+    private Duration cleanupInterval = Duration.ofHours(1);
+}
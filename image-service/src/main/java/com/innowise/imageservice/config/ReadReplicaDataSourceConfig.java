@@ -0,0 +1,97 @@
+package com.innowise.imageservice.config;
+
+import com.innowise.imageservice.service.ReadReplicas;
+import com.innowise.imageservice.service.ReadYourWritesTracker;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends {@code @Transactional(readOnly = true)} work to the read replicas. The lazy proxy takes the
+ * physical connection only at the first statement, after the transaction has marked it read-only,
+ * and then picks it from the replica router instead of the primary pool. Everything else, including
+ * Liquibase, keeps using the primary.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datasource.replicas", name = "enabled", havingValue = "true")
+public class ReadReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReadReplicas readReplicas(ReadReplicaProperties properties, DataSourceProperties dataSourceProperties,
+                                     MeterRegistry meterRegistry) {
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        List<ReadReplicaProperties.Instance> instances = properties.getInstances();
+        for (int i = 0; i < instances.size(); i++) {
+            String name = "replica-" + i;
+            dataSources.put(name, createReplica(name, instances.get(i), properties, dataSourceProperties,
+                    meterRegistry));
+        }
+        return new ReadReplicas(dataSources, properties.getMaxLag(), meterRegistry);
+    }
+
+    private static HikariDataSource createReplica(String name, ReadReplicaProperties.Instance instance,
+                                                  ReadReplicaProperties properties,
+                                                  DataSourceProperties dataSourceProperties,
+                                                  MeterRegistry meterRegistry) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(dataSourceProperties.determineDriverClassName())
+                .url(instance.getUrl())
+                .username(instance.getUsername() != null
+                        ? instance.getUsername() : dataSourceProperties.determineUsername())
+                .password(instance.getPassword() != null
+                        ? instance.getPassword() : dataSourceProperties.determinePassword())
+                .build();
+        dataSource.setPoolName(name);
+        dataSource.setMaximumPoolSize(properties.getPoolSize());
+        dataSource.setConnectionTimeout(properties.getConnectionTimeout().toMillis());
+        dataSource.setReadOnly(true);
+        dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return dataSource;
+    }
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(ReadReplicaProperties properties) {
+        return new ReadYourWritesTracker(properties.getStickyWindow(), properties.getStickyMaxUsers());
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(ReadYourWritesTracker readYourWritesTracker) {
+        return new ReadYourWritesFilter(readYourWritesTracker);
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             ReadReplicas readReplicas,
+                                                             ReadYourWritesTracker readYourWritesTracker) {
+        return new ReplicaRoutingDataSource(primaryDataSource, readReplicas, readYourWritesTracker);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource,
+                                 ReplicaRoutingDataSource replicaRoutingDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaRoutingDataSource);
+        return dataSource;
+    }
+}
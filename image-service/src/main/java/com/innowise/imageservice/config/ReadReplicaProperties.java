@@ -0,0 +1,31 @@
+package com.innowise.imageservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "datasource.replicas")
+public class ReadReplicaProperties {
+    private boolean enabled = false;
+    private List<Instance> instances = new ArrayList<>();
+    private Duration maxLag = Duration.ofSeconds(5);
+    private Duration lagCheckInterval = Duration.ofSeconds(2);
+    private Duration stickyWindow = Duration.ofSeconds(5);
+    private long stickyMaxUsers = 100_000;
+    private int poolSize = 10;
+    private Duration connectionTimeout = Duration.ofSeconds(1);
+
+    @Data
+    public static class Instance {
+        private String url;
+        // Credentials default to spring.datasource.username/password
+        private String username;
+        private String password;
+    }
+}
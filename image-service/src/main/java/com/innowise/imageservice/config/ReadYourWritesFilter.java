@@ -0,0 +1,51 @@
+package com.innowise.imageservice.config;
+
+import com.innowise.imageservice.service.ReadYourWritesTracker;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Pins a user's requests to the primary while they write and for the sticky window afterwards.
+ * The window is tracked per instance; writes and reads of one user that land on different
+ * instances rely on {@code max-lag} alone.
+ */
+@RequiredArgsConstructor
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String USER_ID_HEADER = "X-User-Id";
+
+    private static final Set<String> SAFE_METHODS =
+            Set.of(HttpMethod.GET.name(), HttpMethod.HEAD.name(), HttpMethod.OPTIONS.name());
+
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String userId = request.getHeader(USER_ID_HEADER);
+        if (userId == null || userId.isBlank()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        boolean write = !SAFE_METHODS.contains(request.getMethod());
+        if (write || readYourWritesTracker.hasRecentWrite(userId)) {
+            readYourWritesTracker.requirePrimary();
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            readYourWritesTracker.release();
+            if (write) {
+                readYourWritesTracker.recordWrite(userId);
+            }
+        }
+    }
+}
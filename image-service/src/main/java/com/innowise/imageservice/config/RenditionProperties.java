@@ -0,0 +1,22 @@
+package com.innowise.imageservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "images.renditions")
+public class RenditionProperties {
+    private boolean enabled = true;
+    private int smallSize = 256;
+    private int mediumSize = 768;
+    private int largeSize = 1600;
+    private int workers = 2;
+    private int queueCapacity = 100;
+    private int maxAttempts = 3;
+    private Duration retryDelay = Duration.ofSeconds(5);
+    private int maxPendingRetries = 1000;
+}
@@ -0,0 +1,68 @@
+package com.innowise.imageservice.config;
+
+import com.innowise.imageservice.service.ReadReplicas;
+import com.innowise.imageservice.service.ReadYourWritesTracker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Target of read-only transactions. Spreads them round-robin over the replicas that are within the
+ * lag limit and uses the primary when none is, when the current user has just written, or when a
+ * replica refuses the connection.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    private final DataSource primary;
+    private final ReadReplicas readReplicas;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, ReadReplicas readReplicas,
+                                    ReadYourWritesTracker readYourWritesTracker) {
+        this.primary = primary;
+        this.readReplicas = readReplicas;
+        this.readYourWritesTracker = readYourWritesTracker;
+        Map<Object, Object> targets = new HashMap<>(readReplicas.getDataSources());
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (readYourWritesTracker.isPrimaryRequired()) {
+            return PRIMARY;
+        }
+        List<String> healthy = readReplicas.getHealthy();
+        if (healthy.isEmpty()) {
+            return PRIMARY;
+        }
+        return healthy.get(Math.floorMod(nextReplica.getAndIncrement(), healthy.size()));
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSource target = determineTargetDataSource();
+        if (target == primary) {
+            return primary.getConnection();
+        }
+        try {
+            return target.getConnection();
+        } catch (SQLException e) {
+            // The lag check has not noticed yet; the next one takes the replica out of rotation
+            log.warn("Read replica refused a connection, reading from the primary: {}", e.getMessage());
+            return primary.getConnection();
+        }
+    }
+}
@@ -1,14 +1,76 @@
 package com.innowise.imageservice.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
+/**
+ * Service-to-service calls go through a pooled Apache HttpClient with keep-alive connections,
+ * per-route limits, connect and read timeouts and idle eviction, so a stalled peer fails fast
+ * instead of holding request threads. Pool usage is published as {@code httpcomponents.httpclient.pool.*}.
+ */
 @Configuration
 public class RestTemplateConfig {
 
+    public static final String POOL_NAME = "service-client";
+
+    @Bean
+    public PoolingHttpClientConnectionManager httpClientConnectionManager(HttpClientProperties properties,
+                                                                          MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(properties.getMaxConnections())
+                .setMaxConnPerRoute(properties.getMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(toTimeout(properties.getConnectTimeout()))
+                        .setSocketTimeout(toTimeout(properties.getReadTimeout()))
+                        .setTimeToLive(toTimeValue(properties.getTimeToLive()))
+                        .setValidateAfterInactivity(toTimeValue(properties.getValidateAfterInactivity()))
+                        .build())
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, POOL_NAME).bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean
+    public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager httpClientConnectionManager,
+                                          HttpClientProperties properties) {
+        return HttpClients.custom()
+                .setConnectionManager(httpClientConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(toTimeout(properties.getConnectionRequestTimeout()))
+                        .setResponseTimeout(toTimeout(properties.getReadTimeout()))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(toTimeValue(properties.getIdleTimeout()))
+                .build();
+    }
+
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(RestTemplateBuilder restTemplateBuilder, CloseableHttpClient httpClient) {
+        return restTemplateBuilder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+                .build();
+    }
+
+    private static Timeout toTimeout(Duration duration) {
+        return Timeout.ofMilliseconds(duration.toMillis());
+    }
+
+    private static TimeValue toTimeValue(Duration duration) {
+        return TimeValue.ofMilliseconds(duration.toMillis());
     }
 }
@@ -6,6 +6,8 @@ import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
 import java.net.URI;
 
@@ -28,4 +30,27 @@ public class S3Config {
                 .forcePathStyle(true)
                 .build();
     }
+
+    /**
+     * Presigned URLs are handed to clients, so they are signed for the public endpoint rather than the
+     * one the service itself talks to.
+     */
+    @Bean
+    public S3Presigner s3Presigner(S3Properties s3Properties) {
+        return S3Presigner.builder()
+                .endpointOverride(URI.create(s3Properties.getPublicUrl()))
+                .credentialsProvider(
+                        StaticCredentialsProvider.create(
+                                AwsBasicCredentials.create(
+                                        s3Properties.getAccessKey(),
+                                        s3Properties.getSecretKey()
+                                )
+                        )
+                )
+                .region(Region.of(s3Properties.getRegion()))
+                .serviceConfiguration(S3Configuration.builder()
+                        .pathStyleAccessEnabled(true)
+                        .build())
+                .build();
+    }
 }
@@ -10,8 +10,13 @@ import org.springframework.context.annotation.Configuration;
 public class S3Properties {
     private String endpointUrl;
     private String publicUrl;
+    // When set, image URLs point here (e.g. the gateway's /api/files) instead of at the bucket
+    private String deliveryUrl;
     private String region;
     private String bucketName;
     private String accessKey;
     private String secretKey;
+    private int partSizeBytes = 5 * 1024 * 1024;
+    private int maxInFlightParts = 2;
+    private int partUploadThreads = 16;
 }
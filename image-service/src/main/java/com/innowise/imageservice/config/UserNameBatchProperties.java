@@ -0,0 +1,17 @@
+package com.innowise.imageservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "auth.names.batch")
+public class UserNameBatchProperties {
+    private boolean enabled = true;
+    private Duration window = Duration.ofMillis(2);
+    private int maxSize = 200;
+    private int maxConcurrentRequests = 8;
+}
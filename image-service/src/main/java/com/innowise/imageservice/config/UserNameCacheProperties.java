@@ -0,0 +1,17 @@
+package com.innowise.imageservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "auth.names.cache")
+public class UserNameCacheProperties {
+    private long maxSize = 10_000;
+    private Duration ttl = Duration.ofMinutes(10);
+    private Duration negativeTtl = Duration.ofMinutes(1);
+    private Duration lookupTimeout = Duration.ofMillis(500);
+}
@@ -0,0 +1,16 @@
+package com.innowise.imageservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "virtual-threads.pinning-monitor")
+public class VirtualThreadPinningProperties {
+    private boolean enabled = true;
+    private Duration threshold = Duration.ofMillis(20);
+    private int stackDepth = 8;
+}
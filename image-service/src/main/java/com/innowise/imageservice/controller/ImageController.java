@@ -1,19 +1,33 @@
 package com.innowise.imageservice.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.innowise.imageservice.dto.CommentRequestDto;
 import com.innowise.imageservice.dto.CommentResponseDto;
 import com.innowise.imageservice.dto.CommentWithOwnersResponseDto;
+import com.innowise.imageservice.dto.ConfirmUploadRequestDto;
+import com.innowise.imageservice.dto.ImageIdsRequestDto;
 import com.innowise.imageservice.dto.ImageRequestDto;
 import com.innowise.imageservice.dto.ImageResponseDto;
 import com.innowise.imageservice.dto.ImageWithLikeByCurrentUserResponseDto;
+import com.innowise.imageservice.dto.LikeStateResponseDto;
+import com.innowise.imageservice.dto.LikeStatusResponseDto;
 import com.innowise.imageservice.dto.PaginatedSliceResponseDto;
+import com.innowise.imageservice.dto.PresignedUploadRequestDto;
+import com.innowise.imageservice.dto.PresignedUploadResponseDto;
 import com.innowise.imageservice.service.ImageService;
 
 import com.innowise.imageservice.swagger.ImageControllerSwagger;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -25,8 +39,17 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.http.MediaType.IMAGE_JPEG_VALUE;
+import static org.springframework.http.MediaType.IMAGE_PNG_VALUE;
 import static org.springframework.http.MediaType.MULTIPART_FORM_DATA_VALUE;
 
 @RestController
@@ -34,7 +57,18 @@ import static org.springframework.http.MediaType.MULTIPART_FORM_DATA_VALUE;
 @RequestMapping("/api")
 public class ImageController implements ImageControllerSwagger {
 
+    // Responses carry the current user's like flags, so only the client may cache them, and it has
+    // to revalidate with If-None-Match. The ETag is computed before the body, so a body can only be
+    // newer than its tag, which at worst costs one extra 200. JSON, CBOR and Smile bodies of one
+    // revision are different bytes, and a strong tag must differ between them, so the tag names the
+    // encoding that Accept negotiates and responses vary by Accept.
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+    // In the order of the message converters, which decides between equally acceptable types.
+    private static final List<MediaType> ENCODINGS = List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR,
+            new MediaType("application", "x-jackson-smile"));
+
     private final ImageService imageService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping(path = "/images", consumes = MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<ImageResponseDto> upload(
@@ -45,30 +79,110 @@ public class ImageController implements ImageControllerSwagger {
                 HttpStatus.CREATED);
     }
 
+    @PostMapping(path = "/images/stream", consumes = {IMAGE_JPEG_VALUE, IMAGE_PNG_VALUE, "image/bmp", "image/webp"})
+    public ResponseEntity<ImageResponseDto> uploadStream(
+            @RequestHeader("X-User-Id") String userId,
+            @RequestParam(required = false) String description,
+            HttpServletRequest request) throws IOException {
+        return new ResponseEntity<>(imageService.uploadStream(userId, description, request.getContentType(),
+                request.getContentLengthLong(), request.getInputStream()),
+                HttpStatus.CREATED);
+    }
+
+    @PostMapping(path = "/images/import", consumes = {"application/zip", "application/x-tar", "application/gzip"})
+    public void importImages(
+            @RequestHeader("X-User-Id") String userId,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        OutputStream body = response.getOutputStream();
+        imageService.importArchive(userId, request.getContentType(), request.getInputStream(), item -> {
+            try {
+                body.write(objectMapper.writeValueAsBytes(item));
+                body.write('\n');
+                body.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @PostMapping("/images/uploads")
+    public ResponseEntity<PresignedUploadResponseDto> createUpload(
+            @RequestHeader("X-User-Id") String userId,
+            @Valid @RequestBody PresignedUploadRequestDto presignedUploadRequestDto) {
+        return ResponseEntity.ok(imageService.createUpload(userId, presignedUploadRequestDto));
+    }
+
+    @PostMapping("/images/uploads/confirm")
+    public ResponseEntity<ImageResponseDto> confirmUpload(
+            @RequestHeader("X-User-Id") String userId,
+            @Valid @RequestBody ConfirmUploadRequestDto confirmUploadRequestDto) {
+        return new ResponseEntity<>(imageService.confirmUpload(userId, confirmUploadRequestDto.uploadToken()),
+                HttpStatus.CREATED);
+    }
+
     @GetMapping("/images/{id}")
     public ResponseEntity<ImageWithLikeByCurrentUserResponseDto> getById(@RequestHeader("X-User-Id") String currentUserId,
-                                                                         @PathVariable("id") Long imageId) {
-        return ResponseEntity.ok(imageService.getById(currentUserId, imageId));
+                                                                         @PathVariable("id") Long imageId,
+                                                                         WebRequest request) {
+        String eTag = withEncoding(imageService.getImageETag(currentUserId, imageId), request);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(REVALIDATE)
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(imageService.getById(currentUserId, imageId));
+    }
+
+
+    @PostMapping("/images/batch")
+    public ResponseEntity<List<ImageWithLikeByCurrentUserResponseDto>> getByIds(
+            @RequestHeader("X-User-Id") String currentUserId,
+            @Valid @RequestBody ImageIdsRequestDto imageIdsRequestDto) {
+        return ResponseEntity.ok(imageService.getByIds(currentUserId, imageIdsRequestDto.ids()));
     }
 
+    @PostMapping("/images/likes/status")
+    public ResponseEntity<List<LikeStatusResponseDto>> getLikeStatuses(
+            @RequestHeader("X-User-Id") String currentUserId,
+            @Valid @RequestBody ImageIdsRequestDto imageIdsRequestDto) {
+        return ResponseEntity.ok(imageService.getLikeStatuses(currentUserId, imageIdsRequestDto.ids()));
+    }
 
     @GetMapping("/users/images")
     public ResponseEntity<PaginatedSliceResponseDto<ImageWithLikeByCurrentUserResponseDto>> getAllByUserId(@RequestHeader("X-User-Id") String currentUserId,
                                                                                       @RequestParam(defaultValue = "0") int page,
-                                                                                      @RequestParam(defaultValue = "20") int size) {
-        return ResponseEntity.ok(imageService.getAllByUserId(currentUserId, page, size));
+                                                                                      @RequestParam(defaultValue = "20") int size,
+                                                                                      @RequestParam(required = false) String cursor) {
+        return ResponseEntity.ok(imageService.getAllByUserId(currentUserId, page, size, cursor));
     }
 
     @GetMapping("/images")
     public ResponseEntity<PaginatedSliceResponseDto<ImageWithLikeByCurrentUserResponseDto>> getAll(@RequestHeader("X-User-Id") String userId,
                                                                                                    @RequestParam(defaultValue = "0") int page,
-                                                                                                   @RequestParam(defaultValue = "20") int size) {
-        return ResponseEntity.ok(imageService.getAll(userId, page, size));
+                                                                                                   @RequestParam(defaultValue = "20") int size,
+                                                                                                   @RequestParam(required = false) String cursor,
+                                                                                                   WebRequest request) {
+        if (cursor != null) {
+            return ResponseEntity.ok(imageService.getAll(userId, page, size, cursor));
+        }
+        String eTag = withEncoding(imageService.getFeedETag(userId, page, size), request);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(REVALIDATE)
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(imageService.getAll(userId, page, size, null));
     }
 
     @PutMapping("/images/{id}/likes")
-    public ResponseEntity<String> pressOrDeleteLike(@RequestHeader("X-User-Id") String userId,
-                                                    @PathVariable("id") Long imageId) {
+    public ResponseEntity<LikeStateResponseDto> pressOrDeleteLike(@RequestHeader("X-User-Id") String userId,
+                                                                  @PathVariable("id") Long imageId) {
         return ResponseEntity.ok(imageService.setOrRemoveLike(userId, imageId));
     }
 
@@ -83,9 +197,10 @@ public class ImageController implements ImageControllerSwagger {
     public ResponseEntity<PaginatedSliceResponseDto<CommentWithOwnersResponseDto>> getAllCommentsByImageId(@RequestHeader("X-User-Id") String userId,
                                                                                                            @PathVariable("id") Long imageId,
                                                                                                            @RequestParam(defaultValue = "0") int page,
-                                                                                                           @RequestParam(defaultValue = "5") int size) {
+                                                                                                           @RequestParam(defaultValue = "5") int size,
+                                                                                                           @RequestParam(required = false) String cursor) {
         return ResponseEntity.ok(
-                imageService.getAllCommentsByImageId(imageId, userId, page, size));
+                imageService.getAllCommentsByImageId(imageId, userId, page, size, cursor));
     }
 
 
@@ -104,4 +219,32 @@ public class ImageController implements ImageControllerSwagger {
                                                             @Valid @RequestBody CommentRequestDto commentRequestDto) {
         return ResponseEntity.ok(imageService.updateComment(userId, imageId, commentId, commentRequestDto));
     }
+
+    private static String withEncoding(String eTag, WebRequest request) {
+        return eTag.substring(0, eTag.length() - 1) + "-" + negotiatedEncoding(request).getSubtype() + "\"";
+    }
+
+    /**
+     * Picks the encoding the message converters will write, the way Spring MVC does: each acceptable
+     * encoding takes the quality of the Accept entry it matches, and the most specific one wins.
+     */
+    private static MediaType negotiatedEncoding(WebRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        List<MediaType> acceptedTypes;
+        try {
+            acceptedTypes = accept == null ? List.of(MediaType.ALL) : MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> candidates = new ArrayList<>();
+        for (MediaType acceptedType : acceptedTypes) {
+            for (MediaType encoding : ENCODINGS) {
+                if (acceptedType.getQualityValue() > 0 && acceptedType.isCompatibleWith(encoding)) {
+                    candidates.add(encoding.copyQualityValue(acceptedType));
+                }
+            }
+        }
+        MimeTypeUtils.sortBySpecificity(candidates);
+        return candidates.isEmpty() ? MediaType.APPLICATION_JSON : candidates.get(0);
+    }
 }
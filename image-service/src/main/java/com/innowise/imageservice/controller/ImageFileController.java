@@ -0,0 +1,139 @@
+package com.innowise.imageservice.controller;
+
+import com.innowise.imageservice.config.ImageFileCacheProperties;
+import com.innowise.imageservice.exception.ImageNotFoundException;
+import com.innowise.imageservice.service.ImageFileCache;
+import com.innowise.imageservice.service.ImageFileCache.CachedFile;
+import com.innowise.imageservice.service.S3Service;
+import com.innowise.imageservice.swagger.ImageFileControllerSwagger;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.apache.catalina.Globals;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api")
+public class ImageFileController implements ImageFileControllerSwagger {
+
+    private static final String BYTES_UNIT = "bytes";
+    private static final String CONTENT_RANGE_FORMAT = "bytes %d-%d/%d";
+    private static final String UNSATISFIED_CONTENT_RANGE_FORMAT = "bytes */%d";
+
+    private final ImageFileCache imageFileCache;
+    private final ImageFileCacheProperties properties;
+
+    @GetMapping("/files/{*key}")
+    public void getFile(@PathVariable("key") String key,
+                        HttpServletRequest request,
+                        HttpServletResponse response) throws IOException {
+        // {*key} captures the remaining path including its leading slash
+        String objectKey = key.substring(1);
+        if (objectKey.isEmpty()) {
+            throw new ImageNotFoundException(S3Service.FILE_NOT_FOUND_EXCEPTION_MESSAGE);
+        }
+        CachedFile file = imageFileCache.get(objectKey);
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+                CacheControl.maxAge(properties.getClientMaxAge()).cachePublic().getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, BYTES_UNIT);
+        if (new ServletWebRequest(request, response).checkNotModified(file.eTag(), file.lastModified().toEpochMilli())) {
+            return;
+        }
+        response.setContentType(file.contentType());
+
+        long start = 0;
+        long length = file.size();
+        HttpRange range = requestedRange(request, file);
+        if (range != null) {
+            start = range.getRangeStart(file.size());
+            long end = range.getRangeEnd(file.size());
+            if (start >= file.size() || end < start) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE,
+                        String.format(UNSATISFIED_CONTENT_RANGE_FORMAT, file.size()));
+                return;
+            }
+            length = end - start + 1;
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, String.format(CONTENT_RANGE_FORMAT, start, end, file.size()));
+        }
+        response.setContentLengthLong(length);
+        if (!HttpMethod.HEAD.matches(request.getMethod())) {
+            transfer(file.path(), start, length, request, response);
+        }
+    }
+
+    /**
+     * Returns the single range to serve, or null for the whole file. Malformed and multi-range requests
+     * get the whole file, as do ranges whose {@code If-Range} no longer matches.
+     */
+    private static HttpRange requestedRange(HttpServletRequest request, CachedFile file) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null || !ifRangeMatches(request, file)) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.getFirst() : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static boolean ifRangeMatches(HttpServletRequest request, CachedFile file) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(file.eTag());
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == file.lastModified().getEpochSecond();
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Hands the file to Tomcat's sendfile, which writes it to the socket with
+     * {@code FileChannel.transferTo} once the handler returns. Connectors without sendfile (TLS, tests)
+     * get the same call against the response stream.
+     */
+    private static void transfer(Path path, long start, long length,
+                                 HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(Globals.SENDFILE_SUPPORTED_ATTR))) {
+            request.setAttribute(Globals.SENDFILE_FILENAME_ATTR, path.toString());
+            request.setAttribute(Globals.SENDFILE_FILE_START_ATTR, start);
+            request.setAttribute(Globals.SENDFILE_FILE_END_ATTR, start + length);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long end = start + length;
+            while (position < end) {
+                position += channel.transferTo(position, end - position, out);
+            }
+        }
+    }
+}
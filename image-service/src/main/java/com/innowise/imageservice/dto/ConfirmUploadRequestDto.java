@@ -0,0 +1,8 @@
+package com.innowise.imageservice.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record ConfirmUploadRequestDto(
+        @NotBlank
+        String uploadToken) {
+}
@@ -0,0 +1,14 @@
+package com.innowise.imageservice.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record ImageIdsRequestDto(
+        @NotNull
+        @NotEmpty
+        @Size(max = 500)
+        List<@NotNull Long> ids) {
+}
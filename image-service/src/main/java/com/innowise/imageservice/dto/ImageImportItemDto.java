@@ -0,0 +1,24 @@
+package com.innowise.imageservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One line of the bulk import progress. {@code index} and {@code name} identify the archive entry;
+ * both are null for a failure of the archive itself, after which no further entries are read.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ImageImportItemDto(Integer index, String name, Status status, ImageResponseDto image, String error) {
+
+    public enum Status {
+        CREATED,
+        FAILED
+    }
+
+    public static ImageImportItemDto created(int index, String name, ImageResponseDto image) {
+        return new ImageImportItemDto(index, name, Status.CREATED, image, null);
+    }
+
+    public static ImageImportItemDto failed(Integer index, String name, String error) {
+        return new ImageImportItemDto(index, name, Status.FAILED, null, error);
+    }
+}
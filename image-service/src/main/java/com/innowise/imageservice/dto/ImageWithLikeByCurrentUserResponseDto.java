@@ -14,7 +14,11 @@ public class ImageWithLikeByCurrentUserResponseDto {
     private String description;
     private LocalDateTime updatedAt;
     private Long likes;
+    private Long commentsCount;
     private boolean likedByCurrentUser;
     private String userName;
     private Long userId;
+    private String smallUrl;
+    private String mediumUrl;
+    private String largeUrl;
 }
@@ -0,0 +1,35 @@
+package com.innowise.imageservice.dto;
+
+import com.innowise.imageservice.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+public record KeysetCursor(LocalDateTime timestamp, Long id) {
+
+    public static final String INVALID_CURSOR_EXCEPTION_MESSAGE = "Invalid pagination cursor";
+
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String raw = timestamp + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separatorIndex = raw.lastIndexOf(SEPARATOR);
+            if (separatorIndex < 0) {
+                throw new InvalidCursorException(INVALID_CURSOR_EXCEPTION_MESSAGE);
+            }
+            return new KeysetCursor(
+                    LocalDateTime.parse(raw.substring(0, separatorIndex)),
+                    Long.valueOf(raw.substring(separatorIndex + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException(INVALID_CURSOR_EXCEPTION_MESSAGE);
+        }
+    }
+}
@@ -0,0 +1,4 @@
+package com.innowise.imageservice.dto;
+
+public record LikeStateResponseDto(boolean liked, long likes) {
+}
@@ -0,0 +1,4 @@
+package com.innowise.imageservice.dto;
+
+public record LikeStatusResponseDto(Long imageId, boolean liked, long likes) {
+}
@@ -15,6 +15,7 @@ public class PaginatedSliceResponseDto<T> {
     private int pageNumber;
     private int pageSize;
     private boolean hasNext;
+    private String nextCursor;
 
     public static <T> PaginatedSliceResponseDto<T> of(Slice<T> slice) {
         return PaginatedSliceResponseDto.<T>builder()
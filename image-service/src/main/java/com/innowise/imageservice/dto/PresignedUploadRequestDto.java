@@ -0,0 +1,18 @@
+package com.innowise.imageservice.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+public record PresignedUploadRequestDto(
+        @Size(max = 1000)
+        String description,
+        @NotBlank
+        String contentType,
+        @NotNull
+        Long contentLength,
+        @NotNull
+        @Pattern(regexp = "[0-9a-fA-F]{64}")
+        String sha256) {
+}
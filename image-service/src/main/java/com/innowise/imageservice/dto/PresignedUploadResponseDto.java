@@ -0,0 +1,11 @@
+package com.innowise.imageservice.dto;
+
+import java.time.Instant;
+import java.util.Map;
+
+public record PresignedUploadResponseDto(
+        String uploadUrl,
+        Map<String, String> headers,
+        String uploadToken,
+        Instant expiresAt) {
+}
@@ -0,0 +1,17 @@
+package com.innowise.imageservice.dto;
+
+import java.time.Instant;
+
+/**
+ * What the service promised when it presigned an upload; signed into the upload token so the confirm
+ * call can check the stored object against it without keeping any state in between.
+ */
+public record UploadToken(
+        Long userId,
+        String objectKey,
+        String contentType,
+        long contentLength,
+        String contentHash,
+        String description,
+        Instant expiresAt) {
+}
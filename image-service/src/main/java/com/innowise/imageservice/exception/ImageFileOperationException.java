@@ -1,6 +1,10 @@
 package com.innowise.imageservice.exception;
 
 public class ImageFileOperationException extends RuntimeException {
+    public ImageFileOperationException(String message) {
+        super(message);
+    }
+
     public ImageFileOperationException(String message, Throwable cause) {
         super(message, cause);
     }
@@ -0,0 +1,7 @@
+package com.innowise.imageservice.exception;
+
+public class InvalidUploadTokenException extends RuntimeException {
+    public InvalidUploadTokenException(String message) {
+        super(message);
+    }
+}
@@ -5,8 +5,10 @@ import com.innowise.imageservice.exception.CommentNotFoundException;
 import com.innowise.imageservice.exception.ImageFileOperationException;
 import com.innowise.imageservice.exception.ImageFileRequiredException;
 import com.innowise.imageservice.exception.ImageNotFoundException;
+import com.innowise.imageservice.exception.InvalidCursorException;
 import com.innowise.imageservice.exception.InvalidImageSizeException;
 import com.innowise.imageservice.exception.InvalidImageTypeException;
+import com.innowise.imageservice.exception.InvalidUploadTokenException;
 import com.innowise.imageservice.exception.OperationNotAllowedException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -82,6 +84,18 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(BAD_REQUEST).body(new ErrorResponse(e.getMessage()));
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<?> handleInvalidCursorException(InvalidCursorException e) {
+        log.error(e.getMessage());
+        return ResponseEntity.status(BAD_REQUEST).body(new ErrorResponse(e.getMessage()));
+    }
+
+    @ExceptionHandler(InvalidUploadTokenException.class)
+    public ResponseEntity<?> handleInvalidUploadTokenException(InvalidUploadTokenException e) {
+        log.error(e.getMessage());
+        return ResponseEntity.status(BAD_REQUEST).body(new ErrorResponse(e.getMessage()));
+    }
+
     @ExceptionHandler(ImageFileOperationException.class)
     public ResponseEntity<?> handleImageFileOperationException(ImageFileOperationException e) {
         log.error(e.getMessage(), e.getCause());
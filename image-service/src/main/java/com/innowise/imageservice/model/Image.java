@@ -5,6 +5,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -33,7 +34,8 @@ public class Image implements Serializable {
     private static final long serialVersionUID = -1370393941197291745L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "images_seq")
+    @SequenceGenerator(name = "images_seq", sequenceName = "images_seq", schema = "gallery", allocationSize = 50)
     private Long id;
 
     @Column(name = "url", nullable = false, length = 512)
@@ -48,9 +50,35 @@ public class Image implements Serializable {
     @Column(name = "likes", nullable = false)
     private Long likes;
 
+    /**
+     * Maintained only by {@code ImageRepository#addToCommentsCount}, so saving a loaded entity
+     * never overwrites a count another transaction has changed since.
+     */
+    @Column(name = "comments_count", nullable = false, insertable = false, updatable = false)
+    private Long commentsCount;
+
+    /**
+     * Bumped by every statement that changes what the image's representation shows (likes,
+     * comments, renditions); together with the revisions of its like shards it drives the ETag.
+     */
+    @Column(name = "revision", nullable = false, insertable = false, updatable = false)
+    private Long revision;
+
     @Column(name = "user_id", nullable = false)
     private Long userId;
 
+    @Column(name = "small_url", length = 512)
+    private String smallUrl;
+
+    @Column(name = "medium_url", length = 512)
+    private String mediumUrl;
+
+    @Column(name = "large_url", length = 512)
+    private String largeUrl;
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
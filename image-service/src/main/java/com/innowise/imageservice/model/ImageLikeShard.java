@@ -0,0 +1,65 @@
+package com.innowise.imageservice.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Pending like counter delta for one shard of an image. Concurrent likes on a hot image are spread
+ * over several rows instead of all updating {@code images.likes}; the shards are periodically
+ * folded back into the image by {@link com.innowise.imageservice.service.LikeCounterCompactor}.
+ */
+@Entity
+@Table(name = "image_like_shards", schema = "gallery")
+@IdClass(ImageLikeShard.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class ImageLikeShard implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = -2745106312279471290L;
+
+    @Id
+    @Column(name = "image_id", nullable = false)
+    private Long imageId;
+
+    @Id
+    @Column(name = "shard", nullable = false)
+    private Integer shard;
+
+    @Column(name = "delta", nullable = false)
+    private Long delta;
+
+    @Column(name = "revision", nullable = false)
+    private Long revision;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 6526418722113903047L;
+
+        private Long imageId;
+        private Integer shard;
+    }
+}
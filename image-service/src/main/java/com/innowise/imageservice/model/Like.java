@@ -8,6 +8,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -36,7 +37,8 @@ public class Like implements Serializable {
     private static final long serialVersionUID = 8092679072385947361L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "likes_seq")
+    @SequenceGenerator(name = "likes_seq", sequenceName = "likes_seq", schema = "gallery", allocationSize = 1)
     private Long id;
 
     @Column(name = "created_at", nullable = false)
@@ -7,6 +7,8 @@ import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
+
 public interface CommentRepository extends JpaRepository<Comment, Long> {
 
     @Query("""
@@ -20,11 +22,33 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
                null)
         from Comment c
         where c.image.id = :imageId
-        order by c.createdAt desc
+        order by c.createdAt desc, c.id desc
         """)
     Slice<CommentWithOwnersResponseDto> findAllByImageIdWithOwner(
             Long imageId,
             Long currentUserId,
             Pageable pageable);
+
+    @Query("""
+        select new com.innowise.imageservice.dto.CommentWithOwnersResponseDto(
+               c.id,
+               c.content,
+               c.createdAt,
+               c.userId,
+               c.image.id,
+               case when c.userId = :currentUserId then true else false end,
+               null)
+        from Comment c
+        where c.image.id = :imageId
+          and c.createdAt <= :createdAt
+          and (c.createdAt < :createdAt or c.id < :id)
+        order by c.createdAt desc, c.id desc
+        """)
+    Slice<CommentWithOwnersResponseDto> findAllByImageIdWithOwnerAfter(
+            Long imageId,
+            Long currentUserId,
+            LocalDateTime createdAt,
+            Long id,
+            Pageable pageable);
 }
 
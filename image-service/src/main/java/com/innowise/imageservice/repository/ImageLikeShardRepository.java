@@ -0,0 +1,37 @@
+package com.innowise.imageservice.repository;
+
+import com.innowise.imageservice.model.ImageLikeShard;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface ImageLikeShardRepository extends JpaRepository<ImageLikeShard, ImageLikeShard.Key> {
+
+    /**
+     * Moves all pending shard deltas into {@code images.likes}, and their revisions into
+     * {@code images.revision}, in one statement, so readers that add the shards to the stored
+     * values never see a delta twice or not at all.
+     *
+     * @return the number of images whose counter was updated
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            WITH drained AS (
+                DELETE FROM gallery.image_like_shards
+                RETURNING image_id, delta, revision
+            ),
+            totals AS (
+                SELECT image_id, sum(delta) AS delta, sum(revision) AS revision
+                FROM drained
+                GROUP BY image_id
+            )
+            UPDATE gallery.images i
+            SET likes = i.likes + t.delta,
+                revision = i.revision + t.revision
+            FROM totals t
+            WHERE i.id = t.image_id
+            """, nativeQuery = true)
+    int compact();
+}
@@ -0,0 +1,70 @@
+package com.innowise.imageservice.repository;
+
+import com.innowise.imageservice.model.ImageObject;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface ImageObjectRepository extends JpaRepository<ImageObject, String> {
+
+    @Transactional
+    @Query(value = """
+            UPDATE gallery.image_objects
+            SET ref_count = ref_count + 1
+            WHERE content_hash = :contentHash
+            RETURNING object_key
+            """, nativeQuery = true)
+    Optional<String> acquireExisting(String contentHash);
+
+    /**
+     * Tells whether an object key, or a key starting with the given pattern, belongs to a stored image.
+     * Images uploaded before the object index existed are matched by their URL.
+     */
+    @Query(value = """
+            SELECT EXISTS (SELECT 1 FROM gallery.image_objects
+                           WHERE object_key = :objectKey OR object_key LIKE :objectKeyPattern ESCAPE '\\')
+                OR EXISTS (SELECT 1 FROM gallery.images
+                           WHERE content_hash IS NULL
+                             AND (url = :legacyUrl OR url LIKE :legacyUrlPattern ESCAPE '\\'))
+            """, nativeQuery = true)
+    boolean existsStoredObject(String objectKey, String objectKeyPattern, String legacyUrl, String legacyUrlPattern);
+
+    @Transactional
+    @Query(value = """
+            INSERT INTO gallery.image_objects (content_hash, object_key, ref_count, created_at)
+            VALUES (:contentHash, :objectKey, 1, :createdAt)
+            ON CONFLICT (content_hash) DO UPDATE SET ref_count = gallery.image_objects.ref_count + 1
+            RETURNING object_key
+            """, nativeQuery = true)
+    String register(String contentHash, String objectKey, LocalDateTime createdAt);
+
+    @Modifying
+    @Query(value = """
+            UPDATE gallery.image_objects
+            SET ref_count = ref_count - 1
+            WHERE content_hash = :contentHash
+            """, nativeQuery = true)
+    int decrementRefCount(String contentHash);
+
+    @Query(value = """
+            DELETE FROM gallery.image_objects
+            WHERE content_hash = :contentHash AND ref_count <= 0
+            RETURNING object_key
+            """, nativeQuery = true)
+    Optional<String> deleteUnreferenced(String contentHash);
+
+    /**
+     * Drops one reference to the object and removes its index row once nothing points at it.
+     *
+     * @return the key of the S3 object that is no longer referenced
+     */
+    @Transactional
+    default Optional<String> release(String contentHash) {
+        decrementRefCount(contentHash);
+        return deleteUnreferenced(contentHash);
+    }
+}
@@ -1,67 +1,174 @@
 package com.innowise.imageservice.repository;
 
 import com.innowise.imageservice.dto.ImageWithLikeByCurrentUserResponseDto;
+import com.innowise.imageservice.dto.LikeStatusResponseDto;
 import com.innowise.imageservice.model.Image;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface ImageRepository extends JpaRepository<Image, Long> {
 
-    @Query("""
-            select new com.innowise.imageservice.dto.ImageWithLikeByCurrentUserResponseDto(
-                   i.id,
-                   i.url,
-                   i.description,
-                   i.uploadedAt,
-                   i.likes,
-                   case when l.id is not null then true else false end,
-                   null,
-                   i.userId)
-            from Image i
-            left join Like l on l.image = i and l.userId = :currentUserId
+    /**
+     * Likes of an image including the deltas its like shards hold until {@code LikeCounterCompactor}
+     * folds them in. Without {@code images.likes.sharded} no shard rows are written, so once the
+     * compactor has drained them this is a primary key probe that finds nothing. Every image read
+     * takes its counts from here and from {@link #REVISION}, so a change to the counter model is
+     * made in one place.
+     */
+    String LIKES = "i.likes + coalesce((select sum(s.delta) from ImageLikeShard s where s.imageId = i.id), 0L)";
+
+    /** Revision of an image including the like changes recorded in its shard rows, see {@link #LIKES}. */
+    String REVISION = "i.revision + coalesce((select sum(s.revision) from ImageLikeShard s where s.imageId = i.id), 0L)";
+
+    String IMAGE_COLUMNS = "i.id, i.url, i.description, i.uploadedAt, " + LIKES + ", i.commentsCount";
+    String IMAGE_DETAILS = "null, i.userId, i.smallUrl, i.mediumUrl, i.largeUrl";
+
+    String SELECT_WITH_LIKE_FLAG = "select new com.innowise.imageservice.dto.ImageWithLikeByCurrentUserResponseDto("
+            + IMAGE_COLUMNS + ", case when l.id is not null then true else false end, " + IMAGE_DETAILS + ") "
+            + "from Image i left join Like l on l.image = i and l.userId = :currentUserId ";
+
+    String SELECT_WITHOUT_LIKE_FLAG = "select new com.innowise.imageservice.dto.ImageWithLikeByCurrentUserResponseDto("
+            + IMAGE_COLUMNS + ", false, " + IMAGE_DETAILS + ") from Image i ";
+
+    @Query(SELECT_WITH_LIKE_FLAG + """
             where i.userId = :currentUserId
-            order by i.uploadedAt desc
+            order by i.uploadedAt desc, i.id desc
             """)
     Slice<ImageWithLikeByCurrentUserResponseDto> findAllByOwnerIdWithLikeFlag(
             Long currentUserId,
             Pageable pageable);
 
-    @Query("""
-            select new com.innowise.imageservice.dto.ImageWithLikeByCurrentUserResponseDto(
-                   i.id,
-                   i.url,
-                   i.description,
-                   i.uploadedAt,
-                   i.likes,
-                   case when l.id is not null then true else false end,
-                   null,
-                   i.userId)
-            from Image i
-            left join Like l on l.image = i and l.userId = :currentUserId
-            order by i.uploadedAt desc
+    @Query(SELECT_WITH_LIKE_FLAG + """
+            where i.userId = :currentUserId
+              and i.uploadedAt <= :uploadedAt
+              and (i.uploadedAt < :uploadedAt or i.id < :id)
+            order by i.uploadedAt desc, i.id desc
+            """)
+    Slice<ImageWithLikeByCurrentUserResponseDto> findAllByOwnerIdWithLikeFlagAfter(
+            Long currentUserId,
+            LocalDateTime uploadedAt,
+            Long id,
+            Pageable pageable);
+
+    @Query(SELECT_WITH_LIKE_FLAG + """
+            order by i.uploadedAt desc, i.id desc
             """)
     Slice<ImageWithLikeByCurrentUserResponseDto> findAllWithLikeFlag(Long currentUserId,
                                                                      Pageable pageable);
 
-    @Query("""
-            select new com.innowise.imageservice.dto.ImageWithLikeByCurrentUserResponseDto(
-                   i.id,
-                   i.url,
-                   i.description,
-                   i.uploadedAt,
-                   i.likes,
-                   case when l.id is not null then true else false end,
-                   null,
-                   i.userId)
-            from Image i
-            left join Like l on l.image = i and l.userId = :currentUserId
+    @Query(SELECT_WITH_LIKE_FLAG + """
+            where i.uploadedAt <= :uploadedAt
+              and (i.uploadedAt < :uploadedAt or i.id < :id)
+            order by i.uploadedAt desc, i.id desc
+            """)
+    Slice<ImageWithLikeByCurrentUserResponseDto> findAllWithLikeFlagAfter(Long currentUserId,
+                                                                          LocalDateTime uploadedAt,
+                                                                          Long id,
+                                                                          Pageable pageable);
+
+    @Query(SELECT_WITHOUT_LIKE_FLAG + """
+            where i.userId = :ownerId
+            order by i.uploadedAt desc, i.id desc
+            """)
+    Slice<ImageWithLikeByCurrentUserResponseDto> findAllByOwnerIdWithoutLikeFlag(
+            Long ownerId,
+            Pageable pageable);
+
+    @Query(SELECT_WITHOUT_LIKE_FLAG + """
+            where i.userId = :ownerId
+              and i.uploadedAt <= :uploadedAt
+              and (i.uploadedAt < :uploadedAt or i.id < :id)
+            order by i.uploadedAt desc, i.id desc
+            """)
+    Slice<ImageWithLikeByCurrentUserResponseDto> findAllByOwnerIdWithoutLikeFlagAfter(
+            Long ownerId,
+            LocalDateTime uploadedAt,
+            Long id,
+            Pageable pageable);
+
+    @Query(SELECT_WITHOUT_LIKE_FLAG + """
+            order by i.uploadedAt desc, i.id desc
+            """)
+    Slice<ImageWithLikeByCurrentUserResponseDto> findAllWithoutLikeFlag(Pageable pageable);
+
+    @Query(SELECT_WITHOUT_LIKE_FLAG + """
+            where i.uploadedAt <= :uploadedAt
+              and (i.uploadedAt < :uploadedAt or i.id < :id)
+            order by i.uploadedAt desc, i.id desc
+            """)
+    Slice<ImageWithLikeByCurrentUserResponseDto> findAllWithoutLikeFlagAfter(LocalDateTime uploadedAt,
+                                                                             Long id,
+                                                                             Pageable pageable);
+
+    @Query(SELECT_WITH_LIKE_FLAG + """
             where i.id = :imageId
             """)
     Optional<ImageWithLikeByCurrentUserResponseDto> findWithLikeByCurrentUserId(
             Long currentUserId,
             Long imageId);
+
+    @Query(SELECT_WITH_LIKE_FLAG + """
+            where i.id in :imageIds
+            """)
+    List<ImageWithLikeByCurrentUserResponseDto> findAllWithLikeByCurrentUserIdAndIdIn(
+            Long currentUserId,
+            Collection<Long> imageIds);
+
+    @Query("select new com.innowise.imageservice.dto.LikeStatusResponseDto("
+            + "i.id, case when l.id is not null then true else false end, " + LIKES + ") " + """
+            from Image i
+            left join Like l on l.image = i and l.userId = :currentUserId
+            where i.id in :imageIds
+            """)
+    List<LikeStatusResponseDto> findLikeStatuses(Long currentUserId, Collection<Long> imageIds);
+
+    Optional<Image> findFirstByContentHashAndLargeUrlIsNotNull(String contentHash);
+
+    /**
+     * Current revision of the image including pending like shards, without touching likes,
+     * comments or users. Empty when the image does not exist.
+     */
+    @Query("select " + REVISION + " " + """
+            from Image i
+            where i.id = :imageId
+            """)
+    Optional<Long> findRevision(Long imageId);
+
+    /**
+     * Ids and revisions of a feed page, in feed order, read from the feed index instead of running
+     * the full feed query.
+     */
+    @Query("select new com.innowise.imageservice.repository.ImageRevision(i.id, " + REVISION + ") " + """
+            from Image i
+            order by i.uploadedAt desc, i.id desc
+            """)
+    Slice<ImageRevision> findFeedRevisions(Pageable pageable);
+
+    @Modifying
+    @Query(value = """
+            UPDATE gallery.images
+            SET comments_count = comments_count + :delta,
+                revision = revision + 1
+            WHERE id = :imageId
+            """, nativeQuery = true)
+    int addToCommentsCount(Long imageId, long delta);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE gallery.images
+            SET small_url = :smallUrl, medium_url = :mediumUrl, large_url = :largeUrl,
+                revision = revision + 1
+            WHERE id = :imageId
+            """, nativeQuery = true)
+    int updateRenditions(Long imageId, String smallUrl, String mediumUrl, String largeUrl);
 }
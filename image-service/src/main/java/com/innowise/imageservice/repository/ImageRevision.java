@@ -0,0 +1,4 @@
+package com.innowise.imageservice.repository;
+
+public record ImageRevision(Long id, Long revision) {
+}
@@ -3,11 +3,91 @@ package com.innowise.imageservice.repository;
 import com.innowise.imageservice.model.Like;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface LikeRepository extends JpaRepository<Like, Long> {
 
     @Query("SELECT l FROM Like l WHERE l.userId = :userId AND l.image.id = :imageId")
     Optional<Like> findByUserIdAndImageId(Long userId, Long imageId);
+
+    @Query("SELECT l.image.id FROM Like l WHERE l.userId = :userId")
+    List<Long> findImageIdsByUserId(Long userId);
+
+    /**
+     * Removes the user's like if it exists, otherwise adds one, and moves the image counter by the
+     * number of rows actually changed. Runs as a single statement, so concurrent toggles can
+     * neither lose counter updates nor create a second like for the same user.
+     *
+     * @return empty when the image does not exist
+     */
+    @Transactional
+    @Query(value = """
+            WITH deleted AS (
+                DELETE FROM gallery.likes
+                WHERE user_id = :userId AND image_id = :imageId
+                RETURNING id
+            ),
+            inserted AS (
+                INSERT INTO gallery.likes (created_at, user_id, image_id)
+                SELECT :createdAt, :userId, :imageId
+                WHERE NOT EXISTS (SELECT 1 FROM deleted)
+                  AND EXISTS (SELECT 1 FROM gallery.images WHERE id = :imageId)
+                ON CONFLICT (user_id, image_id) DO NOTHING
+                RETURNING id
+            )
+            UPDATE gallery.images
+            SET likes = likes + (SELECT count(*) FROM inserted) - (SELECT count(*) FROM deleted),
+                revision = revision + (SELECT count(*) FROM inserted) + (SELECT count(*) FROM deleted)
+            WHERE id = :imageId
+            RETURNING NOT EXISTS (SELECT 1 FROM deleted) AS liked,
+                      likes AS likes,
+                      EXISTS (SELECT 1 FROM inserted) OR EXISTS (SELECT 1 FROM deleted) AS changed
+            """, nativeQuery = true)
+    Optional<LikeToggleResult> toggle(Long userId, Long imageId, LocalDateTime createdAt);
+
+    /**
+     * Same as {@link #toggle}, but records the counter change in one of the image's
+     * {@code image_like_shards} rows instead of updating the image row, so likes on a hot image do
+     * not all queue up on one row lock.
+     *
+     * @return empty when the image does not exist
+     */
+    @Transactional
+    @Query(value = """
+            WITH deleted AS (
+                DELETE FROM gallery.likes
+                WHERE user_id = :userId AND image_id = :imageId
+                RETURNING id
+            ),
+            inserted AS (
+                INSERT INTO gallery.likes (created_at, user_id, image_id)
+                SELECT :createdAt, :userId, :imageId
+                WHERE NOT EXISTS (SELECT 1 FROM deleted)
+                  AND EXISTS (SELECT 1 FROM gallery.images WHERE id = :imageId)
+                ON CONFLICT (user_id, image_id) DO NOTHING
+                RETURNING id
+            ),
+            change AS (
+                SELECT (SELECT count(*) FROM inserted) - (SELECT count(*) FROM deleted) AS delta
+            ),
+            sharded AS (
+                INSERT INTO gallery.image_like_shards (image_id, shard, delta, revision)
+                SELECT :imageId, :shard, delta, 1 FROM change WHERE delta <> 0
+                ON CONFLICT (image_id, shard) DO UPDATE
+                SET delta = gallery.image_like_shards.delta + EXCLUDED.delta,
+                    revision = gallery.image_like_shards.revision + 1
+            )
+            SELECT NOT EXISTS (SELECT 1 FROM deleted) AS liked,
+                   CAST(i.likes + c.delta + coalesce((SELECT sum(s.delta)
+                                                      FROM gallery.image_like_shards s
+                                                      WHERE s.image_id = i.id), 0) AS bigint) AS likes,
+                   c.delta <> 0 AS changed
+            FROM gallery.images i, change c
+            WHERE i.id = :imageId
+            """, nativeQuery = true)
+    Optional<LikeToggleResult> toggleSharded(Long userId, Long imageId, int shard, LocalDateTime createdAt);
 }
@@ -0,0 +1,14 @@
+package com.innowise.imageservice.repository;
+
+/**
+ * Outcome of {@link LikeRepository#toggle}: whether the user likes the image afterwards, the new
+ * like counter and whether this call actually inserted or deleted a like.
+ */
+public interface LikeToggleResult {
+
+    boolean getLiked();
+
+    long getLikes();
+
+    boolean getChanged();
+}
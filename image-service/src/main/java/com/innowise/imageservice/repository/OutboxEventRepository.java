@@ -0,0 +1,36 @@
+package com.innowise.imageservice.repository;
+
+import com.innowise.imageservice.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Locks the oldest unsent events. Rows already locked by another relay instance are skipped,
+     * so several pods can drain the outbox in parallel without publishing an event twice.
+     */
+    @Query(value = """
+            SELECT * FROM gallery.outbox_events
+            WHERE sent_at IS NULL
+            ORDER BY id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<OutboxEvent> lockUnsent(int limit);
+
+    @Modifying
+    @Query("update OutboxEvent e set e.sentAt = :sentAt where e.id in :ids")
+    int markSent(Collection<Long> ids, LocalDateTime sentAt);
+
+    @Transactional
+    @Modifying
+    @Query("delete from OutboxEvent e where e.sentAt < :sentBefore")
+    int deleteSentBefore(LocalDateTime sentBefore);
+}
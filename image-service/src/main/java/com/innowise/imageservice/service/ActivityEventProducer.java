@@ -1,19 +1,27 @@
 package com.innowise.imageservice.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.innowise.imageservice.dto.event.CommentEvent;
 import com.innowise.imageservice.dto.event.LikeEvent;
+import com.innowise.imageservice.model.OutboxEvent;
+import com.innowise.imageservice.repository.OutboxEventRepository;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
-import java.util.concurrent.CompletableFuture;
+import java.time.LocalDateTime;
 
+/**
+ * Records activity events in the outbox table as part of the caller's transaction, so an event is
+ * stored if and only if the change it describes is committed. {@link OutboxRelay} publishes them
+ * to Kafka afterwards.
+ */
 @Service
 @RequiredArgsConstructor
-@Slf4j
+@Transactional(propagation = Propagation.MANDATORY)
 public class ActivityEventProducer {
 
     private static final String ADD_LIKE_TOPIC = "add_like";
@@ -21,7 +29,8 @@ public class ActivityEventProducer {
     private static final String CREATE_COMMENT_TOPIC = "create_comment";
     private static final String REMOVE_COMMENT_TOPIC = "remove_comment";
 
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
 
     public void sendAddLikeEvent(Long userId, Long imageId) {
         LikeEvent event = LikeEvent.builder()
@@ -29,7 +38,7 @@ public class ActivityEventProducer {
                 .imageId(imageId)
                 .createdAt(Instant.now())
                 .build();
-        
+
         sendEvent(ADD_LIKE_TOPIC, event, userId, imageId);
     }
 
@@ -39,7 +48,7 @@ public class ActivityEventProducer {
                 .imageId(imageId)
                 .createdAt(Instant.now())
                 .build();
-        
+
         sendEvent(REMOVE_LIKE_TOPIC, event, userId, imageId);
     }
 
@@ -51,7 +60,7 @@ public class ActivityEventProducer {
                 .content(content)
                 .createdAt(Instant.now())
                 .build();
-        
+
         sendEvent(CREATE_COMMENT_TOPIC, event, userId, imageId);
     }
 
@@ -62,22 +71,23 @@ public class ActivityEventProducer {
                 .commentId(commentId)
                 .createdAt(Instant.now())
                 .build();
-        
+
         sendEvent(REMOVE_COMMENT_TOPIC, event, userId, imageId);
     }
 
     private void sendEvent(String topic, Object event, Long userId, Long imageId) {
         String key = "%d_%d".formatted(userId, imageId);
-        
-        CompletableFuture<SendResult<String, Object>> future = kafkaTemplate.send(topic, key, event);
-        
-        future.whenComplete((result, ex) -> {
-            if (ex == null) {
-                log.info("Successfully sent event to topic {}: {}", topic, event);
-            } else {
-                log.error("Failed to send event to topic {}: {}", topic, event, ex);
-            }
-        });
+
+        try {
+            outboxEventRepository.save(OutboxEvent.builder()
+                    .topic(topic)
+                    .messageKey(key)
+                    .payloadType(event.getClass().getSimpleName())
+                    .payload(objectMapper.writeValueAsString(event))
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize event for topic " + topic, e);
+        }
     }
 }
-
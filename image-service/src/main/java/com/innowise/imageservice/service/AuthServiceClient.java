@@ -2,7 +2,9 @@ package com.innowise.imageservice.service;
 
 import com.innowise.imageservice.dto.UserNamesRequestDto;
 import com.innowise.imageservice.dto.UserNamesResponseDto;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
@@ -14,10 +16,11 @@ import org.springframework.web.client.RestTemplate;
 import java.util.List;
 
 @Service
-@RequiredArgsConstructor
 public class AuthServiceClient {
 
     private final RestTemplate restTemplate;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary batchSize;
 
     @Value("${auth.service.url}")
     private String authServiceUrl;
@@ -25,19 +28,37 @@ public class AuthServiceClient {
     @Value("${auth.service.secret}")
     private String serviceSecret;
 
+    public AuthServiceClient(RestTemplate restTemplate, MeterRegistry meterRegistry) {
+        this.restTemplate = restTemplate;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = DistributionSummary.builder("auth.client.batch.size")
+                .description("User ids sent per name lookup request")
+                .register(meterRegistry);
+    }
+
     public UserNamesResponseDto getUserNamesByIds(List<Long> userIds) {
         UserNamesRequestDto requestDto = new UserNamesRequestDto(userIds);
 
         HttpHeaders headers = new HttpHeaders();
         headers.set("X-Service-Secret", serviceSecret);
         HttpEntity<UserNamesRequestDto> requestEntity = new HttpEntity<>(requestDto, headers);
-        ResponseEntity<UserNamesResponseDto> response = restTemplate.exchange(
-                authServiceUrl,
-                HttpMethod.POST,
-                requestEntity,
-                UserNamesResponseDto.class
-        );
-
-        return response.getBody();
+        batchSize.record(userIds.size());
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            ResponseEntity<UserNamesResponseDto> response = restTemplate.exchange(
+                    authServiceUrl,
+                    HttpMethod.POST,
+                    requestEntity,
+                    UserNamesResponseDto.class
+            );
+            outcome = "success";
+            return response.getBody();
+        } finally {
+            sample.stop(Timer.builder("auth.client.requests")
+                    .description("Latency of name lookups against auth-service")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
     }
 }
@@ -0,0 +1,179 @@
+package com.innowise.imageservice.service;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.innowise.imageservice.config.ImageFileCacheProperties;
+import com.innowise.imageservice.exception.ImageNotFoundException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache of S3 objects on local disk, bounded by {@code images.file-cache.max-bytes}.
+ * Concurrent misses for the same key share one S3 download, and a failed download is not cached.
+ * Only keys of stored images are downloaded; other keys are answered as not found and remembered
+ * for {@code not-found-ttl}, so that probing unknown keys costs neither S3 requests nor queries.
+ * <p>
+ * Every download gets a file name of its own, and files of evicted entries are deleted only after
+ * {@code delete-delay}: a response that picked a file up just before its entry was evicted has opened
+ * it by then, and an open file stays readable after it is unlinked.
+ */
+@Service
+@Slf4j
+public class ImageFileCache {
+
+    public static final String CACHE_NAME = "imageFiles";
+
+    private static final String FILE_SUFFIX = ".img";
+    private static final String PARTIAL_FILE_SUFFIX = ".part";
+
+    private final S3Service s3Service;
+    private final ImageObjectService imageObjectService;
+    private final ImageFileCacheProperties properties;
+    private final ExecutorService loadExecutor;
+    private final Executor deleteExecutor;
+    private final AsyncLoadingCache<String, CachedFile> cache;
+    private final Cache<String, Boolean> missingKeys;
+    private final AtomicLong fileSequence = new AtomicLong();
+    private final AtomicLong cachedBytes = new AtomicLong();
+
+    public ImageFileCache(S3Service s3Service,
+                          ImageObjectService imageObjectService,
+                          ImageFileCacheProperties properties,
+                          MeterRegistry meterRegistry,
+                          Environment environment) {
+        if (properties.getDirectory() == null) {
+            throw new IllegalStateException("images.file-cache.directory must be set");
+        }
+        this.s3Service = s3Service;
+        this.imageObjectService = imageObjectService;
+        this.properties = properties;
+        prepareDirectory(properties.getDirectory());
+        this.loadExecutor = Threading.VIRTUAL.isActive(environment)
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("image-file-load-", 0).factory())
+                : Executors.newFixedThreadPool(properties.getLoadThreads(),
+                        Thread.ofPlatform().name("image-file-load-", 0).daemon().factory());
+        this.deleteExecutor = CompletableFuture.delayedExecutor(properties.getDeleteDelay().toMillis(),
+                TimeUnit.MILLISECONDS, loadExecutor);
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxBytes())
+                .weigher((String key, CachedFile file) -> (int) Math.min(Integer.MAX_VALUE, file.size()))
+                .removalListener((String key, CachedFile file, RemovalCause cause) -> {
+                    if (file != null) {
+                        cachedBytes.addAndGet(-file.size());
+                        deleteExecutor.execute(() -> deleteQuietly(file.path()));
+                    }
+                })
+                .executor(loadExecutor)
+                .recordStats()
+                .buildAsync(this::load);
+        this.missingKeys = Caffeine.newBuilder()
+                .maximumSize(properties.getNotFoundMaxKeys())
+                .expireAfterWrite(properties.getNotFoundTtl())
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        Gauge.builder("image.file.cache.size", cachedBytes, AtomicLong::get)
+                .description("Bytes of image files held in the local disk cache")
+                .baseUnit(BaseUnits.BYTES)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached copy of the object, downloading it first when it is not cached yet.
+     */
+    public CachedFile get(String key) {
+        if (missingKeys.getIfPresent(key) != null) {
+            throw new ImageNotFoundException(S3Service.FILE_NOT_FOUND_EXCEPTION_MESSAGE);
+        }
+        CompletableFuture<CachedFile> file = cache.get(key);
+        try {
+            return file.join();
+        } catch (CompletionException e) {
+            // Caffeine drops failed loads asynchronously; drop it now so the next caller retries at once
+            cache.asMap().remove(key, file);
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loadExecutor.shutdown();
+    }
+
+    private CachedFile load(String key) throws IOException {
+        if (!imageObjectService.isStored(key)) {
+            missingKeys.put(key, Boolean.TRUE);
+            throw new ImageNotFoundException(S3Service.FILE_NOT_FOUND_EXCEPTION_MESSAGE);
+        }
+        String fileName = HexFormat.of().formatHex(ImageObjectService.newDigest()
+                .digest(key.getBytes(StandardCharsets.UTF_8))) + "-" + fileSequence.incrementAndGet();
+        Path partialFile = properties.getDirectory().resolve(fileName + PARTIAL_FILE_SUFFIX);
+        Path file = properties.getDirectory().resolve(fileName + FILE_SUFFIX);
+        try {
+            GetObjectResponse object = s3Service.downloadFile(key, partialFile);
+            Files.move(partialFile, file, StandardCopyOption.ATOMIC_MOVE);
+            long size = Files.size(file);
+            cachedBytes.addAndGet(size);
+            return new CachedFile(file, size, object.contentType(), object.eTag(), object.lastModified());
+        } finally {
+            Files.deleteIfExists(partialFile);
+        }
+    }
+
+    /**
+     * Entries are held in memory only, so files left behind by a previous run are orphans.
+     */
+    private static void prepareDirectory(Path directory) {
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(directory,
+                    "*{" + FILE_SUFFIX + "," + PARTIAL_FILE_SUFFIX + "}")) {
+                for (Path leftover : leftovers) {
+                    Files.deleteIfExists(leftover);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to prepare image file cache directory " + directory, e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete evicted image file {}", file, e);
+        }
+    }
+
+    public record CachedFile(Path path, long size, String contentType, String eTag, Instant lastModified) {
+    }
+}
@@ -0,0 +1,119 @@
+package com.innowise.imageservice.service;
+
+import com.innowise.imageservice.exception.ImageFileOperationException;
+import com.innowise.imageservice.repository.ImageObjectRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reference-counted index of stored image objects keyed by the SHA-256 of their content, so that
+ * identical uploads share one S3 object. Every {@code Image} row that points at an object holds
+ * one reference; the object is deleted from S3 when the last reference is released.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ImageObjectService {
+
+    public static final String CONTENT_HASH_ALGORITHM = "SHA-256";
+    public static final String CONTENT_HASH_EXCEPTION_MESSAGE = "Failed to compute image content hash: ";
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final Pattern RENDITION_KEY = Pattern.compile("renditions/\\d+/(.+)\\.[^./]+");
+    private static final Pattern LIKE_SPECIAL_CHARACTERS = Pattern.compile("[\\\\%_]");
+
+    private final ImageObjectRepository imageObjectRepository;
+    private final S3Service s3Service;
+
+    public String contentHash(MultipartFile file) {
+        try (InputStream inputStream = file.getInputStream()) {
+            MessageDigest digest = newDigest();
+            byte[] buffer = new byte[READ_BUFFER_SIZE];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException e) {
+            throw new ImageFileOperationException(CONTENT_HASH_EXCEPTION_MESSAGE + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Takes a reference on an already stored object with the given content hash.
+     *
+     * @return the key of the shared object, or empty when nothing with this content is stored yet
+     */
+    public Optional<String> acquireExisting(String contentHash) {
+        return imageObjectRepository.acquireExisting(contentHash);
+    }
+
+    /**
+     * Tells whether the key is one the file endpoint may serve: the object of a stored image or one
+     * of its renditions. Objects of presigned uploads that were never confirmed are not stored images.
+     */
+    public boolean isStored(String objectKey) {
+        String originalKey = objectKey;
+        String patternSuffix = "";
+        Matcher rendition = RENDITION_KEY.matcher(objectKey);
+        if (rendition.matches()) {
+            // Renditions keep the key of their original minus its extension
+            originalKey = rendition.group(1);
+            patternSuffix = ".%";
+        }
+        String legacyUrl = s3Service.generateBucketUrl(originalKey);
+        return imageObjectRepository.existsStoredObject(originalKey, escapeLike(originalKey) + patternSuffix,
+                legacyUrl, escapeLike(legacyUrl) + patternSuffix);
+    }
+
+    private static String escapeLike(String value) {
+        return LIKE_SPECIAL_CHARACTERS.matcher(value).replaceAll("\\\\$0");
+    }
+
+    /**
+     * Registers a freshly uploaded object and takes a reference on it. When a concurrent upload of
+     * the same content registered first, that object wins and the just uploaded copy is deleted.
+     *
+     * @return the key of the object the new image has to point at
+     */
+    public String register(String contentHash, String objectKey) {
+        String storedKey = imageObjectRepository.register(contentHash, objectKey, LocalDateTime.now());
+        if (!storedKey.equals(objectKey)) {
+            log.info("Duplicate content {} already stored as {}", contentHash, storedKey);
+            deleteQuietly(objectKey);
+        }
+        return storedKey;
+    }
+
+    public void release(String contentHash) {
+        imageObjectRepository.release(contentHash).ifPresent(this::deleteQuietly);
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(CONTENT_HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(CONTENT_HASH_ALGORITHM + " is not available", e);
+        }
+    }
+
+    private void deleteQuietly(String objectKey) {
+        try {
+            s3Service.deleteFile(objectKey);
+        } catch (RuntimeException e) {
+            log.error("Failed to delete unreferenced object {}", objectKey, e);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.innowise.imageservice.service;
+
+import com.innowise.imageservice.config.RenditionProperties;
+import com.innowise.imageservice.repository.ImageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+@Slf4j
+public class ImageRenditionService {
+
+    public static final String RENDITION_KEY_FORMAT = "renditions/%d/%s.%s";
+
+    private final S3Service s3Service;
+    private final ImageRepository imageRepository;
+    private final RenditionProperties properties;
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService retryScheduler;
+    private final AtomicInteger pendingRetries = new AtomicInteger();
+    private final Counter completedRenditions;
+    private final Counter failedRenditions;
+
+    public ImageRenditionService(S3Service s3Service,
+                                 ImageRepository imageRepository,
+                                 RenditionProperties properties,
+                                 MeterRegistry meterRegistry) {
+        this.s3Service = s3Service;
+        this.imageRepository = imageRepository;
+        this.properties = properties;
+        this.workers = new ThreadPoolExecutor(properties.getWorkers(), properties.getWorkers(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                Thread.ofPlatform().name("image-rendition-", 0).daemon().factory());
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("image-rendition-retry").daemon().factory());
+
+        Gauge.builder("images.renditions.backlog", this, ImageRenditionService::getBacklog)
+                .description("Renditions queued, running or waiting for a retry")
+                .register(meterRegistry);
+        this.completedRenditions = Counter.builder("images.renditions.completed").register(meterRegistry);
+        this.failedRenditions = Counter.builder("images.renditions.failed").register(meterRegistry);
+    }
+
+    public void submit(Long imageId, String filename) {
+        if (properties.isEnabled()) {
+            submit(new RenditionTask(imageId, filename, 1));
+        }
+    }
+
+    public int getBacklog() {
+        return workers.getQueue().size() + workers.getActiveCount() + pendingRetries.get();
+    }
+
+    private void submit(RenditionTask task) {
+        try {
+            workers.execute(() -> process(task));
+        } catch (RejectedExecutionException e) {
+            // A full queue counts as a failed attempt, otherwise sustained overload would postpone tasks forever
+            retryOrGiveUp(task, "rendition queue is full", null);
+        }
+    }
+
+    private void process(RenditionTask task) {
+        try {
+            BufferedImage original = decode(task.filename());
+            if (original == null) {
+                log.info("Skipping renditions for image {}: format is not supported by ImageIO", task.imageId());
+                return;
+            }
+
+            String format = original.getColorModel().hasAlpha() ? "png" : "jpg";
+            String baseName = stripExtension(task.filename());
+
+            BufferedImage large = resize(original, properties.getLargeSize());
+            BufferedImage medium = resize(large, properties.getMediumSize());
+            BufferedImage small = resize(medium, properties.getSmallSize());
+
+            String largeUrl = store(large, properties.getLargeSize(), baseName, format);
+            String mediumUrl = medium == large
+                    ? largeUrl
+                    : store(medium, properties.getMediumSize(), baseName, format);
+            String smallUrl = small == medium
+                    ? mediumUrl
+                    : store(small, properties.getSmallSize(), baseName, format);
+
+            imageRepository.updateRenditions(task.imageId(), smallUrl, mediumUrl, largeUrl);
+            completedRenditions.increment();
+            log.info("Renditions stored for image {}", task.imageId());
+        } catch (Exception e) {
+            retryOrGiveUp(task, e.getMessage(), e);
+        }
+    }
+
+    private void retryOrGiveUp(RenditionTask task, String reason, Exception cause) {
+        if (task.attempt() < properties.getMaxAttempts()) {
+            log.warn("Rendition attempt {} failed for image {}: {}", task.attempt(), task.imageId(), reason);
+            scheduleRetry(task.nextAttempt());
+        } else {
+            failedRenditions.increment();
+            log.error("Giving up on renditions for image {}: {}", task.imageId(), reason, cause);
+        }
+    }
+
+    private void scheduleRetry(RenditionTask task) {
+        if (pendingRetries.incrementAndGet() > properties.getMaxPendingRetries()) {
+            pendingRetries.decrementAndGet();
+            failedRenditions.increment();
+            log.error("Too many rendition retries pending, dropping image {}", task.imageId());
+            return;
+        }
+        try {
+            retryScheduler.schedule(() -> {
+                pendingRetries.decrementAndGet();
+                submit(task);
+            }, properties.getRetryDelay().toMillis() * task.attempt(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            pendingRetries.decrementAndGet();
+            log.warn("Rendition retry dropped for image {} during shutdown", task.imageId());
+        }
+    }
+
+    private BufferedImage decode(String filename) throws IOException {
+        try (InputStream content = s3Service.openFile(filename);
+             ImageInputStream imageInput = ImageIO.createImageInputStream(content)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageInput);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInput, true, true);
+                int longestEdge = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int subsampling = Math.max(1, longestEdge / properties.getLargeSize());
+
+                ImageReadParam readParam = reader.getDefaultReadParam();
+                readParam.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, readParam);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage resize(BufferedImage source, int maxEdge) {
+        int longestEdge = Math.max(source.getWidth(), source.getHeight());
+        if (longestEdge <= maxEdge) {
+            return source;
+        }
+        double scale = (double) maxEdge / longestEdge;
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        int type = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage target = new BufferedImage(width, height, type);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private String store(BufferedImage image, int size, String baseName, String format) throws IOException {
+        BufferedImage encodable = image;
+        if ("jpg".equals(format) && image.getType() != BufferedImage.TYPE_INT_RGB) {
+            encodable = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = encodable.createGraphics();
+            try {
+                graphics.drawImage(image, 0, 0, null);
+            } finally {
+                graphics.dispose();
+            }
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        if (!ImageIO.write(encodable, format, output)) {
+            throw new IOException("No ImageIO writer for " + format);
+        }
+        String contentType = "png".equals(format) ? "image/png" : "image/jpeg";
+        return s3Service.uploadBytes(output.toByteArray(),
+                RENDITION_KEY_FORMAT.formatted(size, baseName, format), contentType);
+    }
+
+    private String stripExtension(String filename) {
+        int extensionIndex = filename.lastIndexOf('.');
+        return extensionIndex > filename.lastIndexOf('/') ? filename.substring(0, extensionIndex) : filename;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retryScheduler.shutdownNow();
+        workers.shutdown();
+    }
+
+    private record RenditionTask(Long imageId, String filename, int attempt) {
+
+        RenditionTask nextAttempt() {
+            return new RenditionTask(imageId, filename, attempt + 1);
+        }
+    }
+}
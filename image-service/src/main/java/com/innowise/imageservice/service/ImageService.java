@@ -3,23 +3,56 @@ package com.innowise.imageservice.service;
 import com.innowise.imageservice.dto.CommentRequestDto;
 import com.innowise.imageservice.dto.CommentResponseDto;
 import com.innowise.imageservice.dto.CommentWithOwnersResponseDto;
+import com.innowise.imageservice.dto.ImageImportItemDto;
 import com.innowise.imageservice.dto.ImageRequestDto;
 import com.innowise.imageservice.dto.ImageResponseDto;
 import com.innowise.imageservice.dto.ImageWithLikeByCurrentUserResponseDto;
+import com.innowise.imageservice.dto.LikeStateResponseDto;
+import com.innowise.imageservice.dto.LikeStatusResponseDto;
 import com.innowise.imageservice.dto.PaginatedSliceResponseDto;
+import com.innowise.imageservice.dto.PresignedUploadRequestDto;
+import com.innowise.imageservice.dto.PresignedUploadResponseDto;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.util.List;
+import java.util.function.Consumer;
+
 public interface ImageService {
 
     ImageResponseDto upload(String userId, ImageRequestDto imageRequestDto, MultipartFile imageFile);
 
+    ImageResponseDto uploadStream(String userId, String description, String contentType,
+                                  long contentLength, InputStream imageStream);
+
+    /**
+     * Imports every image of a ZIP, TAR or gzipped TAR stream, reporting each entry to
+     * {@code progress} as soon as its outcome is known.
+     */
+    void importArchive(String userId, String contentType, InputStream archive,
+                       Consumer<ImageImportItemDto> progress);
+
+    PresignedUploadResponseDto createUpload(String userId, PresignedUploadRequestDto request);
+
+    ImageResponseDto confirmUpload(String userId, String uploadToken);
+
     ImageWithLikeByCurrentUserResponseDto getById(String currentUserId, Long imageId);
 
-    PaginatedSliceResponseDto<ImageWithLikeByCurrentUserResponseDto> getAllByUserId(String userId, int page, int size);
+    String getImageETag(String currentUserId, Long imageId);
+
+    String getFeedETag(String currentUserId, int page, int size);
+
+    List<ImageWithLikeByCurrentUserResponseDto> getByIds(String currentUserId, List<Long> imageIds);
+
+    List<LikeStatusResponseDto> getLikeStatuses(String currentUserId, List<Long> imageIds);
+
+    PaginatedSliceResponseDto<ImageWithLikeByCurrentUserResponseDto> getAllByUserId(
+            String userId, int page, int size, String cursor);
 
-    PaginatedSliceResponseDto<ImageWithLikeByCurrentUserResponseDto> getAll(String currentUserId, int page, int size);
+    PaginatedSliceResponseDto<ImageWithLikeByCurrentUserResponseDto> getAll(
+            String currentUserId, int page, int size, String cursor);
 
-    String setOrRemoveLike(String userId, Long imageId);
+    LikeStateResponseDto setOrRemoveLike(String userId, Long imageId);
 
     CommentResponseDto addComment(String userId, Long imageId, CommentRequestDto commentRequestDto);
 
@@ -28,5 +61,5 @@ public interface ImageService {
     CommentResponseDto updateComment(String userId, Long imageId, Long commentId, CommentRequestDto commentRequestDto);
 
     PaginatedSliceResponseDto<CommentWithOwnersResponseDto> getAllCommentsByImageId(
-            Long imageId, String currentUserId, int page, int size);
+            Long imageId, String currentUserId, int page, int size, String cursor);
 }
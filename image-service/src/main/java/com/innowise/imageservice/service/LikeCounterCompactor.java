@@ -0,0 +1,31 @@
+package com.innowise.imageservice.service;
+
+import com.innowise.imageservice.repository.ImageLikeShardRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically folds sharded like deltas into {@code images.likes}. Runs regardless of
+ * {@code images.likes.sharded}, so shards left over after switching sharding off are drained too.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class LikeCounterCompactor {
+
+    private final ImageLikeShardRepository imageLikeShardRepository;
+
+    @Scheduled(fixedDelayString = "${images.likes.compaction-interval:10s}")
+    public void compact() {
+        try {
+            int compacted = imageLikeShardRepository.compact();
+            if (compacted > 0) {
+                log.debug("Compacted like shards of {} images", compacted);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to compact like shards", e);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.innowise.imageservice.service;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.innowise.imageservice.config.LikedImagesCacheProperties;
+import com.innowise.imageservice.repository.LikeRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Per-user compressed bitmap of liked image ids, used to compute {@code likedByCurrentUser} without
+ * joining {@code likes} into every feed query. Bitmaps are loaded lazily, weighed by their size in
+ * bytes against {@code images.liked-cache.max-bytes} and evicted when a user has been idle for
+ * {@code idle-ttl}. Cached bitmaps are never mutated: a like toggle replaces the bitmap with an
+ * updated copy once its transaction commits. Toggles handled by other instances arrive as
+ * {@code add_like}/{@code remove_like} events and drop the bitmap of the user, see
+ * {@link LikedImagesInvalidationListener}; {@code ttl} only bounds staleness when events are lost.
+ * <p>
+ * The cache is asynchronous so that the database load runs outside Caffeine's map lock: a synchronous
+ * loader would run inside {@code ConcurrentHashMap.compute}, which pins a virtual thread to its
+ * carrier for the whole query. Loads run on a bounded executor so that feed reads can start the
+ * bitmap load and the page query at the same time. Reads wait at most {@code await-timeout} for a
+ * load; callers then answer from the database and the load still completes into the cache.
+ */
+@Service
+@Slf4j
+public class LikedImagesCache {
+
+    public static final String CACHE_NAME = "likedImages";
+
+    private static final int ENTRY_OVERHEAD_BYTES = 64;
+
+    private final LikeRepository likeRepository;
+    private final LikedImagesCacheProperties properties;
+    private final ExecutorService loadExecutor;
+    private final AsyncLoadingCache<Long, Roaring64Bitmap> cache;
+    private final Counter timedOutAwaits;
+
+    public LikedImagesCache(LikeRepository likeRepository,
+                            LikedImagesCacheProperties properties,
+                            MeterRegistry meterRegistry,
+                            Environment environment) {
+        this.likeRepository = likeRepository;
+        this.properties = properties;
+        this.loadExecutor = Threading.VIRTUAL.isActive(environment)
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("liked-images-load-", 0).factory())
+                : Executors.newFixedThreadPool(properties.getLoadThreads(),
+                        Thread.ofPlatform().name("liked-images-load-", 0).daemon().factory());
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxBytes())
+                .weigher((Long userId, Roaring64Bitmap likedImageIds) -> (int) Math.min(Integer.MAX_VALUE,
+                        likedImageIds.getLongSizeInBytes() + ENTRY_OVERHEAD_BYTES))
+                .expireAfterAccess(properties.getIdleTtl())
+                .expireAfterWrite(properties.getTtl())
+                .executor(loadExecutor)
+                .recordStats()
+                .buildAsync(this::load);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        this.timedOutAwaits = Counter.builder("images.liked-cache.await.timeouts")
+                .description("Reads that stopped waiting for a liked-images bitmap load")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Returns the ids of the images the user likes. The bitmap must not be modified.
+     */
+    public Roaring64Bitmap getLikedImageIds(Long userId) {
+        try {
+            return getLikedImageIdsAsync(userId).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Starts loading the bitmap of the user, or returns it right away when it is cached.
+     */
+    public CompletableFuture<Roaring64Bitmap> getLikedImageIdsAsync(Long userId) {
+        return cache.get(userId);
+    }
+
+    /**
+     * Waits up to {@code await-timeout} for a bitmap started with {@link #getLikedImageIdsAsync}.
+     * Returns an empty result when the load takes longer, the caller is expected to query the flags
+     * it needs instead.
+     */
+    public Optional<Roaring64Bitmap> await(CompletableFuture<Roaring64Bitmap> likedImageIds) {
+        try {
+            return Optional.of(likedImageIds.get(properties.getAwaitTimeout().toNanos(), TimeUnit.NANOSECONDS));
+        } catch (TimeoutException e) {
+            timedOutAwaits.increment();
+            log.warn("Liked images bitmap not loaded within {}", properties.getAwaitTimeout());
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    /**
+     * Applies a like toggle to the cached bitmap of the user after the surrounding transaction
+     * commits, or right away when there is none. Users without a cached bitmap are left alone,
+     * they are loaded from the database on their next feed request.
+     */
+    public void onLikeToggled(Long userId, Long imageId, boolean liked) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(userId, imageId, liked);
+                }
+            });
+        } else {
+            apply(userId, imageId, liked);
+        }
+    }
+
+    private void apply(Long userId, Long imageId, boolean liked) {
+        cache.asMap().computeIfPresent(userId, (id, pending) -> {
+            // A bitmap still being loaded may predate this toggle, drop it so the next read reloads
+            if (!pending.isDone() || pending.isCompletedExceptionally()) {
+                return null;
+            }
+            Roaring64Bitmap updated = pending.join().clone();
+            if (liked) {
+                updated.addLong(imageId);
+            } else {
+                updated.removeLong(imageId);
+            }
+            return CompletableFuture.completedFuture(updated);
+        });
+    }
+
+    /**
+     * Drops the cached bitmap of the user, the next read loads it from the database.
+     */
+    public void invalidate(Long userId) {
+        cache.synchronous().invalidate(userId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loadExecutor.shutdown();
+    }
+
+    private Roaring64Bitmap load(Long userId) {
+        Roaring64Bitmap likedImageIds = new Roaring64Bitmap();
+        likeRepository.findImageIdsByUserId(userId).forEach(likedImageIds::addLong);
+        likedImageIds.runOptimize();
+        return likedImageIds;
+    }
+}
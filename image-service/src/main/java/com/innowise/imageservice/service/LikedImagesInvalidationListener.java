@@ -0,0 +1,29 @@
+package com.innowise.imageservice.service;
+
+import com.innowise.imageservice.config.KafkaConfig;
+import com.innowise.imageservice.dto.event.LikeEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps {@link LikedImagesCache} consistent across instances. Every instance reads the like events
+ * in a consumer group of its own, so each one sees every toggle, and drops the bitmap of the user.
+ * Events for toggles this instance handled itself cost one extra bitmap load, which is cheaper
+ * than telling them apart and keeps the reload authoritative.
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "images.liked-cache", name = "remote-invalidation", havingValue = "true",
+        matchIfMissing = true)
+public class LikedImagesInvalidationListener {
+
+    private final LikedImagesCache likedImagesCache;
+
+    @KafkaListener(topics = {"add_like", "remove_like"},
+            containerFactory = KafkaConfig.LIKE_INVALIDATION_CONTAINER_FACTORY)
+    public void onLikeEvent(LikeEvent event) {
+        likedImagesCache.invalidate(event.getUserId());
+    }
+}
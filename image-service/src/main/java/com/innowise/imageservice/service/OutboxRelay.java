@@ -0,0 +1,150 @@
+package com.innowise.imageservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.innowise.imageservice.config.OutboxProperties;
+import com.innowise.imageservice.dto.event.CommentEvent;
+import com.innowise.imageservice.dto.event.LikeEvent;
+import com.innowise.imageservice.model.OutboxEvent;
+import com.innowise.imageservice.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publishes outbox events to Kafka. Each poll locks a batch of unsent rows with
+ * {@code FOR UPDATE SKIP LOCKED}, sends the whole batch without waiting per record, waits for the
+ * acknowledgements and marks the acknowledged rows as sent in the same transaction. Rows whose send
+ * failed stay unsent and are retried on the next poll, so delivery is at least once.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private static final Map<String, Class<?>> PAYLOAD_TYPES = Map.of(
+            LikeEvent.class.getSimpleName(), LikeEvent.class,
+            CommentEvent.class.getSimpleName(), CommentEvent.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final OutboxProperties outboxProperties;
+    private final MeterRegistry meterRegistry;
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       KafkaTemplate<String, Object> kafkaTemplate,
+                       TransactionTemplate transactionTemplate,
+                       ObjectMapper objectMapper,
+                       OutboxProperties outboxProperties,
+                       MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.outboxProperties = outboxProperties;
+        this.meterRegistry = meterRegistry;
+        this.sentCounter = meterRegistry.counter("outbox.events.sent");
+        this.failedCounter = meterRegistry.counter("outbox.events.failed");
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval:200ms}")
+    public void relay() {
+        if (!outboxProperties.isEnabled()) {
+            return;
+        }
+        try {
+            int relayed;
+            do {
+                relayed = transactionTemplate.execute(status -> relayBatch());
+            } while (relayed == outboxProperties.getBatchSize());
+        } catch (RuntimeException e) {
+            log.error("Outbox relay failed", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.cleanup-interval:1h}")
+    public void deleteSentEvents() {
+        try {
+            int deleted = outboxEventRepository.deleteSentBefore(
+                    LocalDateTime.now().minus(outboxProperties.getRetention()));
+            if (deleted > 0) {
+                log.info("Deleted {} sent outbox events", deleted);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to delete sent outbox events", e);
+        }
+    }
+
+    /**
+     * @return the number of locked rows, so the caller keeps polling while the outbox is backed up
+     */
+    int relayBatch() {
+        List<OutboxEvent> events = outboxEventRepository.lockUnsent(outboxProperties.getBatchSize());
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        List<CompletableFuture<SendResult<String, Object>>> sends = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            sends.add(send(event));
+        }
+
+        long deadline = System.nanoTime() + outboxProperties.getSendTimeout().toNanos();
+        List<Long> sentIds = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            OutboxEvent event = events.get(i);
+            try {
+                sends.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                sentIds.add(event.getId());
+            } catch (ExecutionException | TimeoutException e) {
+                log.warn("Failed to publish outbox event {} to topic {}", event.getId(), event.getTopic(), e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        if (!sentIds.isEmpty()) {
+            outboxEventRepository.markSent(sentIds, LocalDateTime.now());
+        }
+        sentCounter.increment(sentIds.size());
+        failedCounter.increment(events.size() - sentIds.size());
+        return sentIds.size() == events.size() ? events.size() : 0;
+    }
+
+    private CompletableFuture<SendResult<String, Object>> send(OutboxEvent event) {
+        try {
+            Class<?> payloadType = PAYLOAD_TYPES.get(event.getPayloadType());
+            if (payloadType == null) {
+                throw new IllegalStateException("Unknown outbox payload type: " + event.getPayloadType());
+            }
+            Object payload = objectMapper.readValue(event.getPayload(), payloadType);
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return kafkaTemplate.send(event.getTopic(), event.getMessageKey(), payload)
+                    .whenComplete((result, e) -> sample.stop(Timer.builder("outbox.events.publish")
+                            .description("Time until Kafka acknowledged an outbox event")
+                            .tags("topic", event.getTopic(), "outcome", e == null ? "success" : "error")
+                            .register(meterRegistry)));
+        } catch (JsonProcessingException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.innowise.imageservice.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * Runs repository reads in a read-only transaction that ends before the caller moves on, so reads
+ * that enrich their results from other services hold a pooled connection only while they query.
+ * A read-only transaction is also what sends the queries to a replica when replicas are configured.
+ */
+@Component
+public class ReadOnlyQueries {
+
+    private final TransactionTemplate transactionTemplate;
+
+    public ReadOnlyQueries(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    public <T> T run(Supplier<T> queries) {
+        return transactionTemplate.execute(status -> queries.get());
+    }
+}
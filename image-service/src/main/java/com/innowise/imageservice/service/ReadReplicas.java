@@ -0,0 +1,106 @@
+package com.innowise.imageservice.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Owns the replica pools and polls their replication lag. A replica serves reads only while its
+ * last measured lag is within {@code datasource.replicas.max-lag}; replicas that lag further or
+ * cannot be reached are skipped until they catch up, so reads fall back to the primary rather than
+ * returning data that is minutes old. Lag is reported in the {@code db.replica.lag} gauge.
+ */
+@Slf4j
+public class ReadReplicas implements AutoCloseable {
+
+    // Zero once everything received has been replayed, so an idle primary does not look like lag
+    public static final String LAG_QUERY = """
+            SELECT CASE
+                       WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                       ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+                   END""";
+
+    private final Map<String, DataSource> dataSources;
+    private final double maxLagSeconds;
+    private final Map<String, Double> lagSeconds = new ConcurrentHashMap<>();
+    private final Set<String> lagging = ConcurrentHashMap.newKeySet();
+    private volatile List<String> healthy = List.of();
+
+    public ReadReplicas(Map<String, DataSource> dataSources, Duration maxLag, MeterRegistry meterRegistry) {
+        this.dataSources = Collections.unmodifiableMap(new LinkedHashMap<>(dataSources));
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        dataSources.keySet().forEach(name -> {
+            lagSeconds.put(name, Double.NaN);
+            Gauge.builder("db.replica.lag", lagSeconds, lags -> lags.get(name))
+                    .description("Replication lag of the read replica, NaN while it cannot be reached")
+                    .baseUnit("seconds")
+                    .tag("replica", name)
+                    .register(meterRegistry);
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replicas.lag-check-interval:2s}")
+    public void checkLag() {
+        List<String> caughtUp = new ArrayList<>();
+        dataSources.forEach((name, dataSource) -> {
+            double lag = measureLag(name, dataSource);
+            lagSeconds.put(name, lag);
+            if (lag <= maxLagSeconds) {
+                caughtUp.add(name);
+                if (lagging.remove(name)) {
+                    log.info("Read replica {} caught up, lag {}s", name, lag);
+                }
+            } else if (lagging.add(name)) {
+                log.warn("Read replica {} is {}, its reads go to the primary", name,
+                        Double.isNaN(lag) ? "unreachable" : "lagging " + lag + "s behind");
+            }
+        });
+        healthy = List.copyOf(caughtUp);
+    }
+
+    private double measureLag(String name, DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(LAG_QUERY)) {
+            return resultSet.next() ? resultSet.getDouble(1) : Double.NaN;
+        } catch (SQLException e) {
+            log.debug("Failed to measure lag of read replica {}", name, e);
+            return Double.NaN;
+        }
+    }
+
+    public Map<String, DataSource> getDataSources() {
+        return dataSources;
+    }
+
+    /**
+     * Replicas within the lag limit at the last check; empty until the first check has run.
+     */
+    public List<String> getHealthy() {
+        return healthy;
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource dataSource : dataSources.values()) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
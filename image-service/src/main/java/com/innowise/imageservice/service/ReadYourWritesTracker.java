@@ -0,0 +1,44 @@
+package com.innowise.imageservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+
+/**
+ * Remembers which users wrote within the last {@code datasource.replicas.sticky-window} and whether
+ * the current request must read from the primary. A replica may not have replayed a user's own
+ * like or comment yet, so their reads stay on the primary until the window has passed.
+ */
+public class ReadYourWritesTracker {
+
+    private final Cache<String, Boolean> recentWriters;
+    private final ThreadLocal<Boolean> primaryRequired = new ThreadLocal<>();
+
+    public ReadYourWritesTracker(Duration stickyWindow, long maxUsers) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(stickyWindow)
+                .maximumSize(maxUsers)
+                .build();
+    }
+
+    public void recordWrite(String userId) {
+        recentWriters.put(userId, Boolean.TRUE);
+    }
+
+    public boolean hasRecentWrite(String userId) {
+        return recentWriters.getIfPresent(userId) != null;
+    }
+
+    public void requirePrimary() {
+        primaryRequired.set(Boolean.TRUE);
+    }
+
+    public void release() {
+        primaryRequired.remove();
+    }
+
+    public boolean isPrimaryRequired() {
+        return primaryRequired.get() != null;
+    }
+}
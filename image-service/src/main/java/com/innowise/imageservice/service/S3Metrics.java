@@ -0,0 +1,54 @@
+package com.innowise.imageservice.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Times S3 requests as {@code s3.requests}, tagged with the S3 operation name and outcome, and
+ * records the payload of writes as {@code s3.request.size}. Histogram buckets come from
+ * {@code management.metrics.distribution}.
+ */
+@Component
+@RequiredArgsConstructor
+public class S3Metrics {
+
+    private final MeterRegistry meterRegistry;
+
+    public <T> T record(String operation, long bytes, Supplier<T> request) {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = request.get();
+            outcome = "success";
+            return result;
+        } finally {
+            Timer.builder("s3.requests")
+                    .description("Latency of S3 requests")
+                    .tags("operation", operation, "outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (bytes > 0) {
+                DistributionSummary.builder("s3.request.size")
+                        .description("Bytes written to S3 per request")
+                        .baseUnit(BaseUnits.BYTES)
+                        .tag("operation", operation)
+                        .register(meterRegistry)
+                        .record(bytes);
+            }
+        }
+    }
+
+    public void record(String operation, Runnable request) {
+        record(operation, 0, () -> {
+            request.run();
+            return null;
+        });
+    }
+}
@@ -2,25 +2,61 @@ package com.innowise.imageservice.service;
 
 import com.innowise.imageservice.config.S3Properties;
 import com.innowise.imageservice.exception.ImageFileOperationException;
-import lombok.RequiredArgsConstructor;
+import com.innowise.imageservice.exception.ImageNotFoundException;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.ChecksumMode;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class S3Service {
 
     public static final String FILE_UPLOAD_EXCEPTION_MESSAGE = "";
     public static final String URL_FORMAT = "%s/%s/%s";
+    public static final String DELIVERY_URL_FORMAT = "%s/%s";
+    public static final String FILE_NOT_FOUND_EXCEPTION_MESSAGE = "Image file not found";
 
     private final S3Client s3Client;
+    private final S3Presigner s3Presigner;
     private final S3Properties s3Properties;
+    private final S3Metrics s3Metrics;
+    private final ExecutorService partUploadExecutor;
+
+    public S3Service(S3Client s3Client, S3Presigner s3Presigner, S3Properties s3Properties, S3Metrics s3Metrics,
+                     Environment environment) {
+        this.s3Client = s3Client;
+        this.s3Presigner = s3Presigner;
+        this.s3Properties = s3Properties;
+        this.s3Metrics = s3Metrics;
+        // Part uploads block on S3 I/O. On virtual threads each part gets its own thread and the
+        // per-upload max-in-flight-parts is the only bound, otherwise a shared pool caps them.
+        this.partUploadExecutor = Threading.VIRTUAL.isActive(environment)
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("s3-part-upload-", 0).factory())
+                : Executors.newFixedThreadPool(s3Properties.getPartUploadThreads(),
+                        Thread.ofPlatform().name("s3-part-upload-", 0).daemon().factory());
+    }
 
     public String uploadImage(MultipartFile file, String filename) {
         try {
@@ -31,8 +67,8 @@ public class S3Service {
                     .contentLength(file.getSize())
                     .build();
 
-            s3Client.putObject(putObjectRequest,
-                    RequestBody.fromInputStream(file.getInputStream(), file.getSize()));
+            RequestBody body = RequestBody.fromInputStream(file.getInputStream(), file.getSize());
+            s3Metrics.record("PutObject", file.getSize(), () -> s3Client.putObject(putObjectRequest, body));
 
             log.info("File uploaded successfully: {}", filename);
             return generateImageUrl(filename);
@@ -41,7 +77,105 @@ public class S3Service {
         }
     }
 
-    private String generateImageUrl(String filename) {
+    public String uploadBytes(byte[] content, String filename, String contentType) {
+        try {
+            s3Metrics.record("PutObject", content.length, () -> s3Client.putObject(PutObjectRequest.builder()
+                            .bucket(s3Properties.getBucketName())
+                            .key(filename)
+                            .contentType(contentType)
+                            .contentLength((long) content.length)
+                            .build(),
+                    RequestBody.fromBytes(content)));
+
+            log.info("File uploaded successfully: {}", filename);
+            return generateImageUrl(filename);
+        } catch (Exception e) {
+            throw new ImageFileOperationException(FILE_UPLOAD_EXCEPTION_MESSAGE + e.getMessage(), e);
+        }
+    }
+
+    public InputStream openFile(String filename) {
+        try {
+            return s3Metrics.record("GetObject", 0, () -> s3Client.getObject(GetObjectRequest.builder()
+                    .bucket(s3Properties.getBucketName())
+                    .key(filename)
+                    .build()));
+        } catch (Exception e) {
+            throw new ImageFileOperationException("Failed to read file from S3: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Presigns a PUT of exactly this object. Content type, length and SHA-256 checksum are part of the
+     * signature, so the client has to send them unchanged and S3 rejects a body that does not match the
+     * checksum.
+     */
+    public PresignedPutObjectRequest presignUpload(String filename, String contentType, long contentLength,
+                                                   String checksumSha256, Duration ttl) {
+        return s3Presigner.presignPutObject(presignRequest -> presignRequest
+                .signatureDuration(ttl)
+                .putObjectRequest(PutObjectRequest.builder()
+                        .bucket(s3Properties.getBucketName())
+                        .key(filename)
+                        .contentType(contentType)
+                        .contentLength(contentLength)
+                        .checksumSHA256(checksumSha256)
+                        .build()));
+    }
+
+    public HeadObjectResponse headFile(String filename) {
+        try {
+            return s3Metrics.record("HeadObject", 0, () -> s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(s3Properties.getBucketName())
+                    .key(filename)
+                    .checksumMode(ChecksumMode.ENABLED)
+                    .build()));
+        } catch (Exception e) {
+            throw new ImageFileOperationException("Failed to read file metadata from S3: " + e.getMessage(), e);
+        }
+    }
+
+    public byte[] readFirstBytes(String filename, int length) {
+        try {
+            return s3Metrics.record("GetObject", 0, () -> s3Client.getObjectAsBytes(GetObjectRequest.builder()
+                    .bucket(s3Properties.getBucketName())
+                    .key(filename)
+                    .range("bytes=0-" + (length - 1))
+                    .build()).asByteArray());
+        } catch (Exception e) {
+            throw new ImageFileOperationException("Failed to read file from S3: " + e.getMessage(), e);
+        }
+    }
+
+    public GetObjectResponse downloadFile(String filename, Path target) {
+        try {
+            return s3Metrics.record("GetObject", 0, () -> s3Client.getObject(GetObjectRequest.builder()
+                    .bucket(s3Properties.getBucketName())
+                    .key(filename)
+                    .build(), ResponseTransformer.toFile(target)));
+        } catch (NoSuchKeyException e) {
+            throw new ImageNotFoundException(FILE_NOT_FOUND_EXCEPTION_MESSAGE);
+        } catch (Exception e) {
+            throw new ImageFileOperationException("Failed to read file from S3: " + e.getMessage(), e);
+        }
+    }
+
+    public S3StreamingUpload startStreamingUpload(String filename, String contentType) {
+        return new S3StreamingUpload(s3Client, s3Metrics, partUploadExecutor, s3Properties.getBucketName(), filename,
+                contentType, s3Properties.getPartSizeBytes(), s3Properties.getMaxInFlightParts());
+    }
+
+    public String generateImageUrl(String filename) {
+        if (s3Properties.getDeliveryUrl() != null) {
+            return String.format(DELIVERY_URL_FORMAT, s3Properties.getDeliveryUrl(), filename);
+        }
+        return generateBucketUrl(filename);
+    }
+
+    /**
+     * URL of the object in the public bucket, the only form image URLs took before the delivery URL.
+     */
+    public String generateBucketUrl(String filename) {
         return String.format(URL_FORMAT,
                 s3Properties.getPublicUrl(),
                 s3Properties.getBucketName(),
@@ -55,11 +189,16 @@ public class S3Service {
                     .key(filename)
                     .build();
 
-            s3Client.deleteObject(deleteObjectRequest);
+            s3Metrics.record("DeleteObject", () -> s3Client.deleteObject(deleteObjectRequest));
             log.info("File deleted successfully: {}", filename);
 
         } catch (Exception e) {
             throw new ImageFileOperationException("Failed to delete file from S3: " + e.getMessage(), e);
         }
     }
+
+    @PreDestroy
+    public void shutdown() {
+        partUploadExecutor.shutdown();
+    }
 }
@@ -0,0 +1,242 @@
+package com.innowise.imageservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Uploads a request body to S3 while it is being read, holding at most {@code maxInFlightParts}
+ * part buffers in memory. A body that fits into one part is written with a single PutObject,
+ * anything larger becomes a multipart upload with parts sent in parallel. The caller decides
+ * whether to {@link #complete()} or {@link #abort()} once the body has been consumed; the SHA-256
+ * of the body is computed on the way and is available from {@link #getContentHash()}. Aborting an
+ * upload that already completed or aborted does nothing, so callers may abort on any failure.
+ */
+@Slf4j
+public class S3StreamingUpload {
+
+    private final S3Client s3Client;
+    private final S3Metrics s3Metrics;
+    private final Executor partExecutor;
+    private final String bucket;
+    private final String key;
+    private final String contentType;
+    private final int partSize;
+    private final Semaphore bufferPermits;
+    private final List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+    private final MessageDigest digest = ImageObjectService.newDigest();
+
+    private String uploadId;
+    private byte[] singlePartBuffer;
+    private int singlePartLength;
+    private State state = State.OPEN;
+    private String contentHash;
+
+    S3StreamingUpload(S3Client s3Client, S3Metrics s3Metrics, Executor partExecutor, String bucket, String key, String contentType,
+                      int partSize, int maxInFlightParts) {
+        this.s3Client = s3Client;
+        this.s3Metrics = s3Metrics;
+        this.partExecutor = partExecutor;
+        this.bucket = bucket;
+        this.key = key;
+        this.contentType = contentType;
+        this.partSize = partSize;
+        this.bufferPermits = new Semaphore(maxInFlightParts);
+    }
+
+    /**
+     * Reads {@code body} until it is exhausted or more than {@code maxBytes} bytes were seen.
+     *
+     * @return the number of bytes read, which is {@code maxBytes + 1} when the body is too large
+     */
+    public long transferFrom(InputStream body, long maxBytes) throws IOException {
+        long total = 0;
+        int partNumber = 1;
+        while (total <= maxBytes) {
+            acquireBuffer();
+            byte[] buffer = new byte[partSize];
+            int length;
+            try {
+                length = readPart(body, buffer, maxBytes + 1 - total);
+            } catch (IOException | RuntimeException e) {
+                bufferPermits.release();
+                throw e;
+            }
+            if (length == 0) {
+                bufferPermits.release();
+                break;
+            }
+            digest.update(buffer, 0, length);
+            total += length;
+
+            if (partNumber == 1 && length < partSize) {
+                singlePartBuffer = buffer;
+                singlePartLength = length;
+                bufferPermits.release();
+                break;
+            }
+            submitPart(partNumber++, buffer, length);
+            if (length < partSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    public void complete() {
+        ensureOpen();
+        state = State.COMPLETING;
+        if (uploadId == null) {
+            byte[] buffer = singlePartBuffer == null ? new byte[0] : singlePartBuffer;
+            s3Metrics.record("PutObject", singlePartLength, () -> s3Client.putObject(PutObjectRequest.builder()
+                            .bucket(bucket)
+                            .key(key)
+                            .contentType(contentType)
+                            .contentLength((long) singlePartLength)
+                            .build(),
+                    RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, singlePartLength),
+                            singlePartLength)));
+            singlePartBuffer = null;
+            state = State.COMPLETED;
+            return;
+        }
+
+        List<CompletedPart> completedParts;
+        try {
+            completedParts = parts.stream()
+                    .map(CompletableFuture::join)
+                    .sorted(Comparator.comparing(CompletedPart::partNumber))
+                    .toList();
+        } catch (CompletionException e) {
+            abort();
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+
+        s3Metrics.record("CompleteMultipartUpload", () -> s3Client.completeMultipartUpload(
+                CompleteMultipartUploadRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+                        .build()));
+        state = State.COMPLETED;
+    }
+
+    public void abort() {
+        if (state == State.COMPLETED || state == State.ABORTED) {
+            return;
+        }
+        state = State.ABORTED;
+        singlePartBuffer = null;
+        if (uploadId == null) {
+            return;
+        }
+        parts.forEach(part -> part.cancel(false));
+        try {
+            s3Metrics.record("AbortMultipartUpload", () -> s3Client.abortMultipartUpload(
+                    AbortMultipartUploadRequest.builder()
+                            .bucket(bucket)
+                            .key(key)
+                            .uploadId(uploadId)
+                            .build()));
+            log.info("Multipart upload aborted: {}", key);
+        } catch (RuntimeException e) {
+            log.error("Failed to abort multipart upload {} for {}", uploadId, key, e);
+        }
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getContentHash() {
+        if (contentHash == null) {
+            contentHash = HexFormat.of().formatHex(digest.digest());
+        }
+        return contentHash;
+    }
+
+    private void submitPart(int partNumber, byte[] buffer, int length) {
+        if (uploadId == null) {
+            uploadId = s3Metrics.record("CreateMultipartUpload", 0, () -> s3Client.createMultipartUpload(
+                    CreateMultipartUploadRequest.builder()
+                            .bucket(bucket)
+                            .key(key)
+                            .contentType(contentType)
+                            .build())).uploadId();
+        }
+        String currentUploadId = uploadId;
+        parts.add(CompletableFuture.supplyAsync(() -> {
+            try {
+                String eTag = s3Metrics.record("UploadPart", length, () -> s3Client.uploadPart(
+                        UploadPartRequest.builder()
+                                .bucket(bucket)
+                                .key(key)
+                                .uploadId(currentUploadId)
+                                .partNumber(partNumber)
+                                .contentLength((long) length)
+                                .build(),
+                        RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, length), length))).eTag();
+                return CompletedPart.builder().partNumber(partNumber).eTag(eTag).build();
+            } finally {
+                bufferPermits.release();
+            }
+        }, partExecutor));
+    }
+
+    private void acquireBuffer() throws IOException {
+        ensureOpen();
+        try {
+            bufferPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a part buffer", e);
+        }
+    }
+
+    private void ensureOpen() {
+        if (state != State.OPEN) {
+            throw new IllegalStateException("Upload already finished: " + key);
+        }
+    }
+
+    private static int readPart(InputStream body, byte[] buffer, long remainingAllowed) throws IOException {
+        int limit = (int) Math.min(buffer.length, remainingAllowed);
+        int length = 0;
+        while (length < limit) {
+            int read = body.read(buffer, length, limit - length);
+            if (read < 0) {
+                break;
+            }
+            length += read;
+        }
+        return length;
+    }
+
+    private enum State {
+        OPEN,
+        COMPLETING,
+        COMPLETED,
+        ABORTED
+    }
+}
@@ -0,0 +1,86 @@
+package com.innowise.imageservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.innowise.imageservice.config.DirectUploadProperties;
+import com.innowise.imageservice.dto.UploadToken;
+import com.innowise.imageservice.exception.InvalidUploadTokenException;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Issues and checks the tokens of the presigned upload flow. A token is the JSON form of an
+ * {@link UploadToken} followed by its HMAC-SHA256, both base64url encoded, so any replica can confirm an
+ * upload without shared state and the client cannot alter what it was allowed to upload.
+ */
+@Service
+public class UploadTokenService {
+
+    public static final String INVALID_UPLOAD_TOKEN_EXCEPTION_MESSAGE = "Invalid upload token";
+    public static final String EXPIRED_UPLOAD_TOKEN_EXCEPTION_MESSAGE = "Upload token has expired";
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final String SEPARATOR = ".";
+
+    private final ObjectMapper objectMapper;
+    private final SecretKeySpec key;
+
+    public UploadTokenService(ObjectMapper objectMapper, DirectUploadProperties properties) {
+        if (properties.getTokenSecret() == null || properties.getTokenSecret().isBlank()) {
+            throw new IllegalStateException("images.direct-upload.token-secret must be set");
+        }
+        this.objectMapper = objectMapper;
+        this.key = new SecretKeySpec(properties.getTokenSecret().getBytes(StandardCharsets.UTF_8), MAC_ALGORITHM);
+    }
+
+    public String issue(UploadToken token) {
+        try {
+            byte[] payload = objectMapper.writeValueAsBytes(token);
+            Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+            return encoder.encodeToString(payload) + SEPARATOR + encoder.encodeToString(sign(payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize upload token", e);
+        }
+    }
+
+    public UploadToken verify(String token) {
+        int separatorIndex = token.indexOf(SEPARATOR);
+        if (separatorIndex < 0) {
+            throw new InvalidUploadTokenException(INVALID_UPLOAD_TOKEN_EXCEPTION_MESSAGE);
+        }
+        UploadToken uploadToken;
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            byte[] payload = decoder.decode(token.substring(0, separatorIndex));
+            byte[] signature = decoder.decode(token.substring(separatorIndex + 1));
+            if (!MessageDigest.isEqual(sign(payload), signature)) {
+                throw new InvalidUploadTokenException(INVALID_UPLOAD_TOKEN_EXCEPTION_MESSAGE);
+            }
+            uploadToken = objectMapper.readValue(payload, UploadToken.class);
+        } catch (IllegalArgumentException | IOException e) {
+            throw new InvalidUploadTokenException(INVALID_UPLOAD_TOKEN_EXCEPTION_MESSAGE);
+        }
+        if (Instant.now().isAfter(uploadToken.expiresAt())) {
+            throw new InvalidUploadTokenException(EXPIRED_UPLOAD_TOKEN_EXCEPTION_MESSAGE);
+        }
+        return uploadToken;
+    }
+
+    private byte[] sign(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(MAC_ALGORITHM + " is not available", e);
+        }
+    }
+}
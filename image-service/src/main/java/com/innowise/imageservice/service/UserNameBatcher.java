@@ -0,0 +1,162 @@
+package com.innowise.imageservice.service;
+
+import com.innowise.imageservice.config.UserNameBatchProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Service
+@Slf4j
+public class UserNameBatcher {
+
+    private final AuthServiceClient authServiceClient;
+    private final UserNameBatchProperties properties;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService requestExecutor;
+    private final DistributionSummary batchSize;
+    private final Timer lookupLatency;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private List<PendingLookup> pendingLookups = new ArrayList<>();
+    private Set<Long> pendingUserIds = new HashSet<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    public UserNameBatcher(AuthServiceClient authServiceClient,
+                           UserNameBatchProperties properties,
+                           MeterRegistry meterRegistry) {
+        this.authServiceClient = authServiceClient;
+        this.properties = properties;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("user-name-batch-timer").daemon().factory());
+        this.requestExecutor = Executors.newFixedThreadPool(properties.getMaxConcurrentRequests(),
+                Thread.ofPlatform().name("user-name-batch-", 0).daemon().factory());
+        this.batchSize = DistributionSummary.builder("auth.names.batch.size")
+                .description("Distinct user ids sent to auth-service per coalesced request")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.lookupLatency = Timer.builder("auth.names.lookup.latency")
+                .description("Time from a lookup being queued until its names are available")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    public CompletableFuture<Map<Long, String>> load(Collection<Long> userIds) {
+        if (!properties.isEnabled()) {
+            // Still off the caller thread, so the cache lookup timeout bounds the call
+            return CompletableFuture.supplyAsync(
+                    () -> authServiceClient.getUserNamesByIds(List.copyOf(userIds)).names(), requestExecutor);
+        }
+
+        PendingLookup lookup = new PendingLookup(Set.copyOf(userIds), new CompletableFuture<>(), System.nanoTime());
+        List<PendingLookup> batch = null;
+        lock.lock();
+        try {
+            pendingLookups.add(lookup);
+            pendingUserIds.addAll(lookup.userIds());
+            if (pendingUserIds.size() >= properties.getMaxSize()) {
+                batch = drain();
+            } else if (scheduledFlush == null) {
+                scheduledFlush = scheduler.schedule(this::flush,
+                        properties.getWindow().toNanos(), TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (batch != null) {
+            dispatch(batch);
+        }
+        return lookup.result();
+    }
+
+    private void flush() {
+        List<PendingLookup> batch;
+        lock.lock();
+        try {
+            batch = drain();
+        } finally {
+            lock.unlock();
+        }
+        dispatch(batch);
+    }
+
+    private List<PendingLookup> drain() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        List<PendingLookup> batch = pendingLookups;
+        pendingLookups = new ArrayList<>();
+        pendingUserIds = new HashSet<>();
+        return batch;
+    }
+
+    private void dispatch(List<PendingLookup> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        requestExecutor.execute(() -> send(batch));
+    }
+
+    private void send(List<PendingLookup> batch) {
+        Set<Long> userIds = new HashSet<>();
+        batch.forEach(lookup -> userIds.addAll(lookup.userIds()));
+        batchSize.record(userIds.size());
+
+        Map<Long, String> names;
+        try {
+            names = authServiceClient.getUserNamesByIds(List.copyOf(userIds)).names();
+        } catch (RuntimeException e) {
+            log.warn("Failed to load user names for {} ids: {}", userIds.size(), e.getMessage());
+            batch.forEach(lookup -> complete(lookup, null, e));
+            return;
+        }
+
+        for (PendingLookup lookup : batch) {
+            Map<Long, String> slice = new HashMap<>();
+            lookup.userIds().forEach(userId -> {
+                String name = names.get(userId);
+                if (name != null) {
+                    slice.put(userId, name);
+                }
+            });
+            complete(lookup, slice, null);
+        }
+    }
+
+    private void complete(PendingLookup lookup, Map<Long, String> names, Throwable failure) {
+        lookupLatency.record(System.nanoTime() - lookup.queuedAtNanos(), TimeUnit.NANOSECONDS);
+        if (failure == null) {
+            lookup.result().complete(names);
+        } else {
+            lookup.result().completeExceptionally(failure);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        requestExecutor.shutdown();
+    }
+
+    private record PendingLookup(Set<Long> userIds, CompletableFuture<Map<Long, String>> result, long queuedAtNanos) {
+    }
+}
@@ -0,0 +1,139 @@
+package com.innowise.imageservice.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.innowise.imageservice.config.UserNameCacheProperties;
+import com.innowise.imageservice.dto.UserNamesResponseDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Caches user names loaded from auth-service. Lookups are bounded by
+ * {@code auth.names.cache.lookup-timeout}: when auth-service is slow or failing the result degrades
+ * to the names already cached, and the remaining users are returned without a name.
+ */
+@Service
+@Slf4j
+public class UserNameCache {
+
+    public static final String CACHE_NAME = "userNames";
+
+    private final UserNameBatcher userNameBatcher;
+    private final UserNameCacheProperties properties;
+    private final AsyncLoadingCache<Long, Optional<String>> cache;
+    private final Counter timedOutLookups;
+    private final Counter failedLookups;
+
+    public UserNameCache(UserNameBatcher userNameBatcher,
+                         UserNameCacheProperties properties,
+                         MeterRegistry meterRegistry) {
+        this.userNameBatcher = userNameBatcher;
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxSize())
+                .expireAfter(new UserNameExpiry(properties))
+                // Loads only hand the ids to the batcher, whose requests run on its own bounded pool
+                .executor(Runnable::run)
+                .recordStats()
+                .buildAsync(new UserNameLoader());
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        this.timedOutLookups = Counter.builder("auth.names.lookup.degraded")
+                .description("Name lookups answered from cached names only because auth-service was slow or failing")
+                .tag("reason", "timeout")
+                .register(meterRegistry);
+        this.failedLookups = Counter.builder("auth.names.lookup.degraded")
+                .description("Name lookups answered from cached names only because auth-service was slow or failing")
+                .tag("reason", "error")
+                .register(meterRegistry);
+    }
+
+    public UserNamesResponseDto getUserNamesByIds(List<Long> userIds) {
+        return getUserNamesByIdsAsync(userIds).join();
+    }
+
+    /**
+     * Starts a lookup so the caller can run other I/O meanwhile. The returned future never completes
+     * exceptionally.
+     */
+    public CompletableFuture<UserNamesResponseDto> getUserNamesByIdsAsync(List<Long> userIds) {
+        return cache.getAll(userIds)
+                .thenApply(UserNameCache::toResponse)
+                .orTimeout(properties.getLookupTimeout().toNanos(), TimeUnit.NANOSECONDS)
+                .exceptionally(failure -> degrade(userIds, failure));
+    }
+
+    private UserNamesResponseDto degrade(List<Long> userIds, Throwable failure) {
+        Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+        if (cause instanceof TimeoutException) {
+            timedOutLookups.increment();
+            log.warn("User name lookup for {} ids timed out after {}", userIds.size(), properties.getLookupTimeout());
+        } else {
+            failedLookups.increment();
+            log.warn("User name lookup for {} ids failed: {}", userIds.size(), cause.getMessage());
+        }
+        return toResponse(cache.synchronous().getAllPresent(userIds));
+    }
+
+    private static UserNamesResponseDto toResponse(Map<Long, Optional<String>> cached) {
+        Map<Long, String> names = new HashMap<>();
+        cached.forEach((userId, userName) -> userName.ifPresent(name -> names.put(userId, name)));
+        return new UserNamesResponseDto(names);
+    }
+
+    private class UserNameLoader implements AsyncCacheLoader<Long, Optional<String>> {
+
+        @Override
+        public CompletableFuture<Optional<String>> asyncLoad(Long userId, Executor executor) {
+            return asyncLoadAll(Set.of(userId), executor)
+                    .thenApply(names -> names.getOrDefault(userId, Optional.empty()));
+        }
+
+        @Override
+        public CompletableFuture<Map<Long, Optional<String>>> asyncLoadAll(Set<? extends Long> userIds,
+                                                                           Executor executor) {
+            return userNameBatcher.load(Set.copyOf(userIds)).thenApply(names -> {
+                Map<Long, Optional<String>> loaded = new HashMap<>();
+                userIds.forEach(userId -> loaded.put(userId, Optional.ofNullable(names.get(userId))));
+                return loaded;
+            });
+        }
+    }
+
+    private record UserNameExpiry(UserNameCacheProperties properties) implements Expiry<Long, Optional<String>> {
+
+        @Override
+        public long expireAfterCreate(Long userId, Optional<String> userName, long currentTime) {
+            return userName.isPresent()
+                    ? properties.getTtl().toNanos()
+                    : properties.getNegativeTtl().toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(Long userId, Optional<String> userName, long currentTime,
+                                      long currentDuration) {
+            return expireAfterCreate(userId, userName, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Long userId, Optional<String> userName, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
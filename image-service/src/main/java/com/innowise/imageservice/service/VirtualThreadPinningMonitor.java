@@ -0,0 +1,85 @@
+package com.innowise.imageservice.service;
+
+import com.innowise.imageservice.config.VirtualThreadPinningProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Service;
+
+import java.util.stream.Collectors;
+
+/**
+ * Streams the JFR {@code jdk.VirtualThreadPinned} event while the service runs on virtual threads.
+ * A virtual thread that blocks inside {@code synchronized} or a native frame keeps its carrier
+ * thread busy, so every pinning longer than {@code virtual-threads.pinning-monitor.threshold} is
+ * recorded in the {@code jvm.threads.virtual.pinned} timer and logged with the top of its stack.
+ */
+@Service
+@Slf4j
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor {
+
+    public static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private final VirtualThreadPinningProperties properties;
+    private final Timer pinnedTimer;
+    private RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(VirtualThreadPinningProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.pinnedTimer = Timer.builder("jvm.threads.virtual.pinned")
+                .description("Time virtual threads spent blocked while pinned to their carrier thread")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT)
+                .withThreshold(properties.getThreshold())
+                .withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+        recordingStream.startAsync();
+        log.info("Monitoring virtual thread pinning longer than {}", properties.getThreshold());
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedTimer.record(event.getDuration());
+        log.warn("Virtual thread {} was pinned for {} ms at:\n{}",
+                event.getThread() != null ? event.getThread().getJavaName() : "unknown",
+                event.getDuration().toMillis(), topFrames(event.getStackTrace()));
+    }
+
+    private String topFrames(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "\t<no stack trace>";
+        }
+        return stackTrace.getFrames().stream()
+                .limit(properties.getStackDepth())
+                .map(VirtualThreadPinningMonitor::format)
+                .collect(Collectors.joining("\n"));
+    }
+
+    private static String format(RecordedFrame frame) {
+        return "\tat " + frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + ":" + frame.getLineNumber();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+}
@@ -1,47 +1,108 @@
 package com.innowise.imageservice.service.impl;
 
+import com.innowise.imageservice.config.DirectUploadProperties;
+import com.innowise.imageservice.config.ImageImportProperties;
 import com.innowise.imageservice.config.ImageProperties;
+import com.innowise.imageservice.config.LikeCounterProperties;
 import com.innowise.imageservice.dto.CommentRequestDto;
 import com.innowise.imageservice.dto.CommentResponseDto;
 import com.innowise.imageservice.dto.CommentWithOwnersResponseDto;
+import com.innowise.imageservice.dto.ImageImportItemDto;
 import com.innowise.imageservice.dto.ImageRequestDto;
 import com.innowise.imageservice.dto.ImageResponseDto;
 import com.innowise.imageservice.dto.ImageWithLikeByCurrentUserResponseDto;
+import com.innowise.imageservice.dto.KeysetCursor;
+import com.innowise.imageservice.dto.LikeStateResponseDto;
+import com.innowise.imageservice.dto.LikeStatusResponseDto;
 import com.innowise.imageservice.dto.PaginatedSliceResponseDto;
+import com.innowise.imageservice.dto.PresignedUploadRequestDto;
+import com.innowise.imageservice.dto.PresignedUploadResponseDto;
+import com.innowise.imageservice.dto.UploadToken;
 import com.innowise.imageservice.dto.UserNamesResponseDto;
 import com.innowise.imageservice.exception.CommentNotFoundException;
+import com.innowise.imageservice.exception.ImageFileOperationException;
 import com.innowise.imageservice.exception.ImageFileRequiredException;
 import com.innowise.imageservice.exception.ImageNotFoundException;
 import com.innowise.imageservice.exception.InvalidImageSizeException;
 import com.innowise.imageservice.exception.InvalidImageTypeException;
+import com.innowise.imageservice.exception.InvalidUploadTokenException;
 import com.innowise.imageservice.exception.OperationNotAllowedException;
 import com.innowise.imageservice.mapper.CommentMapper;
 import com.innowise.imageservice.mapper.ImageMapper;
 import com.innowise.imageservice.model.Comment;
 import com.innowise.imageservice.model.Image;
-import com.innowise.imageservice.model.Like;
 import com.innowise.imageservice.repository.CommentRepository;
 import com.innowise.imageservice.repository.ImageRepository;
 import com.innowise.imageservice.repository.LikeRepository;
+import com.innowise.imageservice.repository.ImageRevision;
+import com.innowise.imageservice.repository.LikeToggleResult;
 import com.innowise.imageservice.service.ActivityEventProducer;
-import com.innowise.imageservice.service.AuthServiceClient;
+import com.innowise.imageservice.service.ImageObjectService;
+import com.innowise.imageservice.service.ImageRenditionService;
 import com.innowise.imageservice.service.ImageService;
+import com.innowise.imageservice.service.LikedImagesCache;
+import com.innowise.imageservice.service.ReadOnlyQueries;
 import com.innowise.imageservice.service.S3Service;
-import jakarta.transaction.Transactional;
+import com.innowise.imageservice.service.S3StreamingUpload;
+import com.innowise.imageservice.service.UploadTokenService;
+import com.innowise.imageservice.service.UserNameCache;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 
 @Service
+@Slf4j
 @RequiredArgsConstructor
+@Timed(value = "images.service", description = "Latency of ImageService operations")
 public class ImageServiceImpl implements ImageService {
 
     public static final String IMAGE_FILE_REQUIRED_EXCEPTION_MESSAGE = "Image file is required";
@@ -49,54 +110,467 @@ public class ImageServiceImpl implements ImageService {
     public static final String IMAGE_SIZE_TOO_LARGE_EXCEPTION_MESSAGE = "Image size is too large. Maximum size: %d bytes";
     public static final String INVALID_IMAGE_TYPE_EXCEPTION_MESSAGE = "Unsupported image type: %s. Allowed types: %s";
     public static final String IMAGE_NOT_FOUND_EXCEPTION_MESSAGE = "Image not found";
+    public static final String IMAGE_STREAM_READ_EXCEPTION_MESSAGE = "Failed to read image stream: ";
     public static final String COMMENT_NOT_FOUND_EXCEPTION_MESSAGE = "Comment not found";
     public static final String OPERATION_DELETE_NOT_ALLOWED_EXCEPTION_MESSAGE =
             "You cannot delete a comment that is not yours or from an image that is not yours";
     public static final String OPERATION_UPDATE_NOT_ALLOWED_EXCEPTION_MESSAGE =
             "You cannot update a comment that is not yours";
+    public static final String UPLOAD_ALREADY_CONFIRMED_EXCEPTION_MESSAGE = "Upload has already been confirmed";
+    public static final String UPLOADED_IMAGE_SIZE_MISMATCH_EXCEPTION_MESSAGE =
+            "Uploaded image has %d bytes, but %d were declared";
+    public static final String UPLOADED_IMAGE_TYPE_MISMATCH_EXCEPTION_MESSAGE =
+            "Uploaded image type %s does not match the declared type %s";
+    public static final String UPLOADED_IMAGE_CHECKSUM_MISMATCH_EXCEPTION_MESSAGE =
+            "Uploaded image does not match the declared SHA-256";
+    public static final String UPLOADED_IMAGE_SIGNATURE_EXCEPTION_MESSAGE =
+            "Uploaded file is not a valid %s image";
+    public static final String UNSUPPORTED_ARCHIVE_TYPE_EXCEPTION_MESSAGE =
+            "Unsupported archive type: %s. Allowed types: %s";
+    public static final String ARCHIVE_READ_EXCEPTION_MESSAGE = "Failed to read archive: ";
+    public static final String ARCHIVE_TOO_MANY_ENTRIES_EXCEPTION_MESSAGE =
+            "Archive has more than %d images, the rest was not imported";
+    public static final String IMPORT_INTERRUPTED_EXCEPTION_MESSAGE = "Import was interrupted";
+    public static final String IMPORT_SAVE_EXCEPTION_MESSAGE = "Failed to save image";
+
+    // Long enough for the 12-byte RIFF....WEBP header, the longest signature checked
+    private static final int IMAGE_SIGNATURE_LENGTH = 12;
 
     private final ImageRepository imageRepository;
     private final LikeRepository likeRepository;
     private final CommentRepository commentRepository;
     private final ImageProperties imageProperties;
+    private final LikeCounterProperties likeCounterProperties;
     private final S3Service s3Service;
+    private final ImageObjectService imageObjectService;
+    private final ImageRenditionService imageRenditionService;
     private final ImageMapper imageMapper;
     private final CommentMapper commentMapper;
-    private final AuthServiceClient authServiceClient;
+    private final UserNameCache userNameCache;
+    private final LikedImagesCache likedImagesCache;
     private final ActivityEventProducer activityEventProducer;
+    private final UploadTokenService uploadTokenService;
+    private final DirectUploadProperties directUploadProperties;
+    private final ImageImportProperties imageImportProperties;
+    private final ReadOnlyQueries readOnlyQueries;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
     public ImageResponseDto upload(String userId, ImageRequestDto imageRequestDto, MultipartFile imageFile) {
         validateImageFile(imageFile);
 
-        String generatedUniqueFilename = generateUniqueFilename(userId, imageFile.getOriginalFilename());
-        String imageUrl = s3Service.uploadImage(imageFile, generatedUniqueFilename);
+        String contentHash = imageObjectService.contentHash(imageFile);
+        String objectKey = imageObjectService.acquireExisting(contentHash).orElseGet(() -> {
+            String generatedUniqueFilename = generateUniqueFilename(userId,
+                    extractExtension(imageFile.getOriginalFilename()));
+            s3Service.uploadImage(imageFile, generatedUniqueFilename);
+            return registerUploadedObject(contentHash, generatedUniqueFilename);
+        });
 
+        return saveImage(userId, imageRequestDto.description(), objectKey, contentHash);
+    }
+
+    @Override
+    public ImageResponseDto uploadStream(String userId, String description, String contentType,
+                                         long contentLength, InputStream imageStream) {
+        String imageType = toImageType(contentType);
+        validateImageContentType(imageType);
+        if (contentLength >= 0) {
+            validateImageSize(contentLength);
+        }
+
+        String generatedUniqueFilename = generateUniqueFilename(userId, EXTENSIONS_BY_IMAGE_TYPE.get(imageType));
+        S3StreamingUpload streamingUpload = s3Service.startStreamingUpload(generatedUniqueFilename, imageType);
+        String contentHash;
+        String objectKey;
+        try {
+            long size = streamingUpload.transferFrom(imageStream, imageProperties.getMaxBytes());
+            validateImageSize(size);
+            contentHash = streamingUpload.getContentHash();
+
+            Optional<String> existingObjectKey = imageObjectService.acquireExisting(contentHash);
+            if (existingObjectKey.isPresent()) {
+                streamingUpload.abort();
+                objectKey = existingObjectKey.get();
+            } else {
+                streamingUpload.complete();
+                objectKey = registerUploadedObject(contentHash, generatedUniqueFilename);
+            }
+        } catch (IOException e) {
+            streamingUpload.abort();
+            throw new ImageFileOperationException(IMAGE_STREAM_READ_EXCEPTION_MESSAGE + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            streamingUpload.abort();
+            throw e;
+        }
+
+        return saveImage(userId, description, objectKey, contentHash);
+    }
+
+    /**
+     * Reads the archive sequentially and hands each valid entry to a virtual thread that uploads it,
+     * at most {@code images.import.parallelism} at a time. Reading waits for a free upload slot, so
+     * no more than parallelism + 1 entries are held in memory whatever the archive size. Uploaded
+     * images are inserted {@code images.import.batch-size} rows per statement batch; when a batch
+     * fails, the references its items took are released, which deletes objects nothing else uses.
+     */
+    @Override
+    public void importArchive(String userId, String contentType, InputStream archive,
+                              Consumer<ImageImportItemDto> progress) {
+        ImportReport report = new ImportReport(progress);
+        Semaphore uploadSlots = new Semaphore(imageImportProperties.getParallelism());
+        Deque<PendingImport> uploading = new ArrayDeque<>();
+        List<StoredImport> uploaded = new ArrayList<>();
+        try (ExecutorService uploads = Executors.newVirtualThreadPerTaskExecutor()) {
+            try (ArchiveInputStream<?> entries = openArchive(contentType, archive)) {
+                int index = 0;
+                ArchiveEntry entry;
+                while ((entry = entries.getNextEntry()) != null) {
+                    if (entry.isDirectory() || isArchiveMetadata(entry.getName())) {
+                        continue;
+                    }
+                    if (index == imageImportProperties.getMaxEntries()) {
+                        report.failed(null, null, String.format(ARCHIVE_TOO_MANY_ENTRIES_EXCEPTION_MESSAGE,
+                                imageImportProperties.getMaxEntries()));
+                        break;
+                    }
+                    int entryIndex = index++;
+                    String name = entry.getName();
+                    ArchivedImage image;
+                    try {
+                        image = readArchivedImage(entries, entry);
+                    } catch (RuntimeException e) {
+                        report.failed(entryIndex, name, e.getMessage());
+                        continue;
+                    }
+
+                    uploadSlots.acquire();
+                    uploading.add(new PendingImport(entryIndex, name, uploads.submit(() -> {
+                        try {
+                            return storeArchivedImage(userId, entryIndex, name, image);
+                        } finally {
+                            uploadSlots.release();
+                        }
+                    })));
+                    collectUploads(uploading, uploaded, report, false);
+                    if (uploaded.size() >= imageImportProperties.getBatchSize()) {
+                        insertImported(userId, uploaded, report);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // Entries already handed over are still awaited and saved below
+                report.failed(null, null, ARCHIVE_READ_EXCEPTION_MESSAGE + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                report.failed(null, null, IMPORT_INTERRUPTED_EXCEPTION_MESSAGE);
+            }
+            collectUploads(uploading, uploaded, report, true);
+            insertImported(userId, uploaded, report);
+        }
+    }
+
+    private ArchiveInputStream<?> openArchive(String contentType, InputStream archive) throws IOException {
+        String archiveType = toImageType(contentType);
+        if (archiveType == null || !ARCHIVE_TYPES.contains(archiveType)) {
+            throw new ImageFileOperationException(String.format(UNSUPPORTED_ARCHIVE_TYPE_EXCEPTION_MESSAGE,
+                    contentType, ARCHIVE_TYPES));
+        }
+        return switch (archiveType) {
+            case "application/zip" -> new ZipArchiveInputStream(archive, StandardCharsets.UTF_8.name(), true, true);
+            case "application/gzip" -> new TarArchiveInputStream(new GZIPInputStream(archive));
+            default -> new TarArchiveInputStream(archive);
+        };
+    }
+
+    // Resource forks and dot files that archivers add next to the actual images
+    private static boolean isArchiveMetadata(String name) {
+        String fileName = name.substring(name.lastIndexOf('/') + 1);
+        return name.startsWith("__MACOSX/") || fileName.startsWith(".");
+    }
+
+    private ArchivedImage readArchivedImage(ArchiveInputStream<?> entries, ArchiveEntry entry) throws IOException {
+        String imageType = MediaTypeFactory.getMediaType(entry.getName()).map(MediaType::toString).orElse(null);
+        validateImageContentType(imageType);
+        if (entry.getSize() >= 0) {
+            validateImageSize(entry.getSize());
+        }
+        // One byte over the limit is enough to reject entries whose size the archive does not declare
+        byte[] content = entries.readNBytes(Math.toIntExact(imageProperties.getMaxBytes() + 1));
+        validateImageSize(content.length);
+        if (!hasImageSignature(imageType, content)) {
+            throw new InvalidImageTypeException(String.format(UPLOADED_IMAGE_SIGNATURE_EXCEPTION_MESSAGE, imageType));
+        }
+        String contentHash = HexFormat.of().formatHex(ImageObjectService.newDigest().digest(content));
+        return new ArchivedImage(content, imageType, contentHash);
+    }
+
+    private StoredImport storeArchivedImage(String userId, int index, String name, ArchivedImage image) {
+        Optional<String> existingObjectKey = imageObjectService.acquireExisting(image.contentHash());
+        if (existingObjectKey.isPresent()) {
+            return new StoredImport(index, name, existingObjectKey.get(), image.contentHash(), true);
+        }
+        String generatedUniqueFilename = generateUniqueFilename(userId, EXTENSIONS_BY_IMAGE_TYPE.get(image.type()));
+        s3Service.uploadBytes(image.content(), generatedUniqueFilename, image.type());
+        String objectKey = registerUploadedObject(image.contentHash(), generatedUniqueFilename);
+        return new StoredImport(index, name, objectKey, image.contentHash(), !objectKey.equals(generatedUniqueFilename));
+    }
+
+    private static void collectUploads(Deque<PendingImport> uploading, List<StoredImport> uploaded,
+                                       ImportReport report, boolean waitForAll) {
+        Iterator<PendingImport> pending = uploading.iterator();
+        while (pending.hasNext()) {
+            PendingImport upload = pending.next();
+            if (!waitForAll && !upload.result().isDone()) {
+                continue;
+            }
+            pending.remove();
+            try {
+                uploaded.add(upload.result().get());
+            } catch (ExecutionException e) {
+                report.failed(upload.index(), upload.name(), e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                report.failed(upload.index(), upload.name(), IMPORT_INTERRUPTED_EXCEPTION_MESSAGE);
+            }
+        }
+    }
+
+    private void insertImported(String userId, List<StoredImport> uploaded, ImportReport report) {
+        if (uploaded.isEmpty()) {
+            return;
+        }
+        LocalDateTime uploadedAt = LocalDateTime.now();
+        List<Image> images = uploaded.stream()
+                .map(stored -> {
+                    Image image = Image.builder()
+                            .url(s3Service.generateImageUrl(stored.objectKey()))
+                            .uploadedAt(uploadedAt)
+                            .likes(0L)
+                            .userId(Long.valueOf(userId))
+                            .contentHash(stored.contentHash())
+                            .build();
+                    if (stored.shared()) {
+                        imageRepository.findFirstByContentHashAndLargeUrlIsNotNull(stored.contentHash())
+                                .ifPresent(duplicate -> {
+                                    image.setSmallUrl(duplicate.getSmallUrl());
+                                    image.setMediumUrl(duplicate.getMediumUrl());
+                                    image.setLargeUrl(duplicate.getLargeUrl());
+                                });
+                    }
+                    return image;
+                })
+                .toList();
+        try {
+            List<Image> savedImages = imageRepository.saveAll(images);
+            for (int i = 0; i < savedImages.size(); i++) {
+                Image savedImage = savedImages.get(i);
+                StoredImport stored = uploaded.get(i);
+                if (savedImage.getLargeUrl() == null) {
+                    imageRenditionService.submit(savedImage.getId(), stored.objectKey());
+                }
+                report.created(stored.index(), stored.name(), imageMapper.toImageResponseDto(savedImage));
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to save a batch of {} imported images", uploaded.size(), e);
+            uploaded.forEach(stored -> {
+                imageObjectService.release(stored.contentHash());
+                report.failed(stored.index(), stored.name(), IMPORT_SAVE_EXCEPTION_MESSAGE);
+            });
+        }
+        uploaded.clear();
+    }
+
+    private record ArchivedImage(byte[] content, String type, String contentHash) {
+    }
+
+    private record PendingImport(int index, String name, Future<StoredImport> result) {
+    }
+
+    private record StoredImport(int index, String name, String objectKey, String contentHash, boolean shared) {
+    }
+
+    /**
+     * Forwards outcomes to the caller. A caller that fails, typically because the client went away,
+     * stops receiving them, but the import still finishes so that no uploaded object is left behind.
+     */
+    private static final class ImportReport {
+
+        private final Consumer<ImageImportItemDto> progress;
+        private boolean broken;
+
+        private ImportReport(Consumer<ImageImportItemDto> progress) {
+            this.progress = progress;
+        }
+
+        void created(int index, String name, ImageResponseDto image) {
+            send(ImageImportItemDto.created(index, name, image));
+        }
+
+        void failed(Integer index, String name, String error) {
+            send(ImageImportItemDto.failed(index, name, error));
+        }
+
+        private void send(ImageImportItemDto item) {
+            if (broken) {
+                return;
+            }
+            try {
+                progress.accept(item);
+            } catch (RuntimeException e) {
+                broken = true;
+                log.warn("Stopped reporting import progress: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public PresignedUploadResponseDto createUpload(String userId, PresignedUploadRequestDto request) {
+        String imageType = toImageType(request.contentType());
+        validateImageContentType(imageType);
+        validateImageSize(request.contentLength());
+
+        String objectKey = generateUniqueFilename(userId, EXTENSIONS_BY_IMAGE_TYPE.get(imageType));
+        String contentHash = request.sha256().toLowerCase(Locale.ROOT);
+        PresignedPutObjectRequest presigned = s3Service.presignUpload(objectKey, imageType, request.contentLength(),
+                toBase64Checksum(contentHash), directUploadProperties.getUrlTtl());
+        String uploadToken = uploadTokenService.issue(new UploadToken(Long.valueOf(userId), objectKey, imageType,
+                request.contentLength(), contentHash, request.description(),
+                Instant.now().plus(directUploadProperties.getTokenTtl())));
+
+        Map<String, String> headers = presigned.signedHeaders().entrySet().stream()
+                .filter(header -> !HttpHeaders.HOST.equalsIgnoreCase(header.getKey()))
+                .collect(Collectors.toMap(Map.Entry::getKey, header -> String.join(",", header.getValue())));
+        return new PresignedUploadResponseDto(presigned.url().toString(), headers, uploadToken,
+                presigned.expiration());
+    }
+
+    @Override
+    public ImageResponseDto confirmUpload(String userId, String uploadToken) {
+        UploadToken token = uploadTokenService.verify(uploadToken);
+        if (!token.userId().equals(Long.valueOf(userId))) {
+            throw new InvalidUploadTokenException(UploadTokenService.INVALID_UPLOAD_TOKEN_EXCEPTION_MESSAGE);
+        }
+
+        HeadObjectResponse uploaded = s3Service.headFile(token.objectKey());
+        try {
+            verifyUploadedObject(token, uploaded);
+        } catch (RuntimeException e) {
+            s3Service.deleteFile(token.objectKey());
+            throw e;
+        }
+
+        String objectKey;
+        Optional<String> existingObjectKey = imageObjectService.acquireExisting(token.contentHash());
+        if (existingObjectKey.isEmpty()) {
+            objectKey = registerUploadedObject(token.contentHash(), token.objectKey());
+        } else if (existingObjectKey.get().equals(token.objectKey())) {
+            // Only a previous confirm of this very token can have registered its object
+            imageObjectService.release(token.contentHash());
+            throw new InvalidUploadTokenException(UPLOAD_ALREADY_CONFIRMED_EXCEPTION_MESSAGE);
+        } else {
+            s3Service.deleteFile(token.objectKey());
+            objectKey = existingObjectKey.get();
+        }
+
+        return saveImage(userId, token.description(), objectKey, token.contentHash());
+    }
+
+    /**
+     * Checks the object the client put against the token. The checksum was verified by S3 on upload,
+     * so once it matches the content hash can be trusted for deduplication without reading the object.
+     */
+    private void verifyUploadedObject(UploadToken token, HeadObjectResponse uploaded) {
+        validateImageSize(uploaded.contentLength());
+        if (uploaded.contentLength() != token.contentLength()) {
+            throw new InvalidImageSizeException(String.format(UPLOADED_IMAGE_SIZE_MISMATCH_EXCEPTION_MESSAGE,
+                    uploaded.contentLength(), token.contentLength()));
+        }
+        String uploadedType = toImageType(uploaded.contentType());
+        if (!token.contentType().equals(uploadedType)) {
+            throw new InvalidImageTypeException(String.format(UPLOADED_IMAGE_TYPE_MISMATCH_EXCEPTION_MESSAGE,
+                    uploadedType, token.contentType()));
+        }
+        if (!toBase64Checksum(token.contentHash()).equals(uploaded.checksumSHA256())) {
+            throw new ImageFileOperationException(UPLOADED_IMAGE_CHECKSUM_MISMATCH_EXCEPTION_MESSAGE);
+        }
+        byte[] header = s3Service.readFirstBytes(token.objectKey(), IMAGE_SIGNATURE_LENGTH);
+        if (!hasImageSignature(token.contentType(), header)) {
+            throw new InvalidImageTypeException(String.format(UPLOADED_IMAGE_SIGNATURE_EXCEPTION_MESSAGE,
+                    token.contentType()));
+        }
+    }
+
+    private static boolean hasImageSignature(String imageType, byte[] header) {
+        return switch (imageType) {
+            case "image/jpeg" -> startsWith(header, 0, 0xFF, 0xD8, 0xFF);
+            case "image/png" -> startsWith(header, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A);
+            case "image/bmp" -> startsWith(header, 0, 'B', 'M');
+            case "image/webp" -> startsWith(header, 0, 'R', 'I', 'F', 'F') && startsWith(header, 8, 'W', 'E', 'B', 'P');
+            default -> false;
+        };
+    }
+
+    private static boolean startsWith(byte[] bytes, int offset, int... signature) {
+        if (bytes.length < offset + signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if ((bytes[offset + i] & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String toBase64Checksum(String hexHash) {
+        return Base64.getEncoder().encodeToString(HexFormat.of().parseHex(hexHash));
+    }
+
+    private String registerUploadedObject(String contentHash, String objectKey) {
+        try {
+            return imageObjectService.register(contentHash, objectKey);
+        } catch (RuntimeException e) {
+            s3Service.deleteFile(objectKey);
+            throw e;
+        }
+    }
+
+    private ImageResponseDto saveImage(String userId, String description, String objectKey, String contentHash) {
         try {
             Image image = Image.builder()
-                    .description(imageRequestDto.description())
-                    .url(imageUrl)
+                    .description(description)
+                    .url(s3Service.generateImageUrl(objectKey))
                     .uploadedAt(LocalDateTime.now())
                     .likes(0L)
                     .userId(Long.valueOf(userId))
+                    .contentHash(contentHash)
                     .build();
-
-            return imageMapper.toImageResponseDto(imageRepository.save(image));
+            imageRepository.findFirstByContentHashAndLargeUrlIsNotNull(contentHash).ifPresent(duplicate -> {
+                image.setSmallUrl(duplicate.getSmallUrl());
+                image.setMediumUrl(duplicate.getMediumUrl());
+                image.setLargeUrl(duplicate.getLargeUrl());
+            });
+
+            Image savedImage = imageRepository.save(image);
+            if (savedImage.getLargeUrl() == null) {
+                imageRenditionService.submit(savedImage.getId(), objectKey);
+            }
+            return imageMapper.toImageResponseDto(savedImage);
 
         } catch (Exception e) {
-            s3Service.deleteFile(generatedUniqueFilename);
+            imageObjectService.release(contentHash);
             throw e;
         }
     }
 
     @Override
     public ImageWithLikeByCurrentUserResponseDto getById(String currentUserId, Long imageId) {
-        ImageWithLikeByCurrentUserResponseDto imageWithLikeByCurrentUserResponseDto = imageRepository
-                .findWithLikeByCurrentUserId(Long.valueOf(currentUserId), imageId).orElseThrow(() ->
+        ImageWithLikeByCurrentUserResponseDto imageWithLikeByCurrentUserResponseDto = readOnlyQueries.run(() ->
+                imageRepository.findWithLikeByCurrentUserId(Long.valueOf(currentUserId), imageId)).orElseThrow(() ->
                 new ImageNotFoundException(IMAGE_NOT_FOUND_EXCEPTION_MESSAGE));
 
         Long userId = imageWithLikeByCurrentUserResponseDto.getUserId();
-        UserNamesResponseDto userNamesByIds = authServiceClient.getUserNamesByIds(List.of(userId));
+        UserNamesResponseDto userNamesByIds = userNameCache.getUserNamesByIds(List.of(userId));
         String userName = userNamesByIds.names().get(userId);
         imageWithLikeByCurrentUserResponseDto.setUserName(userName);
         return imageWithLikeByCurrentUserResponseDto;
@@ -108,73 +582,230 @@ public class ImageServiceImpl implements ImageService {
     }
 
     @Override
-    public PaginatedSliceResponseDto<ImageWithLikeByCurrentUserResponseDto> getAllByUserId(String userId, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
+    public List<ImageWithLikeByCurrentUserResponseDto> getByIds(String currentUserId, List<Long> imageIds) {
+        List<Long> distinctIds = imageIds.stream().distinct().toList();
+        List<ImageWithLikeByCurrentUserResponseDto> images = readOnlyQueries.run(() -> imageRepository
+                .findAllWithLikeByCurrentUserIdAndIdIn(Long.valueOf(currentUserId), distinctIds));
+        return updateUserNames(inRequestOrder(distinctIds, images, ImageWithLikeByCurrentUserResponseDto::getId));
+    }
 
-        Slice<ImageWithLikeByCurrentUserResponseDto> imageInfo = imageRepository
-                .findAllByOwnerIdWithLikeFlag(Long.valueOf(userId), pageable);
+    @Override
+    @Transactional(readOnly = true)
+    public List<LikeStatusResponseDto> getLikeStatuses(String currentUserId, List<Long> imageIds) {
+        List<Long> distinctIds = imageIds.stream().distinct().toList();
+        List<LikeStatusResponseDto> statuses = imageRepository
+                .findLikeStatuses(Long.valueOf(currentUserId), distinctIds);
+        return inRequestOrder(distinctIds, statuses, LikeStatusResponseDto::imageId);
+    }
 
+    private static <T> List<T> inRequestOrder(List<Long> requestedIds, List<T> found, Function<T, Long> idGetter) {
+        Map<Long, T> foundById = found.stream().collect(Collectors.toMap(idGetter, Function.identity()));
+        return requestedIds.stream()
+                .map(foundById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
 
-        List<ImageWithLikeByCurrentUserResponseDto> updatedImages = updateUserNames(imageInfo.getContent());
+    @Override
+    public PaginatedSliceResponseDto<ImageWithLikeByCurrentUserResponseDto> getAllByUserId(
+            String userId, int page, int size, String cursor) {
+        Long userIdLong = Long.valueOf(userId);
+        boolean useLikedImagesCache = likedImagesCache.isEnabled();
+        CompletableFuture<Roaring64Bitmap> likedImageIds = useLikedImagesCache
+                ? likedImagesCache.getLikedImageIdsAsync(userIdLong)
+                : null;
+        Slice<ImageWithLikeByCurrentUserResponseDto> imageInfo = readOnlyQueries.run(() ->
+                findOwnerPage(userIdLong, useLikedImagesCache, page, size, cursor));
+        if (useLikedImagesCache) {
+            applyLikeFlags(userIdLong, likedImageIds, imageInfo.getContent());
+        }
 
-        return PaginatedSliceResponseDto.<ImageWithLikeByCurrentUserResponseDto>builder()
-                .content(updatedImages)
-                .pageNumber(imageInfo.getNumber())
-                .pageSize(imageInfo.getSize())
-                .hasNext(imageInfo.hasNext())
-                .build();
+        return toImagePage(imageInfo, page);
     }
 
+    private Slice<ImageWithLikeByCurrentUserResponseDto> findOwnerPage(Long userIdLong, boolean useLikedImagesCache,
+                                                                       int page, int size, String cursor) {
+        Slice<ImageWithLikeByCurrentUserResponseDto> imageInfo;
+        if (cursor == null) {
+            Pageable pageable = PageRequest.of(page, size);
+            imageInfo = useLikedImagesCache
+                    ? imageRepository.findAllByOwnerIdWithoutLikeFlag(userIdLong, pageable)
+                    : imageRepository.findAllByOwnerIdWithLikeFlag(userIdLong, pageable);
+        } else {
+            KeysetCursor keysetCursor = KeysetCursor.decode(cursor);
+            Pageable pageable = PageRequest.of(0, size);
+            imageInfo = useLikedImagesCache
+                    ? imageRepository.findAllByOwnerIdWithoutLikeFlagAfter(userIdLong,
+                    keysetCursor.timestamp(), keysetCursor.id(), pageable)
+                    : imageRepository.findAllByOwnerIdWithLikeFlagAfter(userIdLong,
+                    keysetCursor.timestamp(), keysetCursor.id(), pageable);
+        }
+        return imageInfo;
+    }
+
+    /**
+     * The image representation is per user (like flag), so the user is part of the tag; the
+     * revision covers every change to likes, comments and renditions. Owner names are not
+     * versioned and may be as stale as the name cache allows.
+     */
     @Override
-    public PaginatedSliceResponseDto<ImageWithLikeByCurrentUserResponseDto> getAll(String currentUserId, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
+    @Transactional(readOnly = true)
+    public String getImageETag(String currentUserId, Long imageId) {
+        long revision = imageRepository.findRevision(imageId)
+                .orElseThrow(() -> new ImageNotFoundException(IMAGE_NOT_FOUND_EXCEPTION_MESSAGE));
+        return "\"image-%d-%d-%s\"".formatted(imageId, revision, currentUserId);
+    }
+
+    /**
+     * With the liked-images cache the like flags come from the cached bitmap rather than the page
+     * query, so they are part of the tag: a page served from a bitmap that was still stale must not
+     * be confirmed with 304 once the bitmap has caught up.
+     */
+    @Override
+    public String getFeedETag(String currentUserId, int page, int size) {
+        CompletableFuture<Roaring64Bitmap> likedImageIds = likedImagesCache.isEnabled()
+                ? likedImagesCache.getLikedImageIdsAsync(Long.valueOf(currentUserId))
+                : null;
+        Slice<ImageRevision> revisions = readOnlyQueries.run(() ->
+                imageRepository.findFeedRevisions(PageRequest.of(page, size)));
+        LongPredicate liked = likedImageIds != null && revisions.hasContent()
+                ? likedAmong(Long.valueOf(currentUserId), likedImageIds,
+                revisions.stream().map(ImageRevision::id).toList())
+                : null;
+        long hash = Boolean.hashCode(revisions.hasNext());
+        for (ImageRevision revision : revisions) {
+            hash = 31 * hash + revision.id();
+            hash = 31 * hash + revision.revision();
+            if (liked != null) {
+                hash = 31 * hash + Boolean.hashCode(liked.test(revision.id()));
+            }
+        }
+        return "\"feed-%d-%d-%s-%x\"".formatted(page, size, currentUserId, hash);
+    }
+
+    @Override
+    public PaginatedSliceResponseDto<ImageWithLikeByCurrentUserResponseDto> getAll(
+            String currentUserId, int page, int size, String cursor) {
+        Long currentUserIdLong = Long.valueOf(currentUserId);
+        boolean useLikedImagesCache = likedImagesCache.isEnabled();
+        CompletableFuture<Roaring64Bitmap> likedImageIds = useLikedImagesCache
+                ? likedImagesCache.getLikedImageIdsAsync(currentUserIdLong)
+                : null;
+        Slice<ImageWithLikeByCurrentUserResponseDto> imageInfo = readOnlyQueries.run(() ->
+                findFeedPage(currentUserIdLong, useLikedImagesCache, page, size, cursor));
+        if (useLikedImagesCache) {
+            applyLikeFlags(currentUserIdLong, likedImageIds, imageInfo.getContent());
+        }
+
+        return toImagePage(imageInfo, page);
+    }
 
-        Slice<ImageWithLikeByCurrentUserResponseDto> imageInfo = imageRepository
-                .findAllWithLikeFlag(Long.valueOf(currentUserId), pageable);
+    private Slice<ImageWithLikeByCurrentUserResponseDto> findFeedPage(Long currentUserIdLong,
+                                                                      boolean useLikedImagesCache,
+                                                                      int page, int size, String cursor) {
+        Slice<ImageWithLikeByCurrentUserResponseDto> imageInfo;
+        if (cursor == null) {
+            Pageable pageable = PageRequest.of(page, size);
+            imageInfo = useLikedImagesCache
+                    ? imageRepository.findAllWithoutLikeFlag(pageable)
+                    : imageRepository.findAllWithLikeFlag(currentUserIdLong, pageable);
+        } else {
+            KeysetCursor keysetCursor = KeysetCursor.decode(cursor);
+            Pageable pageable = PageRequest.of(0, size);
+            imageInfo = useLikedImagesCache
+                    ? imageRepository.findAllWithoutLikeFlagAfter(keysetCursor.timestamp(), keysetCursor.id(),
+                    pageable)
+                    : imageRepository.findAllWithLikeFlagAfter(currentUserIdLong,
+                    keysetCursor.timestamp(), keysetCursor.id(), pageable);
+        }
+        return imageInfo;
+    }
+
+    private void applyLikeFlags(Long userId, CompletableFuture<Roaring64Bitmap> pendingLikedImageIds,
+                                List<ImageWithLikeByCurrentUserResponseDto> images) {
+        if (images.isEmpty()) {
+            return;
+        }
+        LongPredicate liked = likedAmong(userId, pendingLikedImageIds,
+                images.stream().map(ImageWithLikeByCurrentUserResponseDto::getId).toList());
+        images.forEach(image -> image.setLikedByCurrentUser(liked.test(image.getId())));
+    }
 
+    // A bitmap load slower than the await timeout must not hold the page; the like flags of the
+    // page alone are a single indexed query
+    private LongPredicate likedAmong(Long userId, CompletableFuture<Roaring64Bitmap> pendingLikedImageIds,
+                                     List<Long> imageIds) {
+        Optional<Roaring64Bitmap> likedImageIds = likedImagesCache.await(pendingLikedImageIds);
+        if (likedImageIds.isPresent()) {
+            return likedImageIds.get()::contains;
+        }
+        Set<Long> likedOnPage = readOnlyQueries.run(() -> imageRepository.findLikeStatuses(userId, imageIds))
+                .stream()
+                .filter(LikeStatusResponseDto::liked)
+                .map(LikeStatusResponseDto::imageId)
+                .collect(Collectors.toSet());
+        return likedOnPage::contains;
+    }
 
+    private PaginatedSliceResponseDto<ImageWithLikeByCurrentUserResponseDto> toImagePage(
+            Slice<ImageWithLikeByCurrentUserResponseDto> imageInfo, int page) {
         List<ImageWithLikeByCurrentUserResponseDto> updatedImages = updateUserNames(imageInfo.getContent());
 
+        String nextCursor = null;
+        if (imageInfo.hasNext()) {
+            ImageWithLikeByCurrentUserResponseDto last = updatedImages.getLast();
+            nextCursor = new KeysetCursor(last.getUpdatedAt(), last.getId()).encode();
+        }
+
         return PaginatedSliceResponseDto.<ImageWithLikeByCurrentUserResponseDto>builder()
                 .content(updatedImages)
-                .pageNumber(imageInfo.getNumber())
+                .pageNumber(page)
                 .pageSize(imageInfo.getSize())
                 .hasNext(imageInfo.hasNext())
+                .nextCursor(nextCursor)
                 .build();
     }
 
     @Override
     @Transactional
-    public String setOrRemoveLike(String userId, Long imageId) {
-        Image image = findById(imageId);
+    public LikeStateResponseDto setOrRemoveLike(String userId, Long imageId) {
         Long userIdLong = Long.valueOf(userId);
-        Like like = likeRepository.findByUserIdAndImageId(userIdLong, imageId).orElse(null);
-        if (like == null) {
-            Like newLike = Like.builder()
-                    .image(image)
-                    .userId(userIdLong)
-                    .createdAt(LocalDateTime.now())
-                    .build();
-            likeRepository.save(newLike);
-            image.setLikes(image.getLikes() + 1L);
-            imageRepository.save(image);
-            activityEventProducer.sendAddLikeEvent(userIdLong, imageId);
-            return "Liked";
-        } else {
-            likeRepository.delete(like);
-            image.setLikes(image.getLikes() - 1L);
-            imageRepository.save(image);
-            activityEventProducer.sendRemoveLikeEvent(userIdLong, imageId);
-            return "Disliked";
+        LikeToggleResult result = toggleLike(userIdLong, imageId)
+                .orElseThrow(() -> new ImageNotFoundException(IMAGE_NOT_FOUND_EXCEPTION_MESSAGE));
+        if (result.getChanged()) {
+            likedImagesCache.onLikeToggled(userIdLong, imageId, result.getLiked());
+            if (result.getLiked()) {
+                activityEventProducer.sendAddLikeEvent(userIdLong, imageId);
+            } else {
+                activityEventProducer.sendRemoveLikeEvent(userIdLong, imageId);
+            }
+        }
+        return new LikeStateResponseDto(result.getLiked(), result.getLikes());
+    }
+
+    private Optional<LikeToggleResult> toggleLike(Long userId, Long imageId) {
+        if (likeCounterProperties.isSharded()) {
+            int shard = ThreadLocalRandom.current().nextInt(likeCounterProperties.getShards());
+            return likeRepository.toggleSharded(userId, imageId, shard, LocalDateTime.now());
         }
+        return likeRepository.toggle(userId, imageId, LocalDateTime.now());
     }
 
     @Override
     public CommentResponseDto addComment(String userId, Long imageId, CommentRequestDto commentRequestDto) {
-        Image image = findById(imageId);
         Long userIdLong = Long.valueOf(userId);
-        UserNamesResponseDto userNamesByIds = authServiceClient.getUserNamesByIds(List.of(userIdLong));
-        String userName = userNamesByIds.names().get(userIdLong);
+        CompletableFuture<UserNamesResponseDto> userNamesByIds =
+                userNameCache.getUserNamesByIdsAsync(List.of(userIdLong));
+        Comment savedComment = transactionTemplate.execute(status ->
+                saveComment(userIdLong, imageId, commentRequestDto));
+
+        CommentResponseDto commentResponseDto = commentMapper.toCommentResponseDto(savedComment);
+        commentResponseDto.setUserName(userNamesByIds.join().names().get(userIdLong));
+        return commentResponseDto;
+    }
+
+    private Comment saveComment(Long userIdLong, Long imageId, CommentRequestDto commentRequestDto) {
+        Image image = findById(imageId);
 
         Comment comment = Comment.builder()
                 .content(commentRequestDto.content())
@@ -183,10 +814,10 @@ public class ImageServiceImpl implements ImageService {
                 .userId(userIdLong)
                 .build();
         Comment savedComment = commentRepository.save(comment);
-        CommentResponseDto commentResponseDto = commentMapper.toCommentResponseDto(savedComment);
-        commentResponseDto.setUserName(userName);
         activityEventProducer.sendCreateCommentEvent(userIdLong, imageId, savedComment.getId(), savedComment.getContent());
-        return commentResponseDto;
+        // Last, so the image row lock it takes, which the like toggle also waits on, is held only until commit.
+        imageRepository.addToCommentsCount(imageId, 1);
+        return savedComment;
     }
 
     @Override
@@ -206,6 +837,7 @@ public class ImageServiceImpl implements ImageService {
 
         commentRepository.delete(comment);
         activityEventProducer.sendRemoveCommentEvent(userIdLong, imageId, commentId);
+        imageRepository.addToCommentsCount(comment.getImage().getId(), -1);
     }
 
     @Override
@@ -223,40 +855,63 @@ public class ImageServiceImpl implements ImageService {
 
     @Override
     public PaginatedSliceResponseDto<CommentWithOwnersResponseDto> getAllCommentsByImageId(
-            Long imageId, String currentUserId, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        Slice<CommentWithOwnersResponseDto> slice =
-                commentRepository.findAllByImageIdWithOwner(imageId, Long.valueOf(currentUserId), pageable);
-        PaginatedSliceResponseDto<CommentWithOwnersResponseDto> commentWithOwners = PaginatedSliceResponseDto.of(slice);
-
-        List<CommentWithOwnersResponseDto> updatedComments = updateOwnerNames(commentWithOwners.getContent());
+            Long imageId, String currentUserId, int page, int size, String cursor) {
+        Long currentUserIdLong = Long.valueOf(currentUserId);
+        KeysetCursor keysetCursor = cursor == null ? null : KeysetCursor.decode(cursor);
+        Slice<CommentWithOwnersResponseDto> slice = readOnlyQueries.run(() -> keysetCursor == null
+                ? commentRepository.findAllByImageIdWithOwner(imageId, currentUserIdLong, PageRequest.of(page, size))
+                : commentRepository.findAllByImageIdWithOwnerAfter(imageId, currentUserIdLong,
+                keysetCursor.timestamp(), keysetCursor.id(), PageRequest.of(0, size)));
+
+        List<CommentWithOwnersResponseDto> updatedComments = updateOwnerNames(slice.getContent());
+
+        String nextCursor = null;
+        if (slice.hasNext()) {
+            CommentWithOwnersResponseDto last = updatedComments.getLast();
+            nextCursor = new KeysetCursor(last.getCreatedAt(), last.getId()).encode();
+        }
 
         return PaginatedSliceResponseDto.<CommentWithOwnersResponseDto>builder()
                 .content(updatedComments)
-                .pageNumber(commentWithOwners.getPageNumber())
-                .pageSize(commentWithOwners.getPageSize())
-                .hasNext(commentWithOwners.isHasNext())
+                .pageNumber(page)
+                .pageSize(slice.getSize())
+                .hasNext(slice.hasNext())
+                .nextCursor(nextCursor)
                 .build();
     }
 
-    private String generateUniqueFilename(String userId, String originalFilename) {
-        String extension = "";
+    private String generateUniqueFilename(String userId, String extension) {
+        return userId + "/" + UUID.randomUUID() + extension;
+    }
+
+    private String toImageType(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            return mediaType.getType() + "/" + mediaType.getSubtype();
+        } catch (InvalidMediaTypeException e) {
+            return contentType;
+        }
+    }
+
+    private String extractExtension(String originalFilename) {
         if (originalFilename != null && originalFilename.contains(".")) {
-            extension = originalFilename.substring(originalFilename.lastIndexOf("."));
+            return originalFilename.substring(originalFilename.lastIndexOf("."));
         }
-        return userId + "/" + UUID.randomUUID() + extension;
+        return "";
     }
 
     private void validateImageFile(MultipartFile imageFile) {
         if (imageFile == null || imageFile.isEmpty()) {
             throw new ImageFileRequiredException(IMAGE_FILE_REQUIRED_EXCEPTION_MESSAGE);
         }
-        validateImageSize(imageFile);
-        validateImageContentType(imageFile);
+        validateImageSize(imageFile.getSize());
+        validateImageContentType(imageFile.getContentType());
     }
 
-    private void validateImageSize(MultipartFile imageFile) {
-        long fileSize = imageFile.getSize();
+    private void validateImageSize(long fileSize) {
         long minSize = imageProperties.getMinBytes();
         long maxSize = imageProperties.getMaxBytes();
 
@@ -280,9 +935,20 @@ public class ImageServiceImpl implements ImageService {
             "image/webp"
     );
 
-    private void validateImageContentType(MultipartFile imageFile) {
-        String contentType = imageFile.getContentType();
+    private static final Set<String> ARCHIVE_TYPES = Set.of(
+            "application/zip",
+            "application/x-tar",
+            "application/gzip"
+    );
+
+    private static final Map<String, String> EXTENSIONS_BY_IMAGE_TYPE = Map.of(
+            "image/jpeg", ".jpg",
+            "image/png", ".png",
+            "image/bmp", ".bmp",
+            "image/webp", ".webp"
+    );
 
+    private void validateImageContentType(String contentType) {
         if (contentType == null || !ALLOWED_IMAGE_TYPES.contains(contentType)) {
             throw new InvalidImageTypeException(
                     String.format(INVALID_IMAGE_TYPE_EXCEPTION_MESSAGE,
@@ -301,7 +967,7 @@ public class ImageServiceImpl implements ImageService {
                 .distinct()
                 .toList();
 
-        UserNamesResponseDto userNamesByIds = authServiceClient.getUserNamesByIds(userIds);
+        UserNamesResponseDto userNamesByIds = userNameCache.getUserNamesByIds(userIds);
 
         return images.stream()
                 .peek(image -> {
@@ -322,7 +988,7 @@ public class ImageServiceImpl implements ImageService {
                 .toList();
 
 
-        UserNamesResponseDto userNamesByIds = authServiceClient.getUserNamesByIds(userIds);
+        UserNamesResponseDto userNamesByIds = userNameCache.getUserNamesByIds(userIds);
 
         return comments.stream()
                 .peek(comment -> {
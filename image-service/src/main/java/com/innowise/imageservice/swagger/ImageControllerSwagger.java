@@ -3,19 +3,29 @@ package com.innowise.imageservice.swagger;
 import com.innowise.imageservice.dto.CommentRequestDto;
 import com.innowise.imageservice.dto.CommentResponseDto;
 import com.innowise.imageservice.dto.CommentWithOwnersResponseDto;
+import com.innowise.imageservice.dto.ConfirmUploadRequestDto;
 import com.innowise.imageservice.dto.ErrorResponse;
+import com.innowise.imageservice.dto.ImageIdsRequestDto;
+import com.innowise.imageservice.dto.ImageImportItemDto;
 import com.innowise.imageservice.dto.ImageRequestDto;
 import com.innowise.imageservice.dto.ImageResponseDto;
 import com.innowise.imageservice.dto.ImageWithLikeByCurrentUserResponseDto;
+import com.innowise.imageservice.dto.LikeStateResponseDto;
+import com.innowise.imageservice.dto.LikeStatusResponseDto;
 import com.innowise.imageservice.dto.PaginatedSliceResponseDto;
+import com.innowise.imageservice.dto.PresignedUploadRequestDto;
+import com.innowise.imageservice.dto.PresignedUploadResponseDto;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -27,8 +37,14 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.util.List;
+
+import static org.springframework.http.MediaType.IMAGE_JPEG_VALUE;
+import static org.springframework.http.MediaType.IMAGE_PNG_VALUE;
 import static org.springframework.http.MediaType.MULTIPART_FORM_DATA_VALUE;
 
 @Tag(name = "image", description = "Image management and interaction endpoints")
@@ -73,15 +89,132 @@ public interface ImageControllerSwagger {
             @RequestPart("file") MultipartFile imageFile
     );
 
+    @Operation(
+            summary = "Upload a new image as a raw stream",
+            description = """
+                    Uploads an image by sending its bytes as the request body instead of a multipart form.
+                    The body is forwarded to storage while it is being received, so the service never holds
+                    the whole file in memory or on disk.
+                    Requirements:
+                    - `Content-Type` header: `image/jpeg`, `image/png`, `image/bmp` or `image/webp`.
+                    - `description` query parameter: Optional.
+                    - Body size must be between configured min and max bytes.
+                    """
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "201", description = "Image uploaded successfully",
+                    content = @Content(schema = @Schema(implementation = ImageResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid image size or type, or the upload was interrupted",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "415", description = "Unsupported content type"),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Raw image bytes", required = true,
+            content = @Content(mediaType = "application/octet-stream",
+                    schema = @Schema(type = "string", format = "binary")))
+    @PostMapping(path = "/images/stream", consumes = {IMAGE_JPEG_VALUE, IMAGE_PNG_VALUE, "image/bmp", "image/webp"})
+    ResponseEntity<ImageResponseDto> uploadStream(
+            @Parameter(hidden = true)
+            @RequestHeader("X-User-Id") String userId,
+            @Parameter(description = "Image description")
+            @RequestParam(required = false) String description,
+            @Parameter(hidden = true)
+            HttpServletRequest request
+    ) throws IOException;
+
+    @Operation(
+            summary = "Import images from an archive",
+            description = """
+                    Imports a whole library in one request. The body is a ZIP, TAR or gzipped TAR archive that
+                    is read while it is being received. Each image entry is validated like a single upload
+                    (type from the file name, size and file signature), then stored and saved in batches.
+                    The response streams one JSON object per line (`application/x-ndjson`) as soon as the
+                    outcome of an entry is known, not in archive order:
+                    - `index`, `name`: position and path of the entry in the archive.
+                    - `status`: `CREATED` with the saved `image`, or `FAILED` with an `error`.
+                    A line without `index` reports a failure of the archive itself; entries after it are not
+                    read. Directories and dot files are skipped.
+                    """
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Import progress, one item per line",
+                    content = @Content(mediaType = "application/x-ndjson",
+                            schema = @Schema(implementation = ImageImportItemDto.class))),
+            @ApiResponse(responseCode = "415", description = "Unsupported archive type")
+    })
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Archive bytes", required = true,
+            content = @Content(mediaType = "application/octet-stream",
+                    schema = @Schema(type = "string", format = "binary")))
+    @PostMapping(path = "/images/import", consumes = {"application/zip", "application/x-tar", "application/gzip"})
+    void importImages(
+            @Parameter(hidden = true)
+            @RequestHeader("X-User-Id") String userId,
+            @Parameter(hidden = true)
+            HttpServletRequest request,
+            @Parameter(hidden = true)
+            HttpServletResponse response
+    ) throws IOException;
+
+    @Operation(
+            summary = "Start a direct upload to storage",
+            description = """
+                    First step of an upload that bypasses the service: validates the metadata and returns a
+                    presigned URL. `PUT` the image bytes to `uploadUrl` with every header in `headers`, then call
+                    `/images/uploads/confirm` with `uploadToken` before `expiresAt`.
+                    Requirements:
+                    - `contentType`: `image/jpeg`, `image/png`, `image/bmp` or `image/webp`.
+                    - `contentLength`: exact body size, between configured min and max bytes.
+                    - `sha256`: hex SHA-256 of the body; storage rejects a body that does not match it.
+                    - `description`: Optional.
+                    """
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Upload URL issued",
+                    content = @Content(schema = @Schema(implementation = PresignedUploadResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid image size, type or checksum",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @PostMapping("/images/uploads")
+    ResponseEntity<PresignedUploadResponseDto> createUpload(
+            @Parameter(hidden = true)
+            @RequestHeader("X-User-Id") String userId,
+            @Valid @RequestBody PresignedUploadRequestDto presignedUploadRequestDto
+    );
+
+    @Operation(
+            summary = "Confirm a direct upload",
+            description = """
+                    Second step of a direct upload: checks the stored object against the upload token (size,
+                    content type, checksum and file signature) and creates the image. An object that fails the
+                    checks is deleted. Each token can be confirmed once.
+                    """
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "201", description = "Image created",
+                    content = @Content(schema = @Schema(implementation = ImageResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid or expired token, object missing or not matching",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @PostMapping("/images/uploads/confirm")
+    ResponseEntity<ImageResponseDto> confirmUpload(
+            @Parameter(hidden = true)
+            @RequestHeader("X-User-Id") String userId,
+            @Valid @RequestBody ConfirmUploadRequestDto confirmUploadRequestDto
+    );
+
     @Operation(
             summary = "Get image by ID",
             description = """
                     Retrieves an image by its ID.
+                    The response carries an `ETag`; send it back as `If-None-Match` to get a 304 while the
+                    image, its likes and comments are unchanged.
                     """
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Image retrieved successfully",
                     content = @Content(schema = @Schema(implementation = ImageResponseDto.class))),
+            @ApiResponse(responseCode = "304", description = "Image unchanged since the given ETag"),
             @ApiResponse(responseCode = "404", description = "Image not found",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
@@ -90,7 +223,51 @@ public interface ImageControllerSwagger {
             @Parameter(hidden = true)
             @RequestHeader("X-User-Id") String currentUserId,
             @Parameter(description = "ID of the image to retrieve", required = true)
-            @PathVariable("id") Long imageId
+            @PathVariable("id") Long imageId,
+            @Parameter(hidden = true)
+            WebRequest request
+    );
+
+    @Operation(
+            summary = "Get images by IDs",
+            description = """
+                    Retrieves up to 500 images in one request, with the like flag of the current user and the
+                    owner names. Images are returned in the order of the requested IDs; unknown IDs are skipped.
+                    """
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Images retrieved successfully",
+                    content = @Content(array = @ArraySchema(
+                            schema = @Schema(implementation = ImageWithLikeByCurrentUserResponseDto.class)))),
+            @ApiResponse(responseCode = "400", description = "Empty or too many IDs",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @PostMapping("/images/batch")
+    ResponseEntity<List<ImageWithLikeByCurrentUserResponseDto>> getByIds(
+            @Parameter(hidden = true)
+            @RequestHeader("X-User-Id") String currentUserId,
+            @Valid @RequestBody ImageIdsRequestDto imageIdsRequestDto
+    );
+
+    @Operation(
+            summary = "Get like statuses by image IDs",
+            description = """
+                    Returns, for up to 500 images, whether the current user likes each image and its like count.
+                    Statuses are returned in the order of the requested IDs; unknown IDs are skipped.
+                    """
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Like statuses retrieved successfully",
+                    content = @Content(array = @ArraySchema(
+                            schema = @Schema(implementation = LikeStatusResponseDto.class)))),
+            @ApiResponse(responseCode = "400", description = "Empty or too many IDs",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @PostMapping("/images/likes/status")
+    ResponseEntity<List<LikeStatusResponseDto>> getLikeStatuses(
+            @Parameter(hidden = true)
+            @RequestHeader("X-User-Id") String currentUserId,
+            @Valid @RequestBody ImageIdsRequestDto imageIdsRequestDto
     );
 
     @Operation(
@@ -98,13 +275,15 @@ public interface ImageControllerSwagger {
             description = """
                     Retrieves a paginated list of images uploaded by the authenticated user.
                     Default page is 0, default size is 20.
+                    Pass the `nextCursor` of the previous response as `cursor` to page by keyset instead of
+                    offset; `page` is ignored when `cursor` is present.
                     The `X-User-Id` header is automatically provided.
                     """
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Images retrieved successfully",
                     content = @Content(schema = @Schema(implementation = PaginatedSliceResponseDto.class))),
-            @ApiResponse(responseCode = "400", description = "Invalid pagination parameters",
+            @ApiResponse(responseCode = "400", description = "Invalid pagination parameters or cursor",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
     @GetMapping("/users/images")
@@ -114,7 +293,9 @@ public interface ImageControllerSwagger {
             @Parameter(description = "Page number (default: 0)")
             @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size (default: 20)")
-            @RequestParam(defaultValue = "20") int size
+            @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "Opaque cursor from the previous page (`nextCursor`)")
+            @RequestParam(required = false) String cursor
     );
 
     @Operation(
@@ -122,12 +303,17 @@ public interface ImageControllerSwagger {
             description = """
                     Retrieves a paginated list of all images in the system.
                     Default page is 0, default size is 20.
+                    Pass the `nextCursor` of the previous response as `cursor` to page by keyset instead of
+                    offset; `page` is ignored when `cursor` is present.
+                    Pages requested without `cursor` carry an `ETag`; send it back as `If-None-Match` to get a
+                    304 while the page is unchanged.
                     """
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Images retrieved successfully",
                     content = @Content(schema = @Schema(implementation = PaginatedSliceResponseDto.class))),
-            @ApiResponse(responseCode = "400", description = "Invalid pagination parameters",
+            @ApiResponse(responseCode = "304", description = "Page unchanged since the given ETag"),
+            @ApiResponse(responseCode = "400", description = "Invalid pagination parameters or cursor",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
     @GetMapping("/images")
@@ -137,7 +323,11 @@ public interface ImageControllerSwagger {
             @Parameter(description = "Page number (default: 0)")
             @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size (default: 20)")
-            @RequestParam(defaultValue = "20") int size
+            @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "Opaque cursor from the previous page (`nextCursor`)")
+            @RequestParam(required = false) String cursor,
+            @Parameter(hidden = true)
+            WebRequest request
     );
 
     @Operation(
@@ -145,17 +335,17 @@ public interface ImageControllerSwagger {
             description = """
                     Toggles a like on an image. If the user has not liked the image, a like is added;
                     if already liked, the like is removed.
-                    Returns "Liked" or "Disliked" as a string.
+                    Returns whether the image is liked afterwards and the new like count.
                     """
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Like status updated successfully",
-                    content = @Content(schema = @Schema(implementation = String.class))),
+                    content = @Content(schema = @Schema(implementation = LikeStateResponseDto.class))),
             @ApiResponse(responseCode = "404", description = "Image not found",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
     @PutMapping("/images/{id}/likes")
-    ResponseEntity<String> pressOrDeleteLike(
+    ResponseEntity<LikeStateResponseDto> pressOrDeleteLike(
             @Parameter(hidden = true)
             @RequestHeader("X-User-Id") String userId,
             @Parameter(description = "ID of the image to like/unlike", required = true)
@@ -197,14 +387,16 @@ public interface ImageControllerSwagger {
     @Operation(
             summary = "Get all comments for an image",
             description = """
-                    Retrieves a paginated list of comments for a specific image.
+                    Retrieves a paginated list of comments for a specific image, newest first.
                     Default page is 0, default size is 5.
+                    Pass the `nextCursor` of the previous response as `cursor` to page by keyset instead of
+                    offset; `page` is ignored when `cursor` is present.
                     """
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Comments retrieved successfully",
                     content = @Content(schema = @Schema(implementation = PaginatedSliceResponseDto.class))),
-            @ApiResponse(responseCode = "400", description = "Invalid pagination parameters",
+            @ApiResponse(responseCode = "400", description = "Invalid pagination parameters or cursor",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "404", description = "Image not found",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
@@ -218,7 +410,9 @@ public interface ImageControllerSwagger {
             @Parameter(description = "Page number (default: 0)")
             @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size (default: 5)")
-            @RequestParam(defaultValue = "5") int size
+            @RequestParam(defaultValue = "5") int size,
+            @Parameter(description = "Opaque cursor from the previous page (`nextCursor`)")
+            @RequestParam(required = false) String cursor
     );
 
     @Operation(
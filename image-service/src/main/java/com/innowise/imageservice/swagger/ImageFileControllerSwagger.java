@@ -0,0 +1,48 @@
+package com.innowise.imageservice.swagger;
+
+import com.innowise.imageservice.dto.ErrorResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+
+import java.io.IOException;
+
+@Tag(name = "image-file", description = "Image bytes served through the local disk cache")
+public interface ImageFileControllerSwagger {
+
+    @Operation(
+            summary = "Get image bytes",
+            description = """
+                    Serves a stored image or rendition by its object key, for example `1/4f0c…e2.jpg`. Bytes
+                    come from a local disk cache that is filled from storage on first access.
+                    Supports `If-None-Match` / `If-Modified-Since` (304), a single `Range` (206) and `If-Range`.
+                    Image URLs point here when `aws.s3.delivery-url` is set.
+                    """
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Image bytes",
+                    content = @Content(mediaType = "image/*", schema = @Schema(type = "string", format = "binary"))),
+            @ApiResponse(responseCode = "206", description = "Requested byte range"),
+            @ApiResponse(responseCode = "304", description = "Image unchanged since the given validator"),
+            @ApiResponse(responseCode = "404", description = "Image file not found",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "416", description = "Range outside the image")
+    })
+    @GetMapping("/files/{*key}")
+    void getFile(
+            @Parameter(description = "Object key of the image", required = true)
+            @PathVariable("key") String key,
+            @Parameter(hidden = true)
+            HttpServletRequest request,
+            @Parameter(hidden = true)
+            HttpServletResponse response
+    ) throws IOException;
+}
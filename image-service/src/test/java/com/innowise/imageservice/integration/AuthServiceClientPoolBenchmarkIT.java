@@ -0,0 +1,135 @@
+package com.innowise.imageservice.integration;
+
+import com.innowise.imageservice.config.HttpClientProperties;
+import com.innowise.imageservice.config.RestTemplateConfig;
+import com.innowise.imageservice.service.AuthServiceClient;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Calls a local stub of auth-service from many threads, once through a bare {@link RestTemplate}
+ * and once through the pooled client from {@link RestTemplateConfig}, and logs the throughput and
+ * the p99 latency of both runs.
+ */
+@Slf4j
+class AuthServiceClientPoolBenchmarkIT {
+
+    private static final long USER_ID = 1L;
+    private static final String USER_NAME = "User1";
+    private static final byte[] RESPONSE = ("{\"names\":{\"" + USER_ID + "\":\"" + USER_NAME + "\"}}")
+            .getBytes(StandardCharsets.UTF_8);
+    private static final int CALLERS = 64;
+    private static final int WARMUP_CALLS_PER_CALLER = 100;
+    private static final int CALLS_PER_CALLER = 500;
+
+    private HttpServer server;
+    private CloseableHttpClient pooledHttpClient;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        // Without TCP_NODELAY the stub's separate header and body writes hit delayed ACKs
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 1_000);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/api/auth/names", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, RESPONSE.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(RESPONSE);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() throws IOException {
+        if (pooledHttpClient != null) {
+            pooledHttpClient.close();
+        }
+        server.stop(0);
+    }
+
+    @Test
+    void throughputWithAndWithoutConnectionPool() throws Exception {
+        AuthServiceClient bareClient = authServiceClient(new RestTemplate());
+
+        RestTemplateConfig config = new RestTemplateConfig();
+        HttpClientProperties properties = new HttpClientProperties();
+        properties.setMaxConnectionsPerRoute(CALLERS);
+        pooledHttpClient = config.httpClient(
+                config.httpClientConnectionManager(properties, new SimpleMeterRegistry()), properties);
+        AuthServiceClient pooledClient = authServiceClient(
+                config.restTemplate(new RestTemplateBuilder(), pooledHttpClient));
+
+        report("bare RestTemplate", bareClient);
+        report("pooled HttpClient", pooledClient);
+    }
+
+    private void report(String name, AuthServiceClient client) throws Exception {
+        call(client, WARMUP_CALLS_PER_CALLER);
+        long startedAt = System.nanoTime();
+        long[] latencies = call(client, CALLS_PER_CALLER);
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        log.info("{}: {} calls/s, p99 {} us", name, Math.round(latencies.length / seconds),
+                percentile(latencies, 0.99));
+    }
+
+    private AuthServiceClient authServiceClient(RestTemplate restTemplate) {
+        AuthServiceClient client = new AuthServiceClient(restTemplate, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(client, "authServiceUrl",
+                "http://localhost:" + server.getAddress().getPort() + "/api/auth/names");
+        ReflectionTestUtils.setField(client, "serviceSecret", "secret");
+        return client;
+    }
+
+    private long[] call(AuthServiceClient client, int callsPerCaller) throws Exception {
+        long[] latencies = new long[CALLERS * callsPerCaller];
+        List<Future<?>> callers = new ArrayList<>(CALLERS);
+        try (ExecutorService executor = Executors.newFixedThreadPool(CALLERS)) {
+            for (int i = 0; i < CALLERS; i++) {
+                int offset = i * callsPerCaller;
+                callers.add(executor.submit(() -> {
+                    for (int call = 0; call < callsPerCaller; call++) {
+                        long startedAt = System.nanoTime();
+                        String userName = client.getUserNamesByIds(List.of(USER_ID)).names().get(USER_ID);
+                        latencies[offset + call] = (System.nanoTime() - startedAt) / 1_000;
+                        assertEquals(USER_NAME, userName);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> caller : callers) {
+                caller.get();
+            }
+        }
+        return latencies;
+    }
+
+    private static long percentile(long[] latencies, double percentile) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(percentile * sorted.length) - 1];
+    }
+}
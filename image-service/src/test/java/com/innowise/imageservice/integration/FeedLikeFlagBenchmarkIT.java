@@ -0,0 +1,125 @@
+package com.innowise.imageservice.integration;
+
+import com.innowise.imageservice.config.LikedImagesCacheProperties;
+import com.innowise.imageservice.dto.ImageWithLikeByCurrentUserResponseDto;
+import com.innowise.imageservice.dto.PaginatedSliceResponseDto;
+import com.innowise.imageservice.dto.UserNamesResponseDto;
+import com.innowise.imageservice.integration.config.IntegrationTestConfig;
+import com.innowise.imageservice.service.AuthServiceClient;
+import com.innowise.imageservice.service.ImageService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pages through a seeded feed as a user with many likes, once with the {@code likes} left join and
+ * once with the liked-images bitmap, and logs the mean and p99 latency of both runs.
+ */
+@Slf4j
+@RequiredArgsConstructor
+class FeedLikeFlagBenchmarkIT extends IntegrationTestConfig {
+
+    private static final int IMAGES = 20_000;
+    private static final int USERS = 500;
+    private static final int LIKES_PER_USER = 400;
+    private static final long READER_ID = 1L;
+    private static final int PAGE_SIZE = 20;
+    private static final int PAGES = 50;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 10;
+
+    private final ImageService imageService;
+    private final JdbcTemplate jdbcTemplate;
+    private final LikedImagesCacheProperties likedImagesCacheProperties;
+
+    @MockitoBean
+    private AuthServiceClient authServiceClient;
+
+    @AfterEach
+    void resetCache() {
+        likedImagesCacheProperties.setEnabled(true);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void feedLatencyWithAndWithoutLikedImagesBitmap() {
+        when(authServiceClient.getUserNamesByIds(anyList())).thenReturn(new UserNamesResponseDto(Map.of()));
+        seed();
+
+        long[] joinLatencies = pageFeed(false);
+        long[] bitmapLatencies = pageFeed(true);
+
+        log.info("Feed page latency with likes join: mean {} us, p99 {} us",
+                mean(joinLatencies), percentile(joinLatencies, 0.99));
+        log.info("Feed page latency with liked-images bitmap: mean {} us, p99 {} us",
+                mean(bitmapLatencies), percentile(bitmapLatencies, 0.99));
+    }
+
+    private void seed() {
+        jdbcTemplate.update("""
+                INSERT INTO gallery.images (url, description, uploaded_at, likes, user_id)
+                SELECT 'bench-' || n || '.jpg', 'bench', now() - n * interval '1 second', 0, 1 + n % ?
+                FROM generate_series(1, ?) AS n
+                """, USERS, IMAGES);
+        jdbcTemplate.update("""
+                INSERT INTO gallery.likes (created_at, user_id, image_id)
+                SELECT now(), u, i.id
+                FROM generate_series(1, ?) AS u
+                CROSS JOIN LATERAL (
+                    SELECT id FROM gallery.images ORDER BY random() LIMIT ?
+                ) AS i
+                """, USERS, LIKES_PER_USER);
+        jdbcTemplate.update("""
+                UPDATE gallery.images i
+                SET likes = (SELECT count(*) FROM gallery.likes l WHERE l.image_id = i.id)
+                """);
+        jdbcTemplate.execute("ANALYZE gallery.images");
+        jdbcTemplate.execute("ANALYZE gallery.likes");
+    }
+
+    private long[] pageFeed(boolean useBitmap) {
+        likedImagesCacheProperties.setEnabled(useBitmap);
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            pageThroughFeed(new long[PAGES], 0);
+        }
+        long[] latencies = new long[ROUNDS * PAGES];
+        for (int i = 0; i < ROUNDS; i++) {
+            pageThroughFeed(latencies, i * PAGES);
+        }
+        return latencies;
+    }
+
+    private void pageThroughFeed(long[] latencies, int offset) {
+        String cursor = null;
+        for (int page = 0; page < PAGES; page++) {
+            long startedAt = System.nanoTime();
+            PaginatedSliceResponseDto<ImageWithLikeByCurrentUserResponseDto> result =
+                    imageService.getAll(String.valueOf(READER_ID), page, PAGE_SIZE, cursor);
+            latencies[offset + page] = (System.nanoTime() - startedAt) / 1_000;
+            assertEquals(PAGE_SIZE, result.getContent().size());
+            cursor = result.getNextCursor();
+        }
+    }
+
+    private static long mean(long[] latencies) {
+        return (long) Arrays.stream(latencies).average().orElse(0);
+    }
+
+    private static long percentile(long[] latencies, double percentile) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(percentile * sorted.length) - 1];
+    }
+}
@@ -0,0 +1,95 @@
+package com.innowise.imageservice.integration;
+
+import com.innowise.imageservice.config.LikeCounterProperties;
+import com.innowise.imageservice.integration.config.IntegrationTestConfig;
+import com.innowise.imageservice.model.Image;
+import com.innowise.imageservice.repository.ImageLikeShardRepository;
+import com.innowise.imageservice.repository.ImageRepository;
+import com.innowise.imageservice.service.ActivityEventProducer;
+import com.innowise.imageservice.service.ImageService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Likes a single image from many users at once, first with the plain counter on the image row and
+ * then with sharded counters, and logs the throughput of both runs.
+ */
+@Slf4j
+@RequiredArgsConstructor
+class HotImageLikeBenchmarkIT extends IntegrationTestConfig {
+
+    private static final int THREADS = 32;
+    private static final int LIKES = 5000;
+
+    private final ImageService imageService;
+    private final ImageRepository imageRepository;
+    private final ImageLikeShardRepository imageLikeShardRepository;
+    private final LikeCounterProperties likeCounterProperties;
+
+    @MockitoBean
+    private ActivityEventProducer activityEventProducer;
+
+    @AfterEach
+    void resetSharding() {
+        likeCounterProperties.setSharded(false);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void hotImageLikeThroughput() throws Exception {
+        double rowCounterThroughput = likeStorm(false);
+        double shardedThroughput = likeStorm(true);
+
+        log.info("Hot image likes/s: row counter {}, sharded counter ({} shards) {}",
+                String.format("%.0f", rowCounterThroughput), likeCounterProperties.getShards(),
+                String.format("%.0f", shardedThroughput));
+    }
+
+    private double likeStorm(boolean sharded) throws Exception {
+        likeCounterProperties.setSharded(sharded);
+        Long imageId = imageRepository.save(Image.builder()
+                .url("hot-image-" + sharded + ".jpg")
+                .uploadedAt(LocalDateTime.now())
+                .likes(0L)
+                .userId(1L)
+                .build()).getId();
+
+        CountDownLatch start = new CountDownLatch(1);
+        long elapsedNanos;
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (long userId = 1; userId <= LIKES; userId++) {
+                String user = String.valueOf(userId);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return imageService.setOrRemoveLike(user, imageId);
+                }));
+            }
+            long startedAt = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            elapsedNanos = System.nanoTime() - startedAt;
+        }
+
+        imageLikeShardRepository.compact();
+        assertEquals(LIKES, imageRepository.findById(imageId).orElseThrow().getLikes());
+        return LIKES / (elapsedNanos / 1_000_000_000.0);
+    }
+}
@@ -1,9 +1,14 @@
 package com.innowise.imageservice.integration;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import com.innowise.imageservice.dto.CommentRequestDto;
+import com.innowise.imageservice.dto.ConfirmUploadRequestDto;
 import com.innowise.imageservice.dto.ImageRequestDto;
 import com.innowise.imageservice.dto.ImageResponseDto;
+import com.innowise.imageservice.dto.PresignedUploadRequestDto;
+import com.innowise.imageservice.dto.PresignedUploadResponseDto;
 import com.innowise.imageservice.dto.UserNamesResponseDto;
 import com.innowise.imageservice.integration.config.IntegrationTestConfig;
 import com.innowise.imageservice.service.AuthServiceClient;
@@ -13,18 +18,29 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Map;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
@@ -33,6 +49,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -43,7 +60,11 @@ class ImageControllerIT extends IntegrationTestConfig {
     private static final String USERS_URL = "/api/users/";
     private static final String IMAGES_PATH = "/images";
     private static final String LIKES_PATH = "/likes";
+    private static final String BATCH_PATH = "/batch";
+    private static final String LIKE_STATUS_PATH = "/likes/status";
     private static final String COMMENTS_PATH = "/comments";
+    private static final String UPLOADS_PATH = "/uploads";
+    private static final String CONFIRM_PATH = "/confirm";
     private static final String USER_ID = "1";
     private static final String USER_NAME_STRING = "User";
     private static final String SECOND_USER_ID = "2";
@@ -54,11 +75,10 @@ class ImageControllerIT extends IntegrationTestConfig {
     private static final String TEST_IMAGE_PATH = "images/test-image.jpg";
     private static final String TEST_IMAGE_NAME = "test-image.jpg";
     private static final String TEST_IMAGE_DESCRIPTION = "Test image description";
-    private static final String LIKED_RESPONSE = "Liked";
-    private static final String DISLIKED_RESPONSE = "Disliked";
     private static final String COMMENT_CONTENT = "Nice image!";
     private static final String UPDATED_COMMENT_CONTENT = "Updated comment";
     private static final int EXPECTED_IMAGE_COUNT = 2;
+    private static final MediaType CBOR_MEDIA_TYPE = MediaType.APPLICATION_CBOR;
 
     @Autowired
     private MockMvc mvc;
@@ -106,6 +126,50 @@ class ImageControllerIT extends IntegrationTestConfig {
                 .andExpect(jsonPath("$.url").exists());
     }
 
+    @Test
+    void directUploadShouldCreateImageOnceObjectIsConfirmed() throws Exception {
+        byte[] content = imageFile.getBytes();
+        PresignedUploadRequestDto uploadRequest = new PresignedUploadRequestDto(TEST_IMAGE_DESCRIPTION,
+                MediaType.IMAGE_JPEG_VALUE, (long) content.length,
+                HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content)));
+
+        MvcResult presigned = mvc.perform(post(IMAGE_URL + UPLOADS_PATH)
+                        .header("X-User-Id", USER_ID)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsBytes(uploadRequest)))
+                .andExpect(status().isOk())
+                .andReturn();
+        PresignedUploadResponseDto upload = objectMapper.readValue(
+                presigned.getResponse().getContentAsByteArray(), PresignedUploadResponseDto.class);
+
+        HttpRequest.Builder put = HttpRequest.newBuilder(URI.create(upload.uploadUrl()))
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(content));
+        upload.headers().forEach((name, value) -> {
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                put.header(name, value);
+            }
+        });
+        try (HttpClient httpClient = HttpClient.newHttpClient()) {
+            assertThat(httpClient.send(put.build(), HttpResponse.BodyHandlers.discarding()).statusCode())
+                    .isEqualTo(200);
+        }
+
+        byte[] confirmRequest = objectMapper.writeValueAsBytes(new ConfirmUploadRequestDto(upload.uploadToken()));
+        mvc.perform(post(IMAGE_URL + UPLOADS_PATH + CONFIRM_PATH)
+                        .header("X-User-Id", USER_ID)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(confirmRequest))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.description").value(TEST_IMAGE_DESCRIPTION))
+                .andExpect(jsonPath("$.id").exists());
+
+        mvc.perform(post(IMAGE_URL + UPLOADS_PATH + CONFIRM_PATH)
+                        .header("X-User-Id", USER_ID)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(confirmRequest))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void getImageByIdIfExist() throws Exception {
         ImageResponseDto saved = imageService.upload(USER_ID, imageRequestDto, imageFile);
@@ -123,6 +187,35 @@ class ImageControllerIT extends IntegrationTestConfig {
     }
 
 
+    @Test
+    void getImageByIdShouldReturnNotModifiedUntilImageChanges() throws Exception {
+        ImageResponseDto saved = imageService.upload(USER_ID, imageRequestDto, imageFile);
+        when(authServiceClient.getUserNamesByIds(anyList()))
+                .thenReturn(new UserNamesResponseDto(Map.of(saved.getUserId(), USER_NAME_STRING)));
+
+        String eTag = mvc.perform(get("/api/images/{id}", saved.getId())
+                        .header("X-User-Id", USER_ID))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mvc.perform(get("/api/images/{id}", saved.getId())
+                        .header("X-User-Id", USER_ID)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        mvc.perform(put(IMAGE_URL + "/" + saved.getId() + LIKES_PATH)
+                        .header("X-User-Id", USER_ID))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/api/images/{id}", saved.getId())
+                        .header("X-User-Id", USER_ID)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.likedByCurrentUser").value(true))
+                .andExpect(header().string(HttpHeaders.ETAG, not(eTag)));
+    }
+
     @Test
     void getAllImagesShouldReturnList() throws Exception {
         ImageResponseDto img1 = imageService.upload(USER_ID, imageRequestDto, imageFile);
@@ -143,6 +236,48 @@ class ImageControllerIT extends IntegrationTestConfig {
                         everyItem(is(TEST_IMAGE_DESCRIPTION))));
     }
 
+    @Test
+    void getAllImagesShouldNegotiateCbor() throws Exception {
+        ImageResponseDto saved = imageService.upload(USER_ID, imageRequestDto, imageFile);
+        when(authServiceClient.getUserNamesByIds(anyList()))
+                .thenReturn(new UserNamesResponseDto(Map.of(saved.getUserId(), USER_NAME_STRING)));
+
+        byte[] body = mvc.perform(get(IMAGE_URL)
+                        .param(PAGE_PARAM, PAGE_VALUE)
+                        .param(SIZE_PARAM, SIZE_VALUE)
+                        .header("X-User-Id", USER_ID)
+                        .accept(CBOR_MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(CBOR_MEDIA_TYPE))
+                .andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT)))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode page = new ObjectMapper(new CBORFactory()).readTree(body);
+        assertThat(page.get("content")).hasSize(1);
+        assertThat(page.get("content").get(0).get("id").asLong()).isEqualTo(saved.getId());
+    }
+
+    @Test
+    void getImageByIdShouldNotConfirmOtherEncodingWithNotModified() throws Exception {
+        ImageResponseDto saved = imageService.upload(USER_ID, imageRequestDto, imageFile);
+        when(authServiceClient.getUserNamesByIds(anyList()))
+                .thenReturn(new UserNamesResponseDto(Map.of(saved.getUserId(), USER_NAME_STRING)));
+
+        String jsonETag = mvc.perform(get("/api/images/{id}", saved.getId())
+                        .header("X-User-Id", USER_ID)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mvc.perform(get("/api/images/{id}", saved.getId())
+                        .header("X-User-Id", USER_ID)
+                        .header(HttpHeaders.IF_NONE_MATCH, jsonETag)
+                        .accept(CBOR_MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(CBOR_MEDIA_TYPE))
+                .andExpect(header().string(HttpHeaders.ETAG, not(jsonETag)));
+    }
+
     @Test
     void getAllImagesByUserIdShouldReturnList() throws Exception {
         ImageResponseDto img1 = imageService.upload(USER_ID, imageRequestDto, imageFile);
@@ -163,6 +298,39 @@ class ImageControllerIT extends IntegrationTestConfig {
                         everyItem(is(TEST_IMAGE_DESCRIPTION))));
     }
 
+    @Test
+    void getImagesByIdsShouldReturnRequestedImages() throws Exception {
+        ImageResponseDto img1 = imageService.upload(USER_ID, imageRequestDto, imageFile);
+        ImageResponseDto img2 = imageService.upload(SECOND_USER_ID, imageRequestDto, imageFile);
+        when(authServiceClient.getUserNamesByIds(anyList()))
+                .thenReturn(new UserNamesResponseDto(Map.of(img1.getUserId(), USER_NAME_STRING,
+                        img2.getUserId(), USER_NAME_STRING)));
+
+        mvc.perform(post(IMAGE_URL + BATCH_PATH)
+                        .header("X-User-Id", USER_ID)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("ids", List.of(img2.getId(), img1.getId())))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(EXPECTED_IMAGE_COUNT)))
+                .andExpect(jsonPath("$[0].id").value(img2.getId()))
+                .andExpect(jsonPath("$[1].userName").value(USER_NAME_STRING));
+    }
+
+    @Test
+    void getLikeStatusesShouldReturnLikeFlagsAndCounts() throws Exception {
+        ImageResponseDto saved = imageService.upload(USER_ID, imageRequestDto, imageFile);
+        imageService.setOrRemoveLike(USER_ID, saved.getId());
+
+        mvc.perform(post(IMAGE_URL + LIKE_STATUS_PATH)
+                        .header("X-User-Id", USER_ID)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("ids", List.of(saved.getId())))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].imageId").value(saved.getId()))
+                .andExpect(jsonPath("$[0].liked").value(true))
+                .andExpect(jsonPath("$[0].likes").value(1));
+    }
+
     @Test
     void pressOrDeleteLikeShouldWork() throws Exception {
         ImageResponseDto saved = imageService.upload(USER_ID, imageRequestDto, imageFile);
@@ -170,12 +338,14 @@ class ImageControllerIT extends IntegrationTestConfig {
         mvc.perform(put(IMAGE_URL + "/" + saved.getId() + LIKES_PATH)
                         .header("X-User-Id", USER_ID))
                 .andExpect(status().isOk())
-                .andExpect(content().string(LIKED_RESPONSE));
+                .andExpect(jsonPath("$.liked").value(true))
+                .andExpect(jsonPath("$.likes").value(1));
 
         mvc.perform(put(IMAGE_URL + "/" + saved.getId() + LIKES_PATH)
                         .header("X-User-Id", USER_ID))
                 .andExpect(status().isOk())
-                .andExpect(content().string(DISLIKED_RESPONSE));
+                .andExpect(jsonPath("$.liked").value(false))
+                .andExpect(jsonPath("$.likes").value(0));
     }
 
     @Test
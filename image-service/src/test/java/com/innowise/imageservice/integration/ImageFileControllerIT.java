@@ -0,0 +1,94 @@
+package com.innowise.imageservice.integration;
+
+import com.innowise.imageservice.integration.config.IntegrationTestConfig;
+import com.innowise.imageservice.repository.ImageObjectRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import software.amazon.awssdk.core.sync.RequestBody;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ImageFileControllerIT extends IntegrationTestConfig {
+
+    private static final String FILES_URL = "/api/files/";
+    private static final String OBJECT_KEY = "1/cached-image.jpg";
+    private static final String MISSING_OBJECT_KEY = "1/missing.jpg";
+    private static final String UNCONFIRMED_OBJECT_KEY = "1/unconfirmed.jpg";
+    private static final String CONTENT_HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+    private static final int CONTENT_LENGTH = 4096;
+    private static final int RANGE_START = 100;
+    private static final int RANGE_END = 199;
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private ImageObjectRepository imageObjectRepository;
+
+    private byte[] content;
+
+    @BeforeEach
+    void setUp() {
+        content = new byte[CONTENT_LENGTH];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        s3Client.putObject(builder -> builder.bucket(BUCKET_NAME).key(OBJECT_KEY).contentType(MediaType.IMAGE_JPEG_VALUE),
+                RequestBody.fromBytes(content));
+        imageObjectRepository.register(CONTENT_HASH, OBJECT_KEY, LocalDateTime.now());
+    }
+
+    @Test
+    void getFileShouldServeWholeFileAndRevalidate() throws Exception {
+        String eTag = mvc.perform(get(FILES_URL + OBJECT_KEY))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_JPEG))
+                .andExpect(content().bytes(content))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mvc.perform(get(FILES_URL + OBJECT_KEY)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void getFileShouldServeRequestedRange() throws Exception {
+        mvc.perform(get(FILES_URL + OBJECT_KEY)
+                        .header(HttpHeaders.RANGE, "bytes=" + RANGE_START + "-" + RANGE_END))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE,
+                        "bytes " + RANGE_START + "-" + RANGE_END + "/" + CONTENT_LENGTH))
+                .andExpect(content().bytes(Arrays.copyOfRange(content, RANGE_START, RANGE_END + 1)));
+
+        mvc.perform(get(FILES_URL + OBJECT_KEY)
+                        .header(HttpHeaders.RANGE, "bytes=" + CONTENT_LENGTH + "-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */" + CONTENT_LENGTH));
+    }
+
+    @Test
+    void getFileShouldReturnNotFoundForMissingObject() throws Exception {
+        mvc.perform(get(FILES_URL + MISSING_OBJECT_KEY))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getFileShouldReturnNotFoundForObjectOfNoStoredImage() throws Exception {
+        s3Client.putObject(builder -> builder.bucket(BUCKET_NAME).key(UNCONFIRMED_OBJECT_KEY)
+                        .contentType(MediaType.IMAGE_JPEG_VALUE),
+                RequestBody.fromBytes(content));
+
+        mvc.perform(get(FILES_URL + UNCONFIRMED_OBJECT_KEY))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,108 @@
+package com.innowise.imageservice.integration;
+
+import com.innowise.imageservice.integration.config.IntegrationTestConfig;
+import com.innowise.imageservice.model.Image;
+import com.innowise.imageservice.repository.ImageRepository;
+import com.innowise.imageservice.repository.LikeRepository;
+import com.innowise.imageservice.service.ActivityEventProducer;
+import com.innowise.imageservice.service.ImageService;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@RequiredArgsConstructor
+class LikeConcurrencyIT extends IntegrationTestConfig {
+
+    private static final int THREADS = 16;
+    private static final int USERS = 200;
+    private static final int MAX_TOGGLES_PER_USER = 5;
+    private static final long RANDOM_SEED = 42L;
+
+    private final ImageService imageService;
+    private final ImageRepository imageRepository;
+    private final LikeRepository likeRepository;
+
+    @MockitoBean
+    private ActivityEventProducer activityEventProducer;
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void concurrentLikesFromDistinctUsersShouldAllBeCounted() throws Exception {
+        Long imageId = saveImage();
+
+        List<Callable<Void>> toggles = LongStream.rangeClosed(1, USERS)
+                .mapToObj(userId -> toggle(userId, imageId))
+                .toList();
+        runConcurrently(toggles);
+
+        assertEquals(USERS, imageRepository.findById(imageId).orElseThrow().getLikes());
+        assertEquals(USERS, likeRepository.count());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void concurrentTogglesShouldKeepCounterEqualToLikeRows() throws Exception {
+        Long imageId = saveImage();
+        Random random = new Random(RANDOM_SEED);
+
+        List<Callable<Void>> toggles = new ArrayList<>();
+        for (long userId = 1; userId <= USERS; userId++) {
+            int count = 1 + random.nextInt(MAX_TOGGLES_PER_USER);
+            for (int i = 0; i < count; i++) {
+                toggles.add(toggle(userId, imageId));
+            }
+        }
+        Collections.shuffle(toggles, random);
+        runConcurrently(toggles);
+
+        assertEquals(likeRepository.count(), imageRepository.findById(imageId).orElseThrow().getLikes());
+    }
+
+    private Long saveImage() {
+        return imageRepository.save(Image.builder()
+                .url("concurrency-test.jpg")
+                .uploadedAt(LocalDateTime.now())
+                .likes(0L)
+                .userId(1L)
+                .build()).getId();
+    }
+
+    private Callable<Void> toggle(long userId, Long imageId) {
+        return () -> {
+            imageService.setOrRemoveLike(String.valueOf(userId), imageId);
+            return null;
+        };
+    }
+
+    private static void runConcurrently(List<Callable<Void>> tasks) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            List<Future<Void>> futures = tasks.stream()
+                    .map(task -> executor.submit(() -> {
+                        start.await();
+                        return task.call();
+                    }))
+                    .toList();
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        }
+    }
+}
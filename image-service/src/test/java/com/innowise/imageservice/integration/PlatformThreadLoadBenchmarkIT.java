@@ -0,0 +1,13 @@
+package com.innowise.imageservice.integration;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.threads.virtual.enabled=false")
+class PlatformThreadLoadBenchmarkIT extends ThreadModeLoadBenchmark {
+
+    @Override
+    protected String threadMode() {
+        return "Platform";
+    }
+}
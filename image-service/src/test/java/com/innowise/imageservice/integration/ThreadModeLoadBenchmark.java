@@ -0,0 +1,190 @@
+package com.innowise.imageservice.integration;
+
+import com.innowise.imageservice.dto.UserNamesResponseDto;
+import com.innowise.imageservice.integration.config.IntegrationTestConfig;
+import com.innowise.imageservice.service.ActivityEventProducer;
+import com.innowise.imageservice.service.AuthServiceClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+/**
+ * Drives the running server over HTTP with {@link #CLIENTS} concurrent clients that mix feed page
+ * reads with streaming uploads, then logs the throughput and the p99 latency of both request kinds.
+ * Subclasses start the server with platform or virtual request threads so the two runs compare.
+ * Every upload sends the same image, so after the first one the uploads resolve to the stored
+ * object and measure request body streaming, hashing and the database insert.
+ */
+@Slf4j
+abstract class ThreadModeLoadBenchmark extends IntegrationTestConfig {
+
+    private static final int IMAGES = 5_000;
+    private static final int USERS = 200;
+    private static final int CLIENTS = 1_000;
+    private static final int WARMUP_REQUESTS_PER_CLIENT = 2;
+    private static final int REQUESTS_PER_CLIENT = 10;
+    private static final int UPLOAD_EVERY = 10;
+    private static final int PAGE_SIZE = 20;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofMinutes(2);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    protected MeterRegistry meterRegistry;
+
+    @MockitoBean
+    private AuthServiceClient authServiceClient;
+
+    @MockitoBean
+    private ActivityEventProducer activityEventProducer;
+
+    protected abstract String threadMode();
+
+    protected void verifyRun() throws InterruptedException {
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void feedAndUploadUnderConcurrentLoad() throws Exception {
+        when(authServiceClient.getUserNamesByIds(anyList())).thenReturn(new UserNamesResponseDto(Map.of()));
+        seed();
+        byte[] image = new ClassPathResource("images/test-image.jpg").getContentAsByteArray();
+
+        try (HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build()) {
+            runClients(WARMUP_REQUESTS_PER_CLIENT, (client, request) -> send(httpClient, image, client, request));
+
+            long[] feedLatencies = new long[CLIENTS * REQUESTS_PER_CLIENT];
+            long[] uploadLatencies = new long[CLIENTS * REQUESTS_PER_CLIENT];
+            AtomicInteger feedRequests = new AtomicInteger();
+            AtomicInteger uploadRequests = new AtomicInteger();
+            long startedAt = System.nanoTime();
+            runMeasured(httpClient, image, feedLatencies, feedRequests, uploadLatencies, uploadRequests);
+            double seconds = (System.nanoTime() - startedAt) / 1e9;
+
+            long[] feed = Arrays.copyOf(feedLatencies, feedRequests.get());
+            long[] uploads = Arrays.copyOf(uploadLatencies, uploadRequests.get());
+            log.info("{} threads, {} clients: {} requests/s, feed p99 {} ms over {} requests, "
+                            + "upload p99 {} ms over {} requests",
+                    threadMode(), CLIENTS, Math.round((feed.length + uploads.length) / seconds),
+                    percentile(feed, 0.99), feed.length, percentile(uploads, 0.99), uploads.length);
+        }
+        verifyRun();
+    }
+
+    private void seed() {
+        jdbcTemplate.update("""
+                INSERT INTO gallery.images (url, description, uploaded_at, likes, user_id)
+                SELECT 'load-' || n || '.jpg', 'load', now() - n * interval '1 second', 0, 1 + n % ?
+                FROM generate_series(1, ?) AS n
+                """, USERS, IMAGES);
+        jdbcTemplate.execute("ANALYZE gallery.images");
+    }
+
+    private void runMeasured(HttpClient httpClient, byte[] image,
+                             long[] feedLatencies, AtomicInteger feedRequests,
+                             long[] uploadLatencies, AtomicInteger uploadRequests) throws Exception {
+        runClients(REQUESTS_PER_CLIENT, (client, request) -> {
+            long startedAt = System.nanoTime();
+            boolean upload = send(httpClient, image, client, request);
+            long latency = (System.nanoTime() - startedAt) / 1_000_000;
+            if (upload) {
+                uploadLatencies[uploadRequests.getAndIncrement()] = latency;
+            } else {
+                feedLatencies[feedRequests.getAndIncrement()] = latency;
+            }
+        });
+    }
+
+    private void runClients(int requestsPerClient, ClientRequest clientRequest) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> clients = new ArrayList<>(CLIENTS);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CLIENTS; i++) {
+                int client = i;
+                clients.add(executor.submit(() -> {
+                    start.await();
+                    for (int request = 0; request < requestsPerClient; request++) {
+                        clientRequest.send(client, request);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : clients) {
+                future.get();
+            }
+        }
+    }
+
+    private boolean send(HttpClient httpClient, byte[] image, int client, int request)
+            throws IOException, InterruptedException {
+        long userId = 1 + client % USERS;
+        boolean upload = (client + request) % UPLOAD_EVERY == 0;
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .timeout(REQUEST_TIMEOUT)
+                .header("X-User-Id", String.valueOf(userId));
+        if (upload) {
+            builder.uri(URI.create("http://localhost:" + port + "/api/images/stream?description=load"))
+                    .header("Content-Type", "image/jpeg")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(image));
+        } else {
+            builder.uri(URI.create("http://localhost:" + port + "/api/images?page=" + request % 5
+                            + "&size=" + PAGE_SIZE))
+                    .GET();
+        }
+        HttpResponse<Void> response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.discarding());
+        assertEquals(upload ? 201 : 200, response.statusCode());
+        return upload;
+    }
+
+    protected long pinnedEvents() {
+        Timer pinned = meterRegistry.find("jvm.threads.virtual.pinned").timer();
+        return pinned == null ? 0 : pinned.count();
+    }
+
+    private static long percentile(long[] latencies, double percentile) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(percentile * sorted.length) - 1];
+    }
+
+    @FunctionalInterface
+    private interface ClientRequest {
+        void send(int client, int request) throws Exception;
+    }
+}
@@ -0,0 +1,24 @@
+package com.innowise.imageservice.integration;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.threads.virtual.enabled=true")
+class VirtualThreadLoadBenchmarkIT extends ThreadModeLoadBenchmark {
+
+    private static final long JFR_FLUSH_MILLIS = 2_000;
+
+    @Override
+    protected String threadMode() {
+        return "Virtual";
+    }
+
+    @Override
+    protected void verifyRun() throws InterruptedException {
+        // JFR streams deliver events about once per second
+        Thread.sleep(JFR_FLUSH_MILLIS);
+        assertEquals(0, pinnedEvents(), "Request threads were pinned to their carriers, see the log for stacks");
+    }
+}
@@ -16,6 +16,7 @@ import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
 
 import java.io.IOException;
+import java.nio.file.Path;
 
 import static org.testcontainers.containers.localstack.LocalStackContainer.Service.S3;
 import static org.springframework.test.context.jdbc.Sql.ExecutionPhase.BEFORE_TEST_METHOD;
@@ -25,7 +26,10 @@ import static org.springframework.test.context.jdbc.Sql.ExecutionPhase.BEFORE_TE
         "classpath:db/delete-data.sql"}, executionPhase = BEFORE_TEST_METHOD)
 public abstract class IntegrationTestConfig {
 
-    static final String BUCKET_NAME = "images";
+    protected static final String BUCKET_NAME = "images";
+    private static final String UPLOAD_TOKEN_SECRET = "integration-test-upload-token-secret";
+    private static final Path FILE_CACHE_DIRECTORY = Path.of(System.getProperty("java.io.tmpdir"),
+            "image-file-cache-it-" + ProcessHandle.current().pid());
 
     @Container
     protected static final PostgreSQLContainer<?> postgres =
@@ -49,9 +53,12 @@ public abstract class IntegrationTestConfig {
 
         registry.add("app.bucket", ()->BUCKET_NAME);
         registry.add("aws.s3.endpoint-url", () -> localstack.getEndpointOverride(S3).toString());
+        registry.add("aws.s3.public-url", () -> localstack.getEndpointOverride(S3).toString());
         registry.add("aws.access-key", localstack::getAccessKey);
         registry.add("aws.secret-key", localstack::getSecretKey);
         registry.add("aws.region", localstack::getRegion);
+        registry.add("images.direct-upload.token-secret", () -> UPLOAD_TOKEN_SECRET);
+        registry.add("images.file-cache.directory", () -> FILE_CACHE_DIRECTORY);
     }
 
     @BeforeAll
@@ -0,0 +1,115 @@
+package com.innowise.imageservice.unit.config;
+
+import com.innowise.imageservice.config.ReplicaRoutingDataSource;
+import com.innowise.imageservice.service.ReadReplicas;
+import com.innowise.imageservice.service.ReadYourWritesTracker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+
+    private static final String REPLICA = "replica-0";
+    private static final String OTHER_REPLICA = "replica-1";
+    private static final String USER_ID = "1";
+    private static final String OTHER_USER_ID = "2";
+    private static final Duration STICKY_WINDOW = Duration.ofMinutes(1);
+    private static final long STICKY_MAX_USERS = 100;
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica;
+
+    @Mock
+    private DataSource otherReplica;
+
+    @Mock
+    private ReadReplicas readReplicas;
+
+    private ReadYourWritesTracker readYourWritesTracker;
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() {
+        when(readReplicas.getDataSources()).thenReturn(Map.of(REPLICA, replica, OTHER_REPLICA, otherReplica));
+        readYourWritesTracker = new ReadYourWritesTracker(STICKY_WINDOW, STICKY_MAX_USERS);
+        routingDataSource = new ReplicaRoutingDataSource(primary, readReplicas, readYourWritesTracker);
+        routingDataSource.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        readYourWritesTracker.release();
+    }
+
+    @Test
+    void getConnectionShouldRoundRobinOverHealthyReplicas() throws SQLException {
+        Connection replicaConnection = mock(Connection.class);
+        Connection otherReplicaConnection = mock(Connection.class);
+        when(readReplicas.getHealthy()).thenReturn(List.of(REPLICA, OTHER_REPLICA));
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        when(otherReplica.getConnection()).thenReturn(otherReplicaConnection);
+
+        assertSame(replicaConnection, routingDataSource.getConnection());
+        assertSame(otherReplicaConnection, routingDataSource.getConnection());
+        assertSame(replicaConnection, routingDataSource.getConnection());
+        verifyNoInteractions(primary);
+    }
+
+    @Test
+    void getConnectionShouldUsePrimaryWhenNoReplicaIsHealthy() throws SQLException {
+        Connection primaryConnection = mock(Connection.class);
+        when(readReplicas.getHealthy()).thenReturn(List.of());
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        assertSame(primaryConnection, routingDataSource.getConnection());
+    }
+
+    @Test
+    void getConnectionShouldUsePrimaryWhenPrimaryIsRequired() throws SQLException {
+        Connection primaryConnection = mock(Connection.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        readYourWritesTracker.requirePrimary();
+
+        assertSame(primaryConnection, routingDataSource.getConnection());
+        verifyNoInteractions(replica, otherReplica);
+    }
+
+    @Test
+    void getConnectionShouldFallBackToPrimaryWhenReplicaRefuses() throws SQLException {
+        Connection primaryConnection = mock(Connection.class);
+        when(readReplicas.getHealthy()).thenReturn(List.of(REPLICA));
+        when(replica.getConnection()).thenThrow(new SQLException("Connection refused"));
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        assertSame(primaryConnection, routingDataSource.getConnection());
+    }
+
+    @Test
+    void readYourWritesTrackerShouldRememberOnlyUsersWhoWrote() {
+        readYourWritesTracker.recordWrite(USER_ID);
+
+        assertTrue(readYourWritesTracker.hasRecentWrite(USER_ID));
+        assertFalse(readYourWritesTracker.hasRecentWrite(OTHER_USER_ID));
+    }
+}
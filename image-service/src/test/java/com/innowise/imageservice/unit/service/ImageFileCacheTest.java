@@ -0,0 +1,195 @@
+package com.innowise.imageservice.unit.service;
+
+import com.innowise.imageservice.config.ImageFileCacheProperties;
+import com.innowise.imageservice.exception.ImageNotFoundException;
+import com.innowise.imageservice.service.ImageFileCache;
+import com.innowise.imageservice.service.ImageFileCache.CachedFile;
+import com.innowise.imageservice.service.ImageObjectService;
+import com.innowise.imageservice.service.S3Service;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
+import org.springframework.mock.env.MockEnvironment;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ImageFileCacheTest {
+
+    private static final String KEY = "1/image.jpg";
+    private static final String OTHER_KEY = "1/other.jpg";
+    private static final String CONTENT_TYPE = "image/jpeg";
+    private static final String E_TAG = "\"etag\"";
+    private static final Instant LAST_MODIFIED = Instant.parse("2025-01-01T12:00:00Z");
+    private static final byte[] CONTENT = new byte[100];
+    private static final int CONCURRENT_CALLERS = 8;
+
+    @Mock
+    private S3Service s3Service;
+    @Mock
+    private ImageObjectService imageObjectService;
+
+    @TempDir
+    private Path directory;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ImageFileCacheProperties properties;
+    private ImageFileCache imageFileCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new ImageFileCacheProperties();
+        properties.setDirectory(directory);
+        properties.setDeleteDelay(Duration.ZERO);
+        lenient().when(imageObjectService.isStored(anyString())).thenReturn(true);
+        imageFileCache = new ImageFileCache(s3Service, imageObjectService, properties, meterRegistry,
+                new MockEnvironment());
+    }
+
+    @AfterEach
+    void tearDown() {
+        imageFileCache.shutdown();
+    }
+
+    @Test
+    void get_shouldDownloadOnceAndServeLaterReadsFromDisk() throws Exception {
+        when(s3Service.downloadFile(eq(KEY), any(Path.class))).thenAnswer(download());
+
+        CachedFile first = imageFileCache.get(KEY);
+        CachedFile second = imageFileCache.get(KEY);
+
+        assertEquals(first, second);
+        assertArrayEquals(CONTENT, Files.readAllBytes(first.path()));
+        assertEquals(CONTENT.length, first.size());
+        assertEquals(E_TAG, first.eTag());
+        verify(s3Service, times(1)).downloadFile(eq(KEY), any(Path.class));
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(CONTENT.length, meterRegistry.get("image.file.cache.size").gauge().value());
+    }
+
+    @Test
+    void get_shouldShareOneDownloadBetweenConcurrentMisses() throws Exception {
+        CountDownLatch downloadStarted = new CountDownLatch(1);
+        CountDownLatch releaseDownload = new CountDownLatch(1);
+        Answer<GetObjectResponse> download = download();
+        when(s3Service.downloadFile(eq(KEY), any(Path.class))).thenAnswer(invocation -> {
+            downloadStarted.countDown();
+            releaseDownload.await(5, TimeUnit.SECONDS);
+            return download.answer(invocation);
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_CALLERS);
+        try {
+            List<Future<CachedFile>> callers = new ArrayList<>();
+            callers.add(executor.submit(() -> imageFileCache.get(KEY)));
+            assertTrue(downloadStarted.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i < CONCURRENT_CALLERS; i++) {
+                callers.add(executor.submit(() -> imageFileCache.get(KEY)));
+            }
+            releaseDownload.countDown();
+
+            Path path = callers.getFirst().get(5, TimeUnit.SECONDS).path();
+            for (Future<CachedFile> caller : callers) {
+                assertEquals(path, caller.get(5, TimeUnit.SECONDS).path());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(s3Service, times(1)).downloadFile(anyString(), any(Path.class));
+    }
+
+    @Test
+    void get_shouldNotCacheFailedDownloads() {
+        when(s3Service.downloadFile(eq(KEY), any(Path.class)))
+                .thenThrow(new ImageNotFoundException(S3Service.FILE_NOT_FOUND_EXCEPTION_MESSAGE))
+                .thenAnswer(download());
+
+        assertThrows(ImageNotFoundException.class, () -> imageFileCache.get(KEY));
+        CachedFile file = imageFileCache.get(KEY);
+
+        assertTrue(Files.exists(file.path()));
+        verify(s3Service, times(2)).downloadFile(eq(KEY), any(Path.class));
+    }
+
+    @Test
+    void get_shouldNotDownloadAndRememberKeysOfNoStoredImage() {
+        when(imageObjectService.isStored(KEY)).thenReturn(false);
+
+        assertThrows(ImageNotFoundException.class, () -> imageFileCache.get(KEY));
+        assertThrows(ImageNotFoundException.class, () -> imageFileCache.get(KEY));
+
+        verify(imageObjectService, times(1)).isStored(KEY);
+        verify(s3Service, never()).downloadFile(anyString(), any(Path.class));
+    }
+
+    @Test
+    void constructor_shouldRequireDirectory() {
+        properties.setDirectory(null);
+
+        assertThrows(IllegalStateException.class, () -> new ImageFileCache(s3Service, imageObjectService,
+                properties, meterRegistry, new MockEnvironment()));
+    }
+
+    @Test
+    void get_shouldDeleteFilesOfEvictedEntries() throws Exception {
+        imageFileCache.shutdown();
+        properties.setMaxBytes(CONTENT.length);
+        imageFileCache = new ImageFileCache(s3Service, imageObjectService, properties, meterRegistry,
+                new MockEnvironment());
+        when(s3Service.downloadFile(anyString(), any(Path.class))).thenAnswer(download());
+
+        CachedFile first = imageFileCache.get(KEY);
+        CachedFile second = imageFileCache.get(OTHER_KEY);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (Files.exists(first.path()) && Files.exists(second.path()) && System.nanoTime() < deadline) {
+            imageFileCache.get(OTHER_KEY);
+            Thread.sleep(10);
+        }
+        assertFalse(Files.exists(first.path()) && Files.exists(second.path()));
+    }
+
+    private static Answer<GetObjectResponse> download() {
+        return invocation -> {
+            Files.write(invocation.getArgument(1, Path.class), CONTENT);
+            return GetObjectResponse.builder()
+                    .contentType(CONTENT_TYPE)
+                    .eTag(E_TAG)
+                    .lastModified(LAST_MODIFIED)
+                    .build();
+        };
+    }
+}
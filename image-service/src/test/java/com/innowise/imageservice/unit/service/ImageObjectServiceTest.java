@@ -0,0 +1,59 @@
+package com.innowise.imageservice.unit.service;
+
+import com.innowise.imageservice.repository.ImageObjectRepository;
+import com.innowise.imageservice.service.ImageObjectService;
+import com.innowise.imageservice.service.S3Service;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ImageObjectServiceTest {
+
+    private static final String OBJECT_KEY = "1/photo.jpg";
+    private static final String RENDITION_KEY = "renditions/256/1/photo.jpg";
+    private static final String ORIGINAL_BASE_KEY = "1/photo";
+    private static final String WILDCARD_KEY = "1/%_photo.jpg";
+    private static final String BUCKET_URL = "http://s3/images/";
+
+    @Mock
+    private ImageObjectRepository imageObjectRepository;
+    @Mock
+    private S3Service s3Service;
+
+    @InjectMocks
+    private ImageObjectService imageObjectService;
+
+    @Test
+    void isStored_shouldLookUpObjectKeyExactly() {
+        when(s3Service.generateBucketUrl(OBJECT_KEY)).thenReturn(BUCKET_URL + OBJECT_KEY);
+        when(imageObjectRepository.existsStoredObject(OBJECT_KEY, OBJECT_KEY,
+                BUCKET_URL + OBJECT_KEY, BUCKET_URL + OBJECT_KEY)).thenReturn(true);
+
+        assertTrue(imageObjectService.isStored(OBJECT_KEY));
+    }
+
+    @Test
+    void isStored_shouldLookUpOriginalOfRendition() {
+        when(s3Service.generateBucketUrl(ORIGINAL_BASE_KEY)).thenReturn(BUCKET_URL + ORIGINAL_BASE_KEY);
+        when(imageObjectRepository.existsStoredObject(ORIGINAL_BASE_KEY, ORIGINAL_BASE_KEY + ".%",
+                BUCKET_URL + ORIGINAL_BASE_KEY, BUCKET_URL + ORIGINAL_BASE_KEY + ".%")).thenReturn(true);
+
+        assertTrue(imageObjectService.isStored(RENDITION_KEY));
+    }
+
+    @Test
+    void isStored_shouldEscapeLikeWildcardsInKey() {
+        String escapedKey = "1/\\%\\_photo.jpg";
+        when(s3Service.generateBucketUrl(WILDCARD_KEY)).thenReturn(BUCKET_URL + WILDCARD_KEY);
+        when(imageObjectRepository.existsStoredObject(WILDCARD_KEY, escapedKey,
+                BUCKET_URL + WILDCARD_KEY, BUCKET_URL + escapedKey)).thenReturn(true);
+
+        assertTrue(imageObjectService.isStored(WILDCARD_KEY));
+    }
+}
@@ -0,0 +1,145 @@
+package com.innowise.imageservice.unit.service;
+
+import com.innowise.imageservice.config.RenditionProperties;
+import com.innowise.imageservice.exception.ImageFileOperationException;
+import com.innowise.imageservice.repository.ImageRepository;
+import com.innowise.imageservice.service.ImageRenditionService;
+import com.innowise.imageservice.service.S3Service;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ImageRenditionServiceTest {
+
+    private static final long IMAGE_ID = 1L;
+    private static final String FILENAME = "1/photo.jpg";
+    private static final String IMAGE_CONTENT_TYPE = "image/jpeg";
+    private static final String RENDITION_URL_PREFIX = "url/";
+    private static final int ORIGINAL_WIDTH = 2000;
+    private static final int ORIGINAL_HEIGHT = 1000;
+    private static final long VERIFY_TIMEOUT_MILLIS = 5000;
+    private static final String FAILED_RENDITIONS_METER = "images.renditions.failed";
+
+    @Mock
+    private S3Service s3Service;
+    @Mock
+    private ImageRepository imageRepository;
+
+    private RenditionProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private ImageRenditionService imageRenditionService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RenditionProperties();
+        properties.setRetryDelay(Duration.ofMillis(10));
+        meterRegistry = new SimpleMeterRegistry();
+        imageRenditionService = new ImageRenditionService(s3Service, imageRepository, properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        imageRenditionService.shutdown();
+    }
+
+    @Test
+    void submit_shouldStoreEveryRenditionAndRecordUrls() throws IOException {
+        byte[] original = encodeJpeg(ORIGINAL_WIDTH, ORIGINAL_HEIGHT);
+        when(s3Service.openFile(FILENAME)).thenReturn(new ByteArrayInputStream(original));
+        when(s3Service.uploadBytes(any(byte[].class), anyString(), eq(IMAGE_CONTENT_TYPE)))
+                .thenAnswer(invocation -> RENDITION_URL_PREFIX + invocation.getArgument(1));
+
+        imageRenditionService.submit(IMAGE_ID, FILENAME);
+
+        verify(imageRepository, timeout(VERIFY_TIMEOUT_MILLIS)).updateRenditions(IMAGE_ID,
+                RENDITION_URL_PREFIX + "renditions/256/1/photo.jpg",
+                RENDITION_URL_PREFIX + "renditions/768/1/photo.jpg",
+                RENDITION_URL_PREFIX + "renditions/1600/1/photo.jpg");
+    }
+
+    @Test
+    void submit_shouldRetryFailedRendition() throws IOException {
+        byte[] original = encodeJpeg(properties.getSmallSize(), properties.getSmallSize());
+        when(s3Service.openFile(FILENAME))
+                .thenThrow(new ImageFileOperationException("S3 unavailable", null))
+                .thenReturn(new ByteArrayInputStream(original));
+        when(s3Service.uploadBytes(any(byte[].class), anyString(), eq(IMAGE_CONTENT_TYPE)))
+                .thenAnswer(invocation -> RENDITION_URL_PREFIX + invocation.getArgument(1));
+
+        imageRenditionService.submit(IMAGE_ID, FILENAME);
+
+        String url = RENDITION_URL_PREFIX + "renditions/1600/1/photo.jpg";
+        verify(imageRepository, timeout(VERIFY_TIMEOUT_MILLIS)).updateRenditions(IMAGE_ID, url, url, url);
+    }
+
+    @Test
+    void submit_shouldSkipUndecodableImage() {
+        when(s3Service.openFile(FILENAME)).thenReturn(new ByteArrayInputStream(new byte[]{1, 2, 3}));
+
+        imageRenditionService.submit(IMAGE_ID, FILENAME);
+
+        verify(imageRepository, after(200).never()).updateRenditions(anyLong(), any(), any(), any());
+        verify(s3Service, never()).uploadBytes(any(byte[].class), anyString(), anyString());
+    }
+
+    @Test
+    void submit_shouldGiveUpOnTaskRejectedByFullQueue() throws InterruptedException {
+        properties.setWorkers(1);
+        properties.setQueueCapacity(1);
+        properties.setMaxAttempts(2);
+        imageRenditionService.shutdown();
+        imageRenditionService = new ImageRenditionService(s3Service, imageRepository, properties, meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        when(s3Service.openFile(FILENAME)).thenAnswer(invocation -> {
+            release.await();
+            return new ByteArrayInputStream(new byte[]{1, 2, 3});
+        });
+
+        imageRenditionService.submit(IMAGE_ID, FILENAME);
+        imageRenditionService.submit(IMAGE_ID + 1, FILENAME);
+        imageRenditionService.submit(IMAGE_ID + 2, FILENAME);
+
+        try {
+            long deadline = System.currentTimeMillis() + VERIFY_TIMEOUT_MILLIS;
+            while (meterRegistry.counter(FAILED_RENDITIONS_METER).count() < 1
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, meterRegistry.counter(FAILED_RENDITIONS_METER).count());
+            assertEquals(2, imageRenditionService.getBacklog());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private byte[] encodeJpeg(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", output);
+        return output.toByteArray();
+    }
+}
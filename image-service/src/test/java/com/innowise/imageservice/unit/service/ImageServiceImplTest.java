@@ -1,51 +1,103 @@
 package com.innowise.imageservice.unit.service;
 
+import com.innowise.imageservice.config.ImageImportProperties;
 import com.innowise.imageservice.config.ImageProperties;
+import com.innowise.imageservice.config.LikeCounterProperties;
 import com.innowise.imageservice.dto.CommentRequestDto;
 import com.innowise.imageservice.dto.CommentResponseDto;
+import com.innowise.imageservice.dto.CommentWithOwnersResponseDto;
+import com.innowise.imageservice.dto.ImageImportItemDto;
 import com.innowise.imageservice.dto.ImageRequestDto;
 import com.innowise.imageservice.dto.ImageResponseDto;
 import com.innowise.imageservice.dto.ImageWithLikeByCurrentUserResponseDto;
+import com.innowise.imageservice.dto.KeysetCursor;
+import com.innowise.imageservice.dto.LikeStateResponseDto;
+import com.innowise.imageservice.dto.LikeStatusResponseDto;
 import com.innowise.imageservice.dto.PaginatedSliceResponseDto;
+import com.innowise.imageservice.dto.UploadToken;
 import com.innowise.imageservice.dto.UserNamesResponseDto;
+import com.innowise.imageservice.exception.ImageFileOperationException;
 import com.innowise.imageservice.exception.ImageFileRequiredException;
 import com.innowise.imageservice.exception.ImageNotFoundException;
+import com.innowise.imageservice.exception.InvalidCursorException;
+import com.innowise.imageservice.exception.InvalidImageSizeException;
+import com.innowise.imageservice.exception.InvalidImageTypeException;
+import com.innowise.imageservice.exception.InvalidUploadTokenException;
 import com.innowise.imageservice.exception.OperationNotAllowedException;
 import com.innowise.imageservice.mapper.CommentMapper;
 import com.innowise.imageservice.mapper.ImageMapper;
 import com.innowise.imageservice.model.Comment;
 import com.innowise.imageservice.model.Image;
-import com.innowise.imageservice.model.Like;
 import com.innowise.imageservice.repository.CommentRepository;
 import com.innowise.imageservice.repository.ImageRepository;
+import com.innowise.imageservice.repository.ImageRevision;
 import com.innowise.imageservice.repository.LikeRepository;
-import com.innowise.imageservice.service.AuthServiceClient;
+import com.innowise.imageservice.repository.LikeToggleResult;
+import com.innowise.imageservice.service.ActivityEventProducer;
+import com.innowise.imageservice.service.ImageObjectService;
+import com.innowise.imageservice.service.ImageRenditionService;
+import com.innowise.imageservice.service.LikedImagesCache;
+import com.innowise.imageservice.service.ReadOnlyQueries;
 import com.innowise.imageservice.service.S3Service;
+import com.innowise.imageservice.service.S3StreamingUpload;
+import com.innowise.imageservice.service.UploadTokenService;
+import com.innowise.imageservice.service.UserNameCache;
 import com.innowise.imageservice.service.impl.ImageServiceImpl;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.SliceImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -58,6 +110,7 @@ class ImageServiceImplTest {
     private static final long MAX_FILE_SIZE = 10485760L; // 10 MB
     private static final long VALID_FILE_SIZE = 200_000L; // 200 KB
     private static final long IMAGE_ID = 1L;
+    private static final long SECOND_IMAGE_ID = 2L;
     private static final long COMMENT_ID = 1L;
     private static final long USER_ID_1 = 1L;
     private static final long USER_ID_2 = 2L;
@@ -66,6 +119,7 @@ class ImageServiceImplTest {
     private static final String USER_NAME_STRING = "User";
     private static final boolean LIKED_BY_CURRENT_USER_BOOLEAN = false;
     private static final long ZERO_LIKES = 0L;
+    private static final long ZERO_COMMENTS = 0L;
     private static final long ONE_LIKE = 1L;
     private static final String IMAGE_DESCRIPTION = "description";
     private static final String IMAGE_URL = "url";
@@ -73,12 +127,31 @@ class ImageServiceImplTest {
     private static final String COMMENT_CONTENT = "content";
     private static final String OLD_COMMENT_CONTENT = "old";
     private static final String NEW_COMMENT_CONTENT = "new";
-    private static final String LIKED_RESPONSE = "Liked";
-    private static final String DISLIKED_RESPONSE = "Disliked";
     private static final int PAGE_NUMBER = 0;
     private static final int PAGE_SIZE = 10;
     private static final int SINGLE_ITEM_SIZE = 1;
     private static final LocalDateTime UPLOADED_AT = LocalDateTime.now();
+    private static final String INVALID_CURSOR = "not-a-cursor";
+    private static final String UNSUPPORTED_CONTENT_TYPE = "image/gif";
+    private static final long UNKNOWN_CONTENT_LENGTH = -1L;
+    private static final String CONTENT_HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+    private static final String STORED_OBJECT_KEY = "1/stored.jpg";
+    private static final String UPLOADED_OBJECT_KEY = "1/uploaded.jpg";
+    private static final String UPLOAD_TOKEN = "upload-token";
+    private static final byte[] JPEG_SIGNATURE = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0, 0x10,
+            'J', 'F', 'I', 'F', 0, 1};
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 0, 0, 0, 0x0D};
+    private static final String LARGE_URL = "large-url";
+    private static final int LIKE_SHARDS = 16;
+    private static final String ZIP_CONTENT_TYPE = "application/zip";
+    private static final String TAR_CONTENT_TYPE = "application/x-tar";
+    private static final String FIRST_ARCHIVED_IMAGE = "holiday/first.jpg";
+    private static final String SECOND_ARCHIVED_IMAGE = "holiday/second.jpg";
+    private static final String ARCHIVED_NOTES = "holiday/notes.txt";
+    private static final String ARCHIVED_RESOURCE_FORK = "__MACOSX/holiday/._first.jpg";
+    private static final int IMPORT_PARALLELISM = 2;
+    private static final int IMPORT_BATCH_SIZE = 50;
+    private static final int IMPORT_MAX_ENTRIES = 100;
 
     @Mock
     private ImageRepository imageRepository;
@@ -93,10 +166,30 @@ class ImageServiceImplTest {
     @Mock
     private S3Service s3Service;
     @Mock
-    private AuthServiceClient authServiceClient;
+    private ImageObjectService imageObjectService;
+    @Mock
+    private ImageRenditionService imageRenditionService;
+    @Mock
+    private UserNameCache userNameCache;
+    @Mock
+    private LikedImagesCache likedImagesCache;
+    @Mock
+    private ActivityEventProducer activityEventProducer;
+
+    @Mock
+    private UploadTokenService uploadTokenService;
 
     @Mock
     private ImageProperties imageProperties;
+    @Mock
+    private LikeCounterProperties likeCounterProperties;
+    @Mock
+    private ImageImportProperties imageImportProperties;
+    @Spy
+    private ReadOnlyQueries readOnlyQueries = new ReadOnlyQueries(mock(PlatformTransactionManager.class));
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
 
     @InjectMocks
     private ImageServiceImpl imageService;
@@ -124,7 +217,11 @@ class ImageServiceImplTest {
 
         ImageResponseDto expectedDto = new ImageResponseDto(IMAGE_ID, IMAGE_URL, IMAGE_DESCRIPTION, UPLOADED_AT, ZERO_LIKES, USER_ID_1, USER_NAME_STRING);
 
+        when(imageObjectService.contentHash(file)).thenReturn(CONTENT_HASH);
+        when(imageObjectService.acquireExisting(CONTENT_HASH)).thenReturn(Optional.empty());
         when(s3Service.uploadImage(any(MultipartFile.class), anyString())).thenReturn(IMAGE_URL);
+        when(imageObjectService.register(eq(CONTENT_HASH), anyString()))
+                .thenAnswer(invocation -> invocation.getArgument(1));
         when(imageRepository.save(any(Image.class))).thenReturn(savedImage);
         when(imageMapper.toImageResponseDto(savedImage)).thenReturn(expectedDto);
 
@@ -134,6 +231,58 @@ class ImageServiceImplTest {
         assertEquals(IMAGE_URL, result.getUrl());
         verify(s3Service).uploadImage(any(MultipartFile.class), anyString());
         verify(imageRepository).save(any(Image.class));
+        verify(imageRenditionService).submit(eq(IMAGE_ID), anyString());
+    }
+
+    @Test
+    void upload_shouldReuseStoredObjectForDuplicateContent() {
+        MultipartFile file = mock(MultipartFile.class);
+        when(imageProperties.getMinBytes()).thenReturn(MIN_FILE_SIZE);
+        when(imageProperties.getMaxBytes()).thenReturn(MAX_FILE_SIZE);
+        when(file.isEmpty()).thenReturn(false);
+        when(file.getSize()).thenReturn(VALID_FILE_SIZE);
+        when(file.getContentType()).thenReturn(IMAGE_CONTENT_TYPE);
+
+        Image duplicate = Image.builder().id(IMAGE_ID).largeUrl(LARGE_URL).build();
+        Image savedImage = Image.builder().id(IMAGE_ID + 1).url(IMAGE_URL).largeUrl(LARGE_URL).build();
+        ImageResponseDto expectedDto = new ImageResponseDto(IMAGE_ID + 1, IMAGE_URL, IMAGE_DESCRIPTION, UPLOADED_AT,
+                ZERO_LIKES, USER_ID_1, USER_NAME_STRING);
+
+        when(imageObjectService.contentHash(file)).thenReturn(CONTENT_HASH);
+        when(imageObjectService.acquireExisting(CONTENT_HASH)).thenReturn(Optional.of(STORED_OBJECT_KEY));
+        when(s3Service.generateImageUrl(STORED_OBJECT_KEY)).thenReturn(IMAGE_URL);
+        when(imageRepository.findFirstByContentHashAndLargeUrlIsNotNull(CONTENT_HASH))
+                .thenReturn(Optional.of(duplicate));
+        when(imageRepository.save(any(Image.class))).thenReturn(savedImage);
+        when(imageMapper.toImageResponseDto(savedImage)).thenReturn(expectedDto);
+
+        ImageResponseDto result = imageService.upload(USER_ID_1_STRING, new ImageRequestDto(IMAGE_DESCRIPTION), file);
+
+        assertEquals(expectedDto, result);
+        verify(s3Service, never()).uploadImage(any(MultipartFile.class), anyString());
+        verify(imageRepository).save(argThat(image ->
+                CONTENT_HASH.equals(image.getContentHash()) && LARGE_URL.equals(image.getLargeUrl())));
+        verify(imageRenditionService, never()).submit(any(), anyString());
+    }
+
+    @Test
+    void upload_shouldReleaseStoredObjectIfSaveFails() {
+        MultipartFile file = mock(MultipartFile.class);
+        when(imageProperties.getMinBytes()).thenReturn(MIN_FILE_SIZE);
+        when(imageProperties.getMaxBytes()).thenReturn(MAX_FILE_SIZE);
+        when(file.isEmpty()).thenReturn(false);
+        when(file.getSize()).thenReturn(VALID_FILE_SIZE);
+        when(file.getContentType()).thenReturn(IMAGE_CONTENT_TYPE);
+
+        when(imageObjectService.contentHash(file)).thenReturn(CONTENT_HASH);
+        when(imageObjectService.acquireExisting(CONTENT_HASH)).thenReturn(Optional.of(STORED_OBJECT_KEY));
+        when(imageRepository.save(any(Image.class))).thenThrow(new IllegalStateException("db down"));
+
+        assertThrows(IllegalStateException.class,
+                () -> imageService.upload(USER_ID_1_STRING, new ImageRequestDto(IMAGE_DESCRIPTION), file));
+
+        verify(imageObjectService).release(CONTENT_HASH);
+        verify(s3Service, never()).deleteFile(anyString());
     }
 
     @Test
@@ -148,13 +297,11 @@ class ImageServiceImplTest {
 
     @Test
     void getById_shouldReturnImage() {
-        ImageWithLikeByCurrentUserResponseDto imageWithLikeDto = new ImageWithLikeByCurrentUserResponseDto(
-                IMAGE_ID, IMAGE_URL, SHORT_DESCRIPTION, UPLOADED_AT, ZERO_LIKES,
-                LIKED_BY_CURRENT_USER_BOOLEAN, USER_NAME_STRING, USER_ID_1);
+        ImageWithLikeByCurrentUserResponseDto imageWithLikeDto = createImageWithLikeDto();
 
         when(imageRepository.findWithLikeByCurrentUserId(USER_ID_1, IMAGE_ID))
                 .thenReturn(Optional.of(imageWithLikeDto));
-        when(authServiceClient.getUserNamesByIds(List.of(USER_ID_1)))
+        when(userNameCache.getUserNamesByIds(List.of(USER_ID_1)))
                 .thenReturn(new com.innowise.imageservice.dto.UserNamesResponseDto(Map.of(USER_ID_1, USER_NAME_STRING)));
 
         ImageWithLikeByCurrentUserResponseDto result = imageService.getById(USER_ID_1_STRING, IMAGE_ID);
@@ -169,33 +316,91 @@ class ImageServiceImplTest {
         assertThrows(ImageNotFoundException.class, () -> imageService.getById(USER_ID_1_STRING, IMAGE_ID));
     }
 
+    @Test
+    void getByIds_shouldReturnImagesInRequestOrderWithOwnerNames() {
+        ImageWithLikeByCurrentUserResponseDto first = createImageWithLikeDto();
+        ImageWithLikeByCurrentUserResponseDto second = createImageWithLikeDto();
+        second.setId(SECOND_IMAGE_ID);
+
+        when(imageRepository.findAllWithLikeByCurrentUserIdAndIdIn(USER_ID_1, List.of(SECOND_IMAGE_ID, IMAGE_ID)))
+                .thenReturn(List.of(first, second));
+        when(userNameCache.getUserNamesByIds(List.of(USER_ID_1)))
+                .thenReturn(new UserNamesResponseDto(Map.of(USER_ID_1, USER_NAME_STRING)));
+
+        List<ImageWithLikeByCurrentUserResponseDto> result = imageService.getByIds(USER_ID_1_STRING,
+                List.of(SECOND_IMAGE_ID, IMAGE_ID, SECOND_IMAGE_ID));
+
+        assertEquals(List.of(SECOND_IMAGE_ID, IMAGE_ID),
+                result.stream().map(ImageWithLikeByCurrentUserResponseDto::getId).toList());
+        assertEquals(USER_NAME_STRING, result.getFirst().getUserName());
+    }
+
+    @Test
+    void getLikeStatuses_shouldSkipUnknownImages() {
+        LikeStatusResponseDto status = new LikeStatusResponseDto(IMAGE_ID, true, ONE_LIKE);
+        when(imageRepository.findLikeStatuses(USER_ID_1, List.of(IMAGE_ID, SECOND_IMAGE_ID)))
+                .thenReturn(List.of(status));
+
+        List<LikeStatusResponseDto> result = imageService.getLikeStatuses(USER_ID_1_STRING,
+                List.of(IMAGE_ID, SECOND_IMAGE_ID));
+
+        assertEquals(List.of(status), result);
+        verify(userNameCache, never()).getUserNamesByIds(anyList());
+    }
+
     @Test
     void setOrRemoveLike_shouldAddLike() {
-        Image image = Image.builder().id(IMAGE_ID).likes(ZERO_LIKES).userId(USER_ID_1).build();
-        when(imageRepository.findById(IMAGE_ID)).thenReturn(Optional.of(image));
-        when(likeRepository.findByUserIdAndImageId(USER_ID_1, IMAGE_ID)).thenReturn(Optional.empty());
-        when(likeRepository.save(any(Like.class))).thenReturn(new Like());
-        when(imageRepository.save(image)).thenReturn(image);
+        when(likeRepository.toggle(eq(USER_ID_1), eq(IMAGE_ID), any(LocalDateTime.class)))
+                .thenReturn(Optional.of(toggleResult(true, ONE_LIKE, true)));
 
-        String result = imageService.setOrRemoveLike(USER_ID_1_STRING, IMAGE_ID);
+        LikeStateResponseDto result = imageService.setOrRemoveLike(USER_ID_1_STRING, IMAGE_ID);
 
-        assertEquals(LIKED_RESPONSE, result);
-        assertEquals(ONE_LIKE, image.getLikes());
+        assertEquals(new LikeStateResponseDto(true, ONE_LIKE), result);
+        verify(activityEventProducer).sendAddLikeEvent(USER_ID_1, IMAGE_ID);
+        verify(likedImagesCache).onLikeToggled(USER_ID_1, IMAGE_ID, true);
     }
 
     @Test
     void setOrRemoveLike_shouldRemoveLike() {
-        Image image = Image.builder().id(IMAGE_ID).likes(ONE_LIKE).userId(USER_ID_1).build();
-        Like like = new Like();
-        when(imageRepository.findById(IMAGE_ID)).thenReturn(Optional.of(image));
-        when(likeRepository.findByUserIdAndImageId(USER_ID_1, IMAGE_ID)).thenReturn(Optional.of(like));
-        doNothing().when(likeRepository).delete(like);
-        when(imageRepository.save(image)).thenReturn(image);
+        when(likeRepository.toggle(eq(USER_ID_1), eq(IMAGE_ID), any(LocalDateTime.class)))
+                .thenReturn(Optional.of(toggleResult(false, ZERO_LIKES, true)));
+
+        LikeStateResponseDto result = imageService.setOrRemoveLike(USER_ID_1_STRING, IMAGE_ID);
+
+        assertEquals(new LikeStateResponseDto(false, ZERO_LIKES), result);
+        verify(activityEventProducer).sendRemoveLikeEvent(USER_ID_1, IMAGE_ID);
+    }
+
+    @Test
+    void setOrRemoveLike_shouldUseShardedCounterWhenEnabled() {
+        when(likeCounterProperties.isSharded()).thenReturn(true);
+        when(likeCounterProperties.getShards()).thenReturn(LIKE_SHARDS);
+        when(likeRepository.toggleSharded(eq(USER_ID_1), eq(IMAGE_ID), anyInt(), any(LocalDateTime.class)))
+                .thenReturn(Optional.of(toggleResult(true, ONE_LIKE, true)));
+
+        LikeStateResponseDto result = imageService.setOrRemoveLike(USER_ID_1_STRING, IMAGE_ID);
+
+        assertEquals(new LikeStateResponseDto(true, ONE_LIKE), result);
+        verify(likeRepository, never()).toggle(anyLong(), anyLong(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void setOrRemoveLike_shouldNotPublishEventIfNothingChanged() {
+        when(likeRepository.toggle(eq(USER_ID_1), eq(IMAGE_ID), any(LocalDateTime.class)))
+                .thenReturn(Optional.of(toggleResult(true, ONE_LIKE, false)));
+
+        LikeStateResponseDto result = imageService.setOrRemoveLike(USER_ID_1_STRING, IMAGE_ID);
+
+        assertEquals(new LikeStateResponseDto(true, ONE_LIKE), result);
+        verify(activityEventProducer, never()).sendAddLikeEvent(anyLong(), anyLong());
+    }
 
-        String result = imageService.setOrRemoveLike(USER_ID_1_STRING, IMAGE_ID);
+    @Test
+    void setOrRemoveLike_shouldThrowIfImageNotFound() {
+        when(likeRepository.toggle(eq(USER_ID_1), eq(IMAGE_ID), any(LocalDateTime.class)))
+                .thenReturn(Optional.empty());
 
-        assertEquals(DISLIKED_RESPONSE, result);
-        assertEquals(ZERO_LIKES, image.getLikes());
+        assertThrows(ImageNotFoundException.class, () -> imageService.setOrRemoveLike(USER_ID_1_STRING, IMAGE_ID));
     }
 
     @Test
@@ -208,18 +413,53 @@ class ImageServiceImplTest {
         when(imageRepository.findById(IMAGE_ID)).thenReturn(Optional.of(image));
         when(commentRepository.save(any(Comment.class))).thenReturn(comment);
         when(commentMapper.toCommentResponseDto(comment)).thenReturn(dto);
-        when(authServiceClient.getUserNamesByIds(List.of(USER_ID_1)))
-                .thenReturn(new com.innowise.imageservice.dto.UserNamesResponseDto(Map.of(USER_ID_1, USER_NAME_STRING)));
+        when(userNameCache.getUserNamesByIdsAsync(List.of(USER_ID_1)))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new com.innowise.imageservice.dto.UserNamesResponseDto(Map.of(USER_ID_1, USER_NAME_STRING))));
 
         CommentResponseDto result = imageService.addComment(USER_ID_1_STRING, IMAGE_ID, requestDto);
 
         assertEquals(dto, result);
+        verify(imageRepository).addToCommentsCount(IMAGE_ID, 1);
+    }
+
+    @Test
+    void addComment_shouldAwaitUserNameAfterCommit() {
+        Image image = Image.builder().id(IMAGE_ID).build();
+        Comment comment = Comment.builder().id(COMMENT_ID).build();
+        CommentResponseDto dto = new CommentResponseDto(COMMENT_ID, COMMENT_CONTENT, UPLOADED_AT, USER_ID_1, IMAGE_ID, null);
+        AtomicBoolean committed = new AtomicBoolean();
+        AtomicBoolean awaitedBeforeCommit = new AtomicBoolean();
+        CompletableFuture<UserNamesResponseDto> userNames = new CompletableFuture<>() {
+            @Override
+            public UserNamesResponseDto join() {
+                awaitedBeforeCommit.compareAndSet(false, !committed.get());
+                return super.join();
+            }
+        };
+        userNames.complete(new UserNamesResponseDto(Map.of(USER_ID_1, USER_NAME_STRING)));
+
+        when(imageRepository.findById(IMAGE_ID)).thenReturn(Optional.of(image));
+        when(commentRepository.save(any(Comment.class))).thenReturn(comment);
+        when(commentMapper.toCommentResponseDto(comment)).thenReturn(dto);
+        when(userNameCache.getUserNamesByIdsAsync(List.of(USER_ID_1))).thenReturn(userNames);
+        doAnswer(invocation -> {
+            committed.set(true);
+            return null;
+        }).when(transactionManager).commit(any());
+
+        CommentResponseDto result = imageService.addComment(USER_ID_1_STRING, IMAGE_ID,
+                new CommentRequestDto(COMMENT_CONTENT));
+
+        assertTrue(committed.get());
+        assertFalse(awaitedBeforeCommit.get());
+        assertEquals(USER_NAME_STRING, result.getUserName());
     }
 
     @Test
     void deleteComment_shouldDelete() {
         Image image = Image.builder().id(IMAGE_ID).userId(USER_ID_1).build();
-        Comment comment = Comment.builder().id(COMMENT_ID).userId(USER_ID_1).build();
+        Comment comment = Comment.builder().id(COMMENT_ID).userId(USER_ID_1).image(image).build();
 
         when(commentRepository.findById(COMMENT_ID)).thenReturn(Optional.of(comment));
         when(imageRepository.findById(IMAGE_ID)).thenReturn(Optional.of(image));
@@ -227,6 +467,7 @@ class ImageServiceImplTest {
 
         assertDoesNotThrow(() -> imageService.deleteComment(USER_ID_1_STRING, IMAGE_ID, COMMENT_ID));
         verify(commentRepository).delete(comment);
+        verify(imageRepository).addToCommentsCount(IMAGE_ID, -1);
     }
 
     @Test
@@ -241,6 +482,7 @@ class ImageServiceImplTest {
                 () -> imageService.deleteComment(USER_ID_3_STRING, IMAGE_ID, COMMENT_ID));
 
         verify(commentRepository, never()).delete(any());
+        verify(imageRepository, never()).addToCommentsCount(anyLong(), anyLong());
     }
 
     @Test
@@ -276,20 +518,18 @@ class ImageServiceImplTest {
 
     @Test
     void getAllByUserId_shouldReturnSlice() {
-        ImageWithLikeByCurrentUserResponseDto dto = new ImageWithLikeByCurrentUserResponseDto(
-                IMAGE_ID, IMAGE_URL, SHORT_DESCRIPTION, UPLOADED_AT, ZERO_LIKES,
-                LIKED_BY_CURRENT_USER_BOOLEAN, USER_NAME_STRING, USER_ID_1);
+        ImageWithLikeByCurrentUserResponseDto dto = createImageWithLikeDto();
 
         Slice<ImageWithLikeByCurrentUserResponseDto> slice =
                 new SliceImpl<>(List.of(dto));
 
         when(imageRepository.findAllByOwnerIdWithLikeFlag(USER_ID_1, PageRequest.of(PAGE_NUMBER, PAGE_SIZE)))
                 .thenReturn(slice);
-        when(authServiceClient.getUserNamesByIds(List.of(USER_ID_1)))
+        when(userNameCache.getUserNamesByIds(List.of(USER_ID_1)))
                 .thenReturn(new UserNamesResponseDto(Map.of(USER_ID_1, USER_NAME_STRING)));
 
         PaginatedSliceResponseDto<ImageWithLikeByCurrentUserResponseDto> result =
-                imageService.getAllByUserId(USER_ID_1_STRING, PAGE_NUMBER, PAGE_SIZE);
+                imageService.getAllByUserId(USER_ID_1_STRING, PAGE_NUMBER, PAGE_SIZE, null);
 
         assertEquals(SINGLE_ITEM_SIZE, result.getContent().size());
         assertEquals(USER_NAME_STRING, result.getContent().getFirst().getUserName());
@@ -297,22 +537,484 @@ class ImageServiceImplTest {
 
     @Test
     void getAll_shouldReturnSlice() {
-        ImageWithLikeByCurrentUserResponseDto dto = new ImageWithLikeByCurrentUserResponseDto(
-                IMAGE_ID, IMAGE_URL, SHORT_DESCRIPTION, UPLOADED_AT, ZERO_LIKES,
-                LIKED_BY_CURRENT_USER_BOOLEAN, USER_NAME_STRING, USER_ID_1);
+        ImageWithLikeByCurrentUserResponseDto dto = createImageWithLikeDto();
 
         Slice<ImageWithLikeByCurrentUserResponseDto> slice =
                 new SliceImpl<>(List.of(dto));
 
         when(imageRepository.findAllWithLikeFlag(USER_ID_1, PageRequest.of(PAGE_NUMBER, PAGE_SIZE)))
                 .thenReturn(slice);
-        when(authServiceClient.getUserNamesByIds(List.of(USER_ID_1)))
+        when(userNameCache.getUserNamesByIds(List.of(USER_ID_1)))
                 .thenReturn(new UserNamesResponseDto(Map.of(USER_ID_1, USER_NAME_STRING)));
 
         PaginatedSliceResponseDto<ImageWithLikeByCurrentUserResponseDto> result =
-                imageService.getAll(USER_ID_1_STRING, PAGE_NUMBER, PAGE_SIZE);
+                imageService.getAll(USER_ID_1_STRING, PAGE_NUMBER, PAGE_SIZE, null);
 
         assertEquals(SINGLE_ITEM_SIZE, result.getContent().size());
         assertEquals(USER_NAME_STRING, result.getContent().getFirst().getUserName());
     }
+
+    @Test
+    void getAll_shouldSetLikeFlagFromLikedImagesCache() {
+        ImageWithLikeByCurrentUserResponseDto dto = createImageWithLikeDto();
+        Roaring64Bitmap likedImageIds = new Roaring64Bitmap();
+        likedImageIds.addLong(IMAGE_ID);
+
+        when(likedImagesCache.isEnabled()).thenReturn(true);
+        when(imageRepository.findAllWithoutLikeFlag(PageRequest.of(PAGE_NUMBER, PAGE_SIZE)))
+                .thenReturn(new SliceImpl<>(List.of(dto)));
+        when(likedImagesCache.getLikedImageIdsAsync(USER_ID_1))
+                .thenReturn(CompletableFuture.completedFuture(likedImageIds));
+        when(likedImagesCache.await(any())).thenReturn(Optional.of(likedImageIds));
+        when(userNameCache.getUserNamesByIds(List.of(USER_ID_1)))
+                .thenReturn(new UserNamesResponseDto(Map.of(USER_ID_1, USER_NAME_STRING)));
+
+        PaginatedSliceResponseDto<ImageWithLikeByCurrentUserResponseDto> result =
+                imageService.getAll(USER_ID_1_STRING, PAGE_NUMBER, PAGE_SIZE, null);
+
+        assertTrue(result.getContent().getFirst().isLikedByCurrentUser());
+        verify(imageRepository, never()).findAllWithLikeFlag(anyLong(), any());
+    }
+
+    @Test
+    void getAll_shouldQueryLikeFlagsIfBitmapLoadTimesOut() {
+        ImageWithLikeByCurrentUserResponseDto dto = createImageWithLikeDto();
+
+        when(likedImagesCache.isEnabled()).thenReturn(true);
+        when(imageRepository.findAllWithoutLikeFlag(PageRequest.of(PAGE_NUMBER, PAGE_SIZE)))
+                .thenReturn(new SliceImpl<>(List.of(dto)));
+        when(likedImagesCache.getLikedImageIdsAsync(USER_ID_1)).thenReturn(new CompletableFuture<>());
+        when(likedImagesCache.await(any())).thenReturn(Optional.empty());
+        when(imageRepository.findLikeStatuses(USER_ID_1, List.of(IMAGE_ID)))
+                .thenReturn(List.of(new LikeStatusResponseDto(IMAGE_ID, true, ZERO_LIKES)));
+        when(userNameCache.getUserNamesByIds(List.of(USER_ID_1)))
+                .thenReturn(new UserNamesResponseDto(Map.of(USER_ID_1, USER_NAME_STRING)));
+
+        PaginatedSliceResponseDto<ImageWithLikeByCurrentUserResponseDto> result =
+                imageService.getAll(USER_ID_1_STRING, PAGE_NUMBER, PAGE_SIZE, null);
+
+        assertTrue(result.getContent().getFirst().isLikedByCurrentUser());
+        verify(imageRepository, never()).findAllWithLikeFlag(anyLong(), any());
+    }
+
+    @Test
+    void getAll_shouldSeekByCursorAndReturnNextCursor() {
+        ImageWithLikeByCurrentUserResponseDto dto = createImageWithLikeDto();
+        KeysetCursor cursor = new KeysetCursor(UPLOADED_AT.plusSeconds(1), IMAGE_ID + 1);
+
+        Slice<ImageWithLikeByCurrentUserResponseDto> slice =
+                new SliceImpl<>(List.of(dto), PageRequest.of(PAGE_NUMBER, SINGLE_ITEM_SIZE), true);
+
+        when(imageRepository.findAllWithLikeFlagAfter(USER_ID_1, cursor.timestamp(), cursor.id(),
+                PageRequest.of(PAGE_NUMBER, SINGLE_ITEM_SIZE)))
+                .thenReturn(slice);
+        when(userNameCache.getUserNamesByIds(List.of(USER_ID_1)))
+                .thenReturn(new UserNamesResponseDto(Map.of(USER_ID_1, USER_NAME_STRING)));
+
+        PaginatedSliceResponseDto<ImageWithLikeByCurrentUserResponseDto> result =
+                imageService.getAll(USER_ID_1_STRING, PAGE_NUMBER, SINGLE_ITEM_SIZE, cursor.encode());
+
+        assertEquals(SINGLE_ITEM_SIZE, result.getContent().size());
+        assertEquals(new KeysetCursor(UPLOADED_AT, IMAGE_ID), KeysetCursor.decode(result.getNextCursor()));
+        verify(imageRepository, never()).findAllWithLikeFlag(anyLong(), any());
+    }
+
+    @Test
+    void getAllByUserId_shouldNotReturnCursorOnLastPage() {
+        ImageWithLikeByCurrentUserResponseDto dto = createImageWithLikeDto();
+        KeysetCursor cursor = new KeysetCursor(UPLOADED_AT.plusSeconds(1), IMAGE_ID + 1);
+
+        when(imageRepository.findAllByOwnerIdWithLikeFlagAfter(USER_ID_1, cursor.timestamp(), cursor.id(),
+                PageRequest.of(PAGE_NUMBER, PAGE_SIZE)))
+                .thenReturn(new SliceImpl<>(List.of(dto)));
+        when(userNameCache.getUserNamesByIds(List.of(USER_ID_1)))
+                .thenReturn(new UserNamesResponseDto(Map.of(USER_ID_1, USER_NAME_STRING)));
+
+        PaginatedSliceResponseDto<ImageWithLikeByCurrentUserResponseDto> result =
+                imageService.getAllByUserId(USER_ID_1_STRING, PAGE_NUMBER, PAGE_SIZE, cursor.encode());
+
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void getImageETag_shouldChangeWithRevisionAndUser() {
+        when(imageRepository.findRevision(IMAGE_ID)).thenReturn(Optional.of(3L), Optional.of(3L), Optional.of(4L));
+
+        String eTag = imageService.getImageETag(USER_ID_1_STRING, IMAGE_ID);
+
+        assertNotEquals(eTag, imageService.getImageETag(USER_ID_3_STRING, IMAGE_ID));
+        assertNotEquals(eTag, imageService.getImageETag(USER_ID_1_STRING, IMAGE_ID));
+    }
+
+    @Test
+    void getImageETag_shouldThrowIfImageNotFound() {
+        when(imageRepository.findRevision(IMAGE_ID)).thenReturn(Optional.empty());
+
+        assertThrows(ImageNotFoundException.class, () -> imageService.getImageETag(USER_ID_1_STRING, IMAGE_ID));
+    }
+
+    @Test
+    void getFeedETag_shouldChangeWhenAnImageOnThePageChanges() {
+        PageRequest pageRequest = PageRequest.of(PAGE_NUMBER, PAGE_SIZE);
+        when(imageRepository.findFeedRevisions(pageRequest)).thenReturn(
+                new SliceImpl<>(List.of(new ImageRevision(IMAGE_ID, 1L), new ImageRevision(IMAGE_ID + 1, 1L))),
+                new SliceImpl<>(List.of(new ImageRevision(IMAGE_ID, 1L), new ImageRevision(IMAGE_ID + 1, 1L))),
+                new SliceImpl<>(List.of(new ImageRevision(IMAGE_ID, 1L), new ImageRevision(IMAGE_ID + 1, 2L))));
+
+        String eTag = imageService.getFeedETag(USER_ID_1_STRING, PAGE_NUMBER, PAGE_SIZE);
+
+        assertEquals(eTag, imageService.getFeedETag(USER_ID_1_STRING, PAGE_NUMBER, PAGE_SIZE));
+        assertNotEquals(eTag, imageService.getFeedETag(USER_ID_1_STRING, PAGE_NUMBER, PAGE_SIZE));
+        verify(imageRepository, never()).findAllWithLikeFlag(anyLong(), any());
+    }
+
+    @Test
+    void getFeedETag_shouldChangeWhenCachedLikeFlagChanges() {
+        PageRequest pageRequest = PageRequest.of(PAGE_NUMBER, PAGE_SIZE);
+        Roaring64Bitmap liked = new Roaring64Bitmap();
+        liked.addLong(IMAGE_ID);
+        when(likedImagesCache.isEnabled()).thenReturn(true);
+        when(likedImagesCache.getLikedImageIdsAsync(USER_ID_1))
+                .thenReturn(CompletableFuture.completedFuture(new Roaring64Bitmap()));
+        when(likedImagesCache.await(any())).thenReturn(Optional.of(new Roaring64Bitmap()), Optional.of(liked));
+        when(imageRepository.findFeedRevisions(pageRequest)).thenReturn(
+                new SliceImpl<>(List.of(new ImageRevision(IMAGE_ID, 1L))));
+
+        String eTag = imageService.getFeedETag(USER_ID_1_STRING, PAGE_NUMBER, PAGE_SIZE);
+
+        assertNotEquals(eTag, imageService.getFeedETag(USER_ID_1_STRING, PAGE_NUMBER, PAGE_SIZE));
+    }
+
+    @Test
+    void getAllCommentsByImageId_shouldSeekByCursorAndReturnNextCursor() {
+        CommentWithOwnersResponseDto comment = new CommentWithOwnersResponseDto(
+                COMMENT_ID, COMMENT_CONTENT, UPLOADED_AT, USER_ID_1, IMAGE_ID, true, null);
+        KeysetCursor cursor = new KeysetCursor(UPLOADED_AT.plusSeconds(1), COMMENT_ID + 1);
+
+        when(commentRepository.findAllByImageIdWithOwnerAfter(IMAGE_ID, USER_ID_1, cursor.timestamp(), cursor.id(),
+                PageRequest.of(PAGE_NUMBER, SINGLE_ITEM_SIZE)))
+                .thenReturn(new SliceImpl<>(List.of(comment), PageRequest.of(PAGE_NUMBER, SINGLE_ITEM_SIZE), true));
+        when(userNameCache.getUserNamesByIds(List.of(USER_ID_1)))
+                .thenReturn(new UserNamesResponseDto(Map.of(USER_ID_1, USER_NAME_STRING)));
+
+        PaginatedSliceResponseDto<CommentWithOwnersResponseDto> result = imageService.getAllCommentsByImageId(
+                IMAGE_ID, USER_ID_1_STRING, PAGE_NUMBER, SINGLE_ITEM_SIZE, cursor.encode());
+
+        assertEquals(USER_NAME_STRING, result.getContent().getFirst().getOwnerName());
+        assertEquals(new KeysetCursor(UPLOADED_AT, COMMENT_ID), KeysetCursor.decode(result.getNextCursor()));
+        verify(commentRepository, never()).findAllByImageIdWithOwner(anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void getAll_shouldThrowIfCursorInvalid() {
+        assertThrows(InvalidCursorException.class,
+                () -> imageService.getAll(USER_ID_1_STRING, PAGE_NUMBER, PAGE_SIZE, INVALID_CURSOR));
+    }
+
+    @Test
+    void uploadStream_shouldCompleteUploadAndSaveImage() throws IOException {
+        S3StreamingUpload streamingUpload = mock(S3StreamingUpload.class);
+        InputStream imageStream = new ByteArrayInputStream(new byte[0]);
+        Image savedImage = Image.builder().id(IMAGE_ID).url(IMAGE_URL).userId(USER_ID_1).build();
+        ImageResponseDto expectedDto = new ImageResponseDto(IMAGE_ID, IMAGE_URL, IMAGE_DESCRIPTION, UPLOADED_AT,
+                ZERO_LIKES, USER_ID_1, USER_NAME_STRING);
+
+        when(imageProperties.getMinBytes()).thenReturn(MIN_FILE_SIZE);
+        when(imageProperties.getMaxBytes()).thenReturn(MAX_FILE_SIZE);
+        when(s3Service.startStreamingUpload(anyString(), eq(IMAGE_CONTENT_TYPE))).thenReturn(streamingUpload);
+        when(streamingUpload.transferFrom(imageStream, MAX_FILE_SIZE)).thenReturn(VALID_FILE_SIZE);
+        when(streamingUpload.getContentHash()).thenReturn(CONTENT_HASH);
+        when(imageObjectService.acquireExisting(CONTENT_HASH)).thenReturn(Optional.empty());
+        when(imageObjectService.register(eq(CONTENT_HASH), anyString()))
+                .thenAnswer(invocation -> invocation.getArgument(1));
+        when(s3Service.generateImageUrl(anyString())).thenReturn(IMAGE_URL);
+        when(imageRepository.save(any(Image.class))).thenReturn(savedImage);
+        when(imageMapper.toImageResponseDto(savedImage)).thenReturn(expectedDto);
+
+        ImageResponseDto result = imageService.uploadStream(USER_ID_1_STRING, IMAGE_DESCRIPTION,
+                IMAGE_CONTENT_TYPE, UNKNOWN_CONTENT_LENGTH, imageStream);
+
+        assertEquals(expectedDto, result);
+        verify(streamingUpload).complete();
+        verify(streamingUpload, never()).abort();
+    }
+
+    @Test
+    void uploadStream_shouldAbortAndReuseStoredObjectForDuplicateContent() throws IOException {
+        S3StreamingUpload streamingUpload = mock(S3StreamingUpload.class);
+        InputStream imageStream = new ByteArrayInputStream(new byte[0]);
+        Image savedImage = Image.builder().id(IMAGE_ID).url(IMAGE_URL).userId(USER_ID_1).build();
+        ImageResponseDto expectedDto = new ImageResponseDto(IMAGE_ID, IMAGE_URL, IMAGE_DESCRIPTION, UPLOADED_AT,
+                ZERO_LIKES, USER_ID_1, USER_NAME_STRING);
+
+        when(imageProperties.getMinBytes()).thenReturn(MIN_FILE_SIZE);
+        when(imageProperties.getMaxBytes()).thenReturn(MAX_FILE_SIZE);
+        when(s3Service.startStreamingUpload(anyString(), eq(IMAGE_CONTENT_TYPE))).thenReturn(streamingUpload);
+        when(streamingUpload.transferFrom(imageStream, MAX_FILE_SIZE)).thenReturn(VALID_FILE_SIZE);
+        when(streamingUpload.getContentHash()).thenReturn(CONTENT_HASH);
+        when(imageObjectService.acquireExisting(CONTENT_HASH)).thenReturn(Optional.of(STORED_OBJECT_KEY));
+        when(s3Service.generateImageUrl(STORED_OBJECT_KEY)).thenReturn(IMAGE_URL);
+        when(imageRepository.save(any(Image.class))).thenReturn(savedImage);
+        when(imageMapper.toImageResponseDto(savedImage)).thenReturn(expectedDto);
+
+        ImageResponseDto result = imageService.uploadStream(USER_ID_1_STRING, IMAGE_DESCRIPTION,
+                IMAGE_CONTENT_TYPE, UNKNOWN_CONTENT_LENGTH, imageStream);
+
+        assertEquals(expectedDto, result);
+        verify(streamingUpload).abort();
+        verify(streamingUpload, never()).complete();
+        verify(imageObjectService, never()).register(anyString(), anyString());
+        verify(imageRenditionService).submit(IMAGE_ID, STORED_OBJECT_KEY);
+    }
+
+    @Test
+    void uploadStream_shouldAbortWhenStreamIsTooSmall() throws IOException {
+        S3StreamingUpload streamingUpload = mock(S3StreamingUpload.class);
+        InputStream imageStream = new ByteArrayInputStream(new byte[0]);
+
+        when(imageProperties.getMinBytes()).thenReturn(MIN_FILE_SIZE);
+        when(imageProperties.getMaxBytes()).thenReturn(MAX_FILE_SIZE);
+        when(s3Service.startStreamingUpload(anyString(), eq(IMAGE_CONTENT_TYPE))).thenReturn(streamingUpload);
+        when(streamingUpload.transferFrom(imageStream, MAX_FILE_SIZE)).thenReturn(MIN_FILE_SIZE - 1);
+
+        assertThrows(InvalidImageSizeException.class, () -> imageService.uploadStream(USER_ID_1_STRING,
+                IMAGE_DESCRIPTION, IMAGE_CONTENT_TYPE, UNKNOWN_CONTENT_LENGTH, imageStream));
+
+        verify(streamingUpload).abort();
+        verify(streamingUpload, never()).complete();
+        verify(imageRepository, never()).save(any());
+    }
+
+    @Test
+    void uploadStream_shouldAbortWhenClientDisconnects() throws IOException {
+        S3StreamingUpload streamingUpload = mock(S3StreamingUpload.class);
+        InputStream imageStream = new ByteArrayInputStream(new byte[0]);
+
+        when(imageProperties.getMaxBytes()).thenReturn(MAX_FILE_SIZE);
+        when(s3Service.startStreamingUpload(anyString(), eq(IMAGE_CONTENT_TYPE))).thenReturn(streamingUpload);
+        when(streamingUpload.transferFrom(imageStream, MAX_FILE_SIZE)).thenThrow(new IOException("Broken pipe"));
+
+        assertThrows(ImageFileOperationException.class, () -> imageService.uploadStream(USER_ID_1_STRING,
+                IMAGE_DESCRIPTION, IMAGE_CONTENT_TYPE, UNKNOWN_CONTENT_LENGTH, imageStream));
+
+        verify(streamingUpload).abort();
+    }
+
+    @Test
+    void uploadStream_shouldRejectUnsupportedTypeBeforeReading() {
+        assertThrows(InvalidImageTypeException.class, () -> imageService.uploadStream(USER_ID_1_STRING,
+                IMAGE_DESCRIPTION, UNSUPPORTED_CONTENT_TYPE, VALID_FILE_SIZE, new ByteArrayInputStream(new byte[0])));
+
+        verify(s3Service, never()).startStreamingUpload(anyString(), anyString());
+    }
+
+    @Test
+    void confirmUpload_shouldVerifyUploadedObjectAndSaveImage() {
+        Image savedImage = Image.builder().id(IMAGE_ID).url(IMAGE_URL).userId(USER_ID_1).build();
+        ImageResponseDto expectedDto = new ImageResponseDto(IMAGE_ID, IMAGE_URL, IMAGE_DESCRIPTION, UPLOADED_AT,
+                ZERO_LIKES, USER_ID_1, USER_NAME_STRING);
+
+        when(uploadTokenService.verify(UPLOAD_TOKEN)).thenReturn(uploadToken(USER_ID_1));
+        when(imageProperties.getMinBytes()).thenReturn(MIN_FILE_SIZE);
+        when(imageProperties.getMaxBytes()).thenReturn(MAX_FILE_SIZE);
+        when(s3Service.headFile(UPLOADED_OBJECT_KEY)).thenReturn(uploadedObject());
+        when(s3Service.readFirstBytes(eq(UPLOADED_OBJECT_KEY), anyInt())).thenReturn(JPEG_SIGNATURE);
+        when(imageObjectService.acquireExisting(CONTENT_HASH)).thenReturn(Optional.empty());
+        when(imageObjectService.register(CONTENT_HASH, UPLOADED_OBJECT_KEY)).thenReturn(UPLOADED_OBJECT_KEY);
+        when(s3Service.generateImageUrl(UPLOADED_OBJECT_KEY)).thenReturn(IMAGE_URL);
+        when(imageRepository.save(any(Image.class))).thenReturn(savedImage);
+        when(imageMapper.toImageResponseDto(savedImage)).thenReturn(expectedDto);
+
+        ImageResponseDto result = imageService.confirmUpload(USER_ID_1_STRING, UPLOAD_TOKEN);
+
+        assertEquals(expectedDto, result);
+        verify(imageRepository).save(argThat(image -> CONTENT_HASH.equals(image.getContentHash())
+                && IMAGE_DESCRIPTION.equals(image.getDescription())));
+        verify(s3Service, never()).deleteFile(anyString());
+    }
+
+    @Test
+    void confirmUpload_shouldDeleteObjectWhoseSignatureDoesNotMatchType() {
+        when(uploadTokenService.verify(UPLOAD_TOKEN)).thenReturn(uploadToken(USER_ID_1));
+        when(imageProperties.getMinBytes()).thenReturn(MIN_FILE_SIZE);
+        when(imageProperties.getMaxBytes()).thenReturn(MAX_FILE_SIZE);
+        when(s3Service.headFile(UPLOADED_OBJECT_KEY)).thenReturn(uploadedObject());
+        when(s3Service.readFirstBytes(eq(UPLOADED_OBJECT_KEY), anyInt())).thenReturn(PNG_SIGNATURE);
+
+        assertThrows(InvalidImageTypeException.class,
+                () -> imageService.confirmUpload(USER_ID_1_STRING, UPLOAD_TOKEN));
+
+        verify(s3Service).deleteFile(UPLOADED_OBJECT_KEY);
+        verify(imageRepository, never()).save(any(Image.class));
+    }
+
+    @Test
+    void confirmUpload_shouldRejectTokenIssuedToAnotherUser() {
+        when(uploadTokenService.verify(UPLOAD_TOKEN)).thenReturn(uploadToken(USER_ID_2));
+
+        assertThrows(InvalidUploadTokenException.class,
+                () -> imageService.confirmUpload(USER_ID_1_STRING, UPLOAD_TOKEN));
+
+        verify(s3Service, never()).headFile(anyString());
+    }
+
+    @Test
+    void confirmUpload_shouldRejectSecondConfirmOfSameToken() {
+        when(uploadTokenService.verify(UPLOAD_TOKEN)).thenReturn(uploadToken(USER_ID_1));
+        when(imageProperties.getMinBytes()).thenReturn(MIN_FILE_SIZE);
+        when(imageProperties.getMaxBytes()).thenReturn(MAX_FILE_SIZE);
+        when(s3Service.headFile(UPLOADED_OBJECT_KEY)).thenReturn(uploadedObject());
+        when(s3Service.readFirstBytes(eq(UPLOADED_OBJECT_KEY), anyInt())).thenReturn(JPEG_SIGNATURE);
+        when(imageObjectService.acquireExisting(CONTENT_HASH)).thenReturn(Optional.of(UPLOADED_OBJECT_KEY));
+
+        assertThrows(InvalidUploadTokenException.class,
+                () -> imageService.confirmUpload(USER_ID_1_STRING, UPLOAD_TOKEN));
+
+        verify(imageObjectService).release(CONTENT_HASH);
+        verify(s3Service, never()).deleteFile(anyString());
+        verify(imageRepository, never()).save(any(Image.class));
+    }
+
+    @Test
+    void importArchive_shouldUploadImagesAndReportEachEntry() throws IOException {
+        stubImport();
+        when(imageObjectService.acquireExisting(anyString())).thenReturn(Optional.empty());
+        when(imageObjectService.register(anyString(), anyString()))
+                .thenAnswer(invocation -> invocation.getArgument(1));
+        when(s3Service.generateImageUrl(anyString())).thenReturn(IMAGE_URL);
+        when(imageRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(imageMapper.toImageResponseDto(any(Image.class))).thenReturn(
+                new ImageResponseDto(IMAGE_ID, IMAGE_URL, null, UPLOADED_AT, ZERO_LIKES, USER_ID_1, null));
+
+        byte[] archive = zip(Map.of(
+                FIRST_ARCHIVED_IMAGE, jpeg((byte) 1),
+                SECOND_ARCHIVED_IMAGE, jpeg((byte) 2),
+                ARCHIVED_NOTES, new byte[]{'n', 'o', 't', 'e', 's'},
+                ARCHIVED_RESOURCE_FORK, jpeg((byte) 3)));
+        List<ImageImportItemDto> progress = new ArrayList<>();
+
+        imageService.importArchive(USER_ID_1_STRING, ZIP_CONTENT_TYPE, new ByteArrayInputStream(archive),
+                progress::add);
+
+        assertEquals(3, progress.size());
+        assertEquals(2, progress.stream()
+                .filter(item -> item.status() == ImageImportItemDto.Status.CREATED).count());
+        assertTrue(progress.stream().anyMatch(item -> ARCHIVED_NOTES.equals(item.name())
+                && item.status() == ImageImportItemDto.Status.FAILED));
+        verify(s3Service, times(2)).uploadBytes(any(byte[].class), anyString(), eq(IMAGE_CONTENT_TYPE));
+        verify(imageRenditionService, times(2)).submit(any(), anyString());
+    }
+
+    @Test
+    void importArchive_shouldReleaseObjectsIfBatchInsertFails() throws IOException {
+        stubImport();
+        when(imageObjectService.acquireExisting(anyString())).thenReturn(Optional.of(STORED_OBJECT_KEY));
+        when(s3Service.generateImageUrl(STORED_OBJECT_KEY)).thenReturn(IMAGE_URL);
+        when(imageRepository.saveAll(anyList())).thenThrow(new IllegalStateException());
+
+        byte[] archive = tar(Map.of(FIRST_ARCHIVED_IMAGE, jpeg((byte) 1)));
+        List<ImageImportItemDto> progress = new ArrayList<>();
+
+        imageService.importArchive(USER_ID_1_STRING, TAR_CONTENT_TYPE, new ByteArrayInputStream(archive),
+                progress::add);
+
+        assertEquals(1, progress.size());
+        assertEquals(ImageImportItemDto.Status.FAILED, progress.getFirst().status());
+        assertEquals(FIRST_ARCHIVED_IMAGE, progress.getFirst().name());
+        verify(imageObjectService).release(anyString());
+        verify(s3Service, never()).uploadBytes(any(byte[].class), anyString(), anyString());
+    }
+
+    @Test
+    void importArchive_shouldReportUnsupportedArchiveType() {
+        when(imageImportProperties.getParallelism()).thenReturn(IMPORT_PARALLELISM);
+        List<ImageImportItemDto> progress = new ArrayList<>();
+
+        imageService.importArchive(USER_ID_1_STRING, IMAGE_CONTENT_TYPE, new ByteArrayInputStream(new byte[0]),
+                progress::add);
+
+        assertEquals(1, progress.size());
+        assertNull(progress.getFirst().index());
+        assertEquals(ImageImportItemDto.Status.FAILED, progress.getFirst().status());
+        verify(imageRepository, never()).saveAll(anyList());
+    }
+
+    private void stubImport() {
+        when(imageImportProperties.getParallelism()).thenReturn(IMPORT_PARALLELISM);
+        when(imageImportProperties.getBatchSize()).thenReturn(IMPORT_BATCH_SIZE);
+        when(imageImportProperties.getMaxEntries()).thenReturn(IMPORT_MAX_ENTRIES);
+        when(imageProperties.getMinBytes()).thenReturn(MIN_FILE_SIZE);
+        when(imageProperties.getMaxBytes()).thenReturn(MAX_FILE_SIZE);
+    }
+
+    private static byte[] jpeg(byte filler) {
+        byte[] content = new byte[(int) VALID_FILE_SIZE];
+        Arrays.fill(content, filler);
+        System.arraycopy(JPEG_SIGNATURE, 0, content, 0, JPEG_SIGNATURE.length);
+        return content;
+    }
+
+    private static byte[] zip(Map<String, byte[]> entries) throws IOException {
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(archive)) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey()));
+                zip.write(entry.getValue());
+                zip.closeEntry();
+            }
+        }
+        return archive.toByteArray();
+    }
+
+    private static byte[] tar(Map<String, byte[]> entries) throws IOException {
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(archive)) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                TarArchiveEntry tarEntry = new TarArchiveEntry(entry.getKey());
+                tarEntry.setSize(entry.getValue().length);
+                tar.putArchiveEntry(tarEntry);
+                tar.write(entry.getValue());
+                tar.closeArchiveEntry();
+            }
+        }
+        return archive.toByteArray();
+    }
+
+    private static UploadToken uploadToken(long userId) {
+        return new UploadToken(userId, UPLOADED_OBJECT_KEY, IMAGE_CONTENT_TYPE, VALID_FILE_SIZE, CONTENT_HASH,
+                IMAGE_DESCRIPTION, Instant.now().plusSeconds(60));
+    }
+
+    private static HeadObjectResponse uploadedObject() {
+        return HeadObjectResponse.builder()
+                .contentLength(VALID_FILE_SIZE)
+                .contentType(IMAGE_CONTENT_TYPE)
+                .checksumSHA256(Base64.getEncoder().encodeToString(HexFormat.of().parseHex(CONTENT_HASH)))
+                .build();
+    }
+
+    private static LikeToggleResult toggleResult(boolean liked, long likes, boolean changed) {
+        return new LikeToggleResult() {
+            @Override
+            public boolean getLiked() {
+                return liked;
+            }
+
+            @Override
+            public long getLikes() {
+                return likes;
+            }
+
+            @Override
+            public boolean getChanged() {
+                return changed;
+            }
+        };
+    }
+
+    private ImageWithLikeByCurrentUserResponseDto createImageWithLikeDto() {
+        return new ImageWithLikeByCurrentUserResponseDto(
+                IMAGE_ID, IMAGE_URL, SHORT_DESCRIPTION, UPLOADED_AT, ZERO_LIKES, ZERO_COMMENTS,
+                LIKED_BY_CURRENT_USER_BOOLEAN, USER_NAME_STRING, USER_ID_1, null, null, null);
+    }
 }
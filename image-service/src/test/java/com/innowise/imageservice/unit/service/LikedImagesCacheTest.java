@@ -0,0 +1,112 @@
+package com.innowise.imageservice.unit.service;
+
+import com.innowise.imageservice.config.LikedImagesCacheProperties;
+import com.innowise.imageservice.repository.LikeRepository;
+import com.innowise.imageservice.service.LikedImagesCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LikedImagesCacheTest {
+
+    private static final long USER_ID = 1L;
+    private static final long LIKED_IMAGE_ID = 10L;
+    private static final long OTHER_IMAGE_ID = 20L;
+
+    @Mock
+    private LikeRepository likeRepository;
+
+    private LikedImagesCache likedImagesCache;
+
+    @BeforeEach
+    void setUp() {
+        likedImagesCache = new LikedImagesCache(likeRepository, new LikedImagesCacheProperties(),
+                new SimpleMeterRegistry(), new MockEnvironment());
+    }
+
+    @AfterEach
+    void tearDown() {
+        likedImagesCache.shutdown();
+    }
+
+    @Test
+    void getLikedImageIds_shouldLoadOnceAndServeFromCache() {
+        when(likeRepository.findImageIdsByUserId(USER_ID)).thenReturn(List.of(LIKED_IMAGE_ID));
+
+        Roaring64Bitmap first = likedImagesCache.getLikedImageIds(USER_ID);
+        Roaring64Bitmap second = likedImagesCache.getLikedImageIds(USER_ID);
+
+        assertTrue(first.contains(LIKED_IMAGE_ID));
+        assertFalse(first.contains(OTHER_IMAGE_ID));
+        assertTrue(second.contains(LIKED_IMAGE_ID));
+        verify(likeRepository, times(1)).findImageIdsByUserId(USER_ID);
+    }
+
+    @Test
+    void onLikeToggled_shouldReplaceCachedBitmapWithUpdatedCopy() {
+        when(likeRepository.findImageIdsByUserId(USER_ID)).thenReturn(List.of(LIKED_IMAGE_ID));
+        Roaring64Bitmap before = likedImagesCache.getLikedImageIds(USER_ID);
+
+        likedImagesCache.onLikeToggled(USER_ID, OTHER_IMAGE_ID, true);
+        likedImagesCache.onLikeToggled(USER_ID, LIKED_IMAGE_ID, false);
+        Roaring64Bitmap after = likedImagesCache.getLikedImageIds(USER_ID);
+
+        assertNotSame(before, after);
+        assertTrue(before.contains(LIKED_IMAGE_ID));
+        assertFalse(before.contains(OTHER_IMAGE_ID));
+        assertTrue(after.contains(OTHER_IMAGE_ID));
+        assertFalse(after.contains(LIKED_IMAGE_ID));
+    }
+
+    @Test
+    void onLikeToggled_shouldIgnoreUsersWithoutCachedBitmap() {
+        likedImagesCache.onLikeToggled(USER_ID, LIKED_IMAGE_ID, true);
+        when(likeRepository.findImageIdsByUserId(USER_ID)).thenReturn(List.of());
+
+        assertFalse(likedImagesCache.getLikedImageIds(USER_ID).contains(LIKED_IMAGE_ID));
+    }
+
+    @Test
+    void invalidate_shouldReloadBitmapOnNextRead() {
+        when(likeRepository.findImageIdsByUserId(USER_ID)).thenReturn(List.of(), List.of(LIKED_IMAGE_ID));
+        assertFalse(likedImagesCache.getLikedImageIds(USER_ID).contains(LIKED_IMAGE_ID));
+
+        likedImagesCache.invalidate(USER_ID);
+
+        assertTrue(likedImagesCache.getLikedImageIds(USER_ID).contains(LIKED_IMAGE_ID));
+    }
+
+    @Test
+    void await_shouldGiveUpOnSlowLoadAndKeepLoading() {
+        CountDownLatch release = new CountDownLatch(1);
+        when(likeRepository.findImageIdsByUserId(USER_ID)).thenAnswer(invocation -> {
+            release.await();
+            return List.of(LIKED_IMAGE_ID);
+        });
+        CompletableFuture<Roaring64Bitmap> pending = likedImagesCache.getLikedImageIdsAsync(USER_ID);
+
+        assertTrue(likedImagesCache.await(pending).isEmpty());
+
+        release.countDown();
+        assertTrue(likedImagesCache.getLikedImageIds(USER_ID).contains(LIKED_IMAGE_ID));
+        verify(likeRepository, times(1)).findImageIdsByUserId(USER_ID);
+    }
+}
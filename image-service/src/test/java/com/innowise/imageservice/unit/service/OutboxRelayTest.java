@@ -0,0 +1,106 @@
+package com.innowise.imageservice.unit.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.innowise.imageservice.config.OutboxProperties;
+import com.innowise.imageservice.dto.event.LikeEvent;
+import com.innowise.imageservice.model.OutboxEvent;
+import com.innowise.imageservice.repository.OutboxEventRepository;
+import com.innowise.imageservice.service.OutboxRelay;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    private static final String TOPIC = "add_like";
+    private static final String KEY = "1_1";
+    private static final long FIRST_EVENT_ID = 1L;
+    private static final long SECOND_EVENT_ID = 2L;
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        outboxRelay = new OutboxRelay(outboxEventRepository, kafkaTemplate, transactionTemplate, objectMapper,
+                new OutboxProperties(), new SimpleMeterRegistry());
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void relay_shouldPublishBatchAndMarkEventsSent() throws Exception {
+        when(outboxEventRepository.lockUnsent(anyInt()))
+                .thenReturn(List.of(likeEvent(FIRST_EVENT_ID), likeEvent(SECOND_EVENT_ID)));
+        when(kafkaTemplate.send(eq(TOPIC), eq(KEY), any(LikeEvent.class)))
+                .thenReturn(CompletableFuture.completedFuture(new SendResult<>(null, null)));
+
+        outboxRelay.relay();
+
+        verify(outboxEventRepository).markSent(eq(List.of(FIRST_EVENT_ID, SECOND_EVENT_ID)),
+                any(LocalDateTime.class));
+    }
+
+    @Test
+    void relay_shouldLeaveFailedEventsUnsent() throws Exception {
+        when(outboxEventRepository.lockUnsent(anyInt()))
+                .thenReturn(List.of(likeEvent(FIRST_EVENT_ID), likeEvent(SECOND_EVENT_ID)));
+        when(kafkaTemplate.send(eq(TOPIC), eq(KEY), any(LikeEvent.class)))
+                .thenReturn(CompletableFuture.completedFuture(new SendResult<>(null, null)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        outboxRelay.relay();
+
+        verify(outboxEventRepository).markSent(eq(List.of(FIRST_EVENT_ID)), any(LocalDateTime.class));
+    }
+
+    @Test
+    void relay_shouldNotMarkAnythingWhenOutboxIsEmpty() {
+        when(outboxEventRepository.lockUnsent(anyInt())).thenReturn(List.of());
+
+        outboxRelay.relay();
+
+        verify(outboxEventRepository, never()).markSent(anyCollection(), any(LocalDateTime.class));
+    }
+
+    private OutboxEvent likeEvent(long id) throws Exception {
+        LikeEvent event = LikeEvent.builder().userId(1L).imageId(1L).createdAt(Instant.now()).build();
+        return OutboxEvent.builder()
+                .id(id)
+                .topic(TOPIC)
+                .messageKey(KEY)
+                .payloadType(LikeEvent.class.getSimpleName())
+                .payload(objectMapper.writeValueAsString(event))
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,103 @@
+package com.innowise.imageservice.unit.service;
+
+import com.innowise.imageservice.service.ReadReplicas;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReadReplicasTest {
+
+    private static final String REPLICA = "replica-0";
+    private static final String OTHER_REPLICA = "replica-1";
+    private static final Duration MAX_LAG = Duration.ofSeconds(5);
+    private static final double SMALL_LAG = 0.5;
+    private static final double LARGE_LAG = 30;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private DataSource otherDataSource;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ReadReplicas readReplicas;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        dataSources.put(REPLICA, dataSource);
+        dataSources.put(OTHER_REPLICA, otherDataSource);
+        readReplicas = new ReadReplicas(dataSources, MAX_LAG, meterRegistry);
+    }
+
+    @Test
+    void getHealthyShouldBeEmptyBeforeFirstCheck() {
+        assertTrue(readReplicas.getHealthy().isEmpty());
+    }
+
+    @Test
+    void checkLagShouldKeepOnlyReplicasWithinMaxLag() throws SQLException {
+        stubLag(dataSource, SMALL_LAG);
+        stubLag(otherDataSource, LARGE_LAG);
+
+        readReplicas.checkLag();
+
+        assertEquals(List.of(REPLICA), readReplicas.getHealthy());
+        assertEquals(LARGE_LAG, meterRegistry.get("db.replica.lag").tag("replica", OTHER_REPLICA).gauge().value());
+    }
+
+    @Test
+    void checkLagShouldSkipUnreachableReplica() throws SQLException {
+        stubLag(dataSource, SMALL_LAG);
+        when(otherDataSource.getConnection()).thenThrow(new SQLException("Connection refused"));
+
+        readReplicas.checkLag();
+
+        assertEquals(List.of(REPLICA), readReplicas.getHealthy());
+        assertTrue(Double.isNaN(meterRegistry.get("db.replica.lag").tag("replica", OTHER_REPLICA).gauge().value()));
+    }
+
+    @Test
+    void checkLagShouldRestoreReplicaOnceItCatchesUp() throws SQLException {
+        ResultSet resultSet = stubLag(dataSource, LARGE_LAG);
+        stubLag(otherDataSource, SMALL_LAG);
+        readReplicas.checkLag();
+
+        when(resultSet.getDouble(1)).thenReturn(SMALL_LAG);
+        readReplicas.checkLag();
+
+        assertEquals(List.of(REPLICA, OTHER_REPLICA), readReplicas.getHealthy());
+    }
+
+    private static ResultSet stubLag(DataSource dataSource, double lagSeconds) throws SQLException {
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(ReadReplicas.LAG_QUERY)).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getDouble(1)).thenReturn(lagSeconds);
+        return resultSet;
+    }
+}
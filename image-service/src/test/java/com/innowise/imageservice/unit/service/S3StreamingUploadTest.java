@@ -0,0 +1,182 @@
+package com.innowise.imageservice.unit.service;
+
+import com.innowise.imageservice.config.S3Properties;
+import com.innowise.imageservice.service.S3Metrics;
+import com.innowise.imageservice.service.S3Service;
+import com.innowise.imageservice.service.S3StreamingUpload;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.env.MockEnvironment;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class S3StreamingUploadTest {
+
+    private static final String BUCKET_NAME = "images";
+    private static final String KEY = "1/image.jpg";
+    private static final String CONTENT_TYPE = "image/jpeg";
+    private static final String UPLOAD_ID = "upload-id";
+    private static final int PART_SIZE = 1024;
+    private static final long MAX_BYTES = 10 * PART_SIZE;
+
+    @Mock
+    private S3Client s3Client;
+    @Mock
+    private S3Presigner s3Presigner;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private S3Service s3Service;
+
+    @BeforeEach
+    void setUp() {
+        S3Properties properties = new S3Properties();
+        properties.setBucketName(BUCKET_NAME);
+        properties.setPartSizeBytes(PART_SIZE);
+        s3Service = new S3Service(s3Client, s3Presigner, properties, new S3Metrics(meterRegistry), new MockEnvironment());
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3Service.shutdown();
+    }
+
+    @Test
+    void transferFrom_shouldUseSinglePutForSmallBody() throws IOException {
+        S3StreamingUpload upload = s3Service.startStreamingUpload(KEY, CONTENT_TYPE);
+
+        long size = upload.transferFrom(new ByteArrayInputStream(new byte[PART_SIZE / 2]), MAX_BYTES);
+        upload.complete();
+
+        assertEquals(PART_SIZE / 2, size);
+        ArgumentCaptor<PutObjectRequest> request = ArgumentCaptor.forClass(PutObjectRequest.class);
+        verify(s3Client).putObject(request.capture(), any(RequestBody.class));
+        assertEquals(PART_SIZE / 2, request.getValue().contentLength());
+        verify(s3Client, never()).createMultipartUpload(any(CreateMultipartUploadRequest.class));
+    }
+
+    @Test
+    void transferFrom_shouldUploadLargeBodyInParts() throws IOException, NoSuchAlgorithmException {
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId(UPLOAD_ID).build());
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenReturn(UploadPartResponse.builder().eTag("etag").build());
+        S3StreamingUpload upload = s3Service.startStreamingUpload(KEY, CONTENT_TYPE);
+
+        byte[] body = new byte[PART_SIZE * 2 + 1];
+        long size = upload.transferFrom(new ByteArrayInputStream(body), MAX_BYTES);
+        upload.complete();
+
+        assertEquals(PART_SIZE * 2 + 1, size);
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body)),
+                upload.getContentHash());
+        verify(s3Client, times(3)).uploadPart(any(UploadPartRequest.class), any(RequestBody.class));
+        ArgumentCaptor<CompleteMultipartUploadRequest> request =
+                ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(s3Client).completeMultipartUpload(request.capture());
+        assertEquals(3, request.getValue().multipartUpload().parts().size());
+        assertEquals(3, meterRegistry.get("s3.requests")
+                .tags("operation", "UploadPart", "outcome", "success").timer().count());
+        assertEquals(body.length, meterRegistry.get("s3.request.size")
+                .tag("operation", "UploadPart").summary().totalAmount());
+    }
+
+    @Test
+    void transferFrom_shouldStopReadingOnceLimitIsExceeded() throws IOException {
+        S3StreamingUpload upload = s3Service.startStreamingUpload(KEY, CONTENT_TYPE);
+
+        long size = upload.transferFrom(new ByteArrayInputStream(new byte[PART_SIZE]), PART_SIZE / 4);
+        upload.abort();
+
+        assertEquals(PART_SIZE / 4 + 1, size);
+        verify(s3Client, never()).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    }
+
+    @Test
+    void abort_shouldAbortMultipartUploadWhenStreamFails() {
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId(UPLOAD_ID).build());
+        lenient().when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenReturn(UploadPartResponse.builder().eTag("etag").build());
+        S3StreamingUpload upload = s3Service.startStreamingUpload(KEY, CONTENT_TYPE);
+        InputStream disconnectingBody = new InputStream() {
+            private int remaining = PART_SIZE;
+
+            @Override
+            public int read() throws IOException {
+                if (remaining-- > 0) {
+                    return 0;
+                }
+                throw new IOException("Client disconnected");
+            }
+        };
+
+        assertThrows(IOException.class, () -> upload.transferFrom(disconnectingBody, MAX_BYTES));
+        upload.abort();
+
+        verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    @Test
+    void abort_shouldDoNothingOnceMultipartUploadCompleted() throws IOException {
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId(UPLOAD_ID).build());
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenReturn(UploadPartResponse.builder().eTag("etag").build());
+        S3StreamingUpload upload = s3Service.startStreamingUpload(KEY, CONTENT_TYPE);
+
+        upload.transferFrom(new ByteArrayInputStream(new byte[PART_SIZE * 2]), MAX_BYTES);
+        upload.complete();
+        upload.abort();
+
+        verify(s3Client).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+        verify(s3Client, never()).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+    }
+
+    @Test
+    void abort_shouldNotAbortAgainWhenCompleteAlreadyAborted() throws IOException {
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId(UPLOAD_ID).build());
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenThrow(new IllegalStateException("Part upload failed"));
+        S3StreamingUpload upload = s3Service.startStreamingUpload(KEY, CONTENT_TYPE);
+
+        upload.transferFrom(new ByteArrayInputStream(new byte[PART_SIZE * 2]), MAX_BYTES);
+        assertThrows(IllegalStateException.class, upload::complete);
+        upload.abort();
+
+        verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+}
@@ -0,0 +1,86 @@
+package com.innowise.imageservice.unit.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.innowise.imageservice.config.DirectUploadProperties;
+import com.innowise.imageservice.dto.UploadToken;
+import com.innowise.imageservice.exception.InvalidUploadTokenException;
+import com.innowise.imageservice.service.UploadTokenService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.util.Base64;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UploadTokenServiceTest {
+
+    private static final String TOKEN_SECRET = "test-secret";
+    private static final String OTHER_TOKEN_SECRET = "other-secret";
+    private static final long USER_ID = 1L;
+    private static final String OBJECT_KEY = "1/uploaded.jpg";
+    private static final String CONTENT_TYPE = "image/jpeg";
+    private static final long CONTENT_LENGTH = 200_000L;
+    private static final String CONTENT_HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+    private static final String DESCRIPTION = "description";
+    private static final long OTHER_CONTENT_LENGTH = 1L;
+
+    private ObjectMapper objectMapper;
+    private UploadTokenService uploadTokenService;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        uploadTokenService = new UploadTokenService(objectMapper, properties(TOKEN_SECRET));
+    }
+
+    @Test
+    void verify_shouldReturnIssuedToken() {
+        UploadToken token = uploadToken(Instant.now().plus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.MILLIS));
+
+        assertEquals(token, uploadTokenService.verify(uploadTokenService.issue(token)));
+    }
+
+    @Test
+    void verify_shouldRejectTamperedPayload() throws Exception {
+        String issued = uploadTokenService.issue(uploadToken(Instant.now().plus(1, ChronoUnit.HOURS)));
+        String signature = issued.substring(issued.indexOf('.'));
+        UploadToken tampered = new UploadToken(USER_ID, OBJECT_KEY, CONTENT_TYPE, OTHER_CONTENT_LENGTH, CONTENT_HASH,
+                DESCRIPTION, Instant.now().plus(1, ChronoUnit.HOURS));
+        String tamperedPayload = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(objectMapper.writeValueAsBytes(tampered));
+
+        assertThrows(InvalidUploadTokenException.class,
+                () -> uploadTokenService.verify(tamperedPayload + signature));
+    }
+
+    @Test
+    void verify_shouldRejectTokenSignedWithAnotherSecret() {
+        String issued = new UploadTokenService(objectMapper, properties(OTHER_TOKEN_SECRET))
+                .issue(uploadToken(Instant.now().plus(1, ChronoUnit.HOURS)));
+
+        assertThrows(InvalidUploadTokenException.class, () -> uploadTokenService.verify(issued));
+    }
+
+    @Test
+    void verify_shouldRejectExpiredToken() {
+        String issued = uploadTokenService.issue(uploadToken(Instant.now().minus(1, ChronoUnit.MINUTES)));
+
+        InvalidUploadTokenException exception = assertThrows(InvalidUploadTokenException.class,
+                () -> uploadTokenService.verify(issued));
+        assertEquals(UploadTokenService.EXPIRED_UPLOAD_TOKEN_EXCEPTION_MESSAGE, exception.getMessage());
+    }
+
+    private static UploadToken uploadToken(Instant expiresAt) {
+        return new UploadToken(USER_ID, OBJECT_KEY, CONTENT_TYPE, CONTENT_LENGTH, CONTENT_HASH, DESCRIPTION, expiresAt);
+    }
+
+    private static DirectUploadProperties properties(String tokenSecret) {
+        DirectUploadProperties properties = new DirectUploadProperties();
+        properties.setTokenSecret(tokenSecret);
+        return properties;
+    }
+}
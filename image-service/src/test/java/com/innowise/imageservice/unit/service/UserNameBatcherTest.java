@@ -0,0 +1,132 @@
+package com.innowise.imageservice.unit.service;
+
+import com.innowise.imageservice.config.UserNameBatchProperties;
+import com.innowise.imageservice.dto.UserNamesResponseDto;
+import com.innowise.imageservice.service.AuthServiceClient;
+import com.innowise.imageservice.service.UserNameBatcher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserNameBatcherTest {
+
+    private static final long USER_ID_1 = 1L;
+    private static final long USER_ID_2 = 2L;
+    private static final long USER_ID_3 = 3L;
+    private static final String USER_NAME_1 = "User1";
+    private static final String USER_NAME_2 = "User2";
+    private static final String USER_NAME_3 = "User3";
+    private static final Duration LONG_WINDOW = Duration.ofMillis(200);
+    private static final int SMALL_BATCH_SIZE = 2;
+
+    @Mock
+    private AuthServiceClient authServiceClient;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserNameBatchProperties properties;
+    private UserNameBatcher userNameBatcher;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new UserNameBatchProperties();
+        properties.setWindow(LONG_WINDOW);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userNameBatcher.shutdown();
+    }
+
+    @Test
+    void load_shouldCoalesceLookupsWithinWindowIntoOneRequest() throws Exception {
+        userNameBatcher = new UserNameBatcher(authServiceClient, properties, meterRegistry);
+        when(authServiceClient.getUserNamesByIds(anyList())).thenReturn(new UserNamesResponseDto(
+                Map.of(USER_ID_1, USER_NAME_1, USER_ID_2, USER_NAME_2, USER_ID_3, USER_NAME_3)));
+
+        CompletableFuture<Map<Long, String>> first = userNameBatcher.load(List.of(USER_ID_1, USER_ID_2));
+        CompletableFuture<Map<Long, String>> second = userNameBatcher.load(List.of(USER_ID_2, USER_ID_3));
+
+        assertEquals(Map.of(USER_ID_1, USER_NAME_1, USER_ID_2, USER_NAME_2), first.get(5, TimeUnit.SECONDS));
+        assertEquals(Map.of(USER_ID_2, USER_NAME_2, USER_ID_3, USER_NAME_3), second.get(5, TimeUnit.SECONDS));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Long>> requestedIds = ArgumentCaptor.forClass(List.class);
+        verify(authServiceClient, times(1)).getUserNamesByIds(requestedIds.capture());
+        assertEquals(Set.of(USER_ID_1, USER_ID_2, USER_ID_3), new HashSet<>(requestedIds.getValue()));
+        assertEquals(1, meterRegistry.get("auth.names.batch.size").summary().count());
+        assertEquals(2, meterRegistry.get("auth.names.lookup.latency").timer().count());
+    }
+
+    @Test
+    void load_shouldFlushBeforeWindowWhenBatchIsFull() throws Exception {
+        properties.setWindow(Duration.ofMinutes(1));
+        properties.setMaxSize(SMALL_BATCH_SIZE);
+        userNameBatcher = new UserNameBatcher(authServiceClient, properties, meterRegistry);
+        when(authServiceClient.getUserNamesByIds(anyList()))
+                .thenReturn(new UserNamesResponseDto(Map.of(USER_ID_1, USER_NAME_1, USER_ID_2, USER_NAME_2)));
+
+        CompletableFuture<Map<Long, String>> first = userNameBatcher.load(List.of(USER_ID_1));
+        CompletableFuture<Map<Long, String>> second = userNameBatcher.load(List.of(USER_ID_2));
+
+        assertEquals(Map.of(USER_ID_1, USER_NAME_1), first.get(5, TimeUnit.SECONDS));
+        assertEquals(Map.of(USER_ID_2, USER_NAME_2), second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void load_shouldFailEveryCallerWhenRequestFails() {
+        userNameBatcher = new UserNameBatcher(authServiceClient, properties, meterRegistry);
+        IllegalStateException failure = new IllegalStateException("auth-service unavailable");
+        when(authServiceClient.getUserNamesByIds(anyList())).thenThrow(failure);
+
+        CompletableFuture<Map<Long, String>> first = userNameBatcher.load(List.of(USER_ID_1));
+        CompletableFuture<Map<Long, String>> second = userNameBatcher.load(List.of(USER_ID_2));
+
+        ExecutionException firstException = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        ExecutionException secondException = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, firstException.getCause());
+        assertInstanceOf(IllegalStateException.class, secondException.getCause());
+    }
+
+    @Test
+    void load_shouldNotCallAuthServiceOnCallerThreadWhenBatchingDisabled() throws Exception {
+        properties.setEnabled(false);
+        userNameBatcher = new UserNameBatcher(authServiceClient, properties, meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        when(authServiceClient.getUserNamesByIds(List.of(USER_ID_1))).thenAnswer(invocation -> {
+            release.await();
+            return new UserNamesResponseDto(Map.of(USER_ID_1, USER_NAME_1));
+        });
+
+        CompletableFuture<Map<Long, String>> names = userNameBatcher.load(List.of(USER_ID_1));
+
+        assertFalse(names.isDone());
+        release.countDown();
+        assertEquals(Map.of(USER_ID_1, USER_NAME_1), names.get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,157 @@
+package com.innowise.imageservice.unit.service;
+
+import com.innowise.imageservice.config.UserNameBatchProperties;
+import com.innowise.imageservice.config.UserNameCacheProperties;
+import com.innowise.imageservice.dto.UserNamesResponseDto;
+import com.innowise.imageservice.service.AuthServiceClient;
+import com.innowise.imageservice.service.UserNameBatcher;
+import com.innowise.imageservice.service.UserNameCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserNameCacheTest {
+
+    private static final long USER_ID_1 = 1L;
+    private static final long USER_ID_2 = 2L;
+    private static final long UNKNOWN_USER_ID = 99L;
+    private static final String USER_NAME_1 = "User1";
+    private static final String USER_NAME_2 = "User2";
+    private static final int CONCURRENT_CALLERS = 8;
+    private static final Duration SHORT_TIMEOUT = Duration.ofMillis(50);
+
+    @Mock
+    private AuthServiceClient authServiceClient;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserNameCacheProperties properties;
+    private UserNameBatcher userNameBatcher;
+    private UserNameCache userNameCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new UserNameCacheProperties();
+        userNameBatcher = new UserNameBatcher(authServiceClient, new UserNameBatchProperties(), meterRegistry);
+        userNameCache = new UserNameCache(userNameBatcher, properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userNameBatcher.shutdown();
+    }
+
+    @Test
+    void getUserNamesByIds_shouldSendOnlyMissesToAuthService() {
+        when(authServiceClient.getUserNamesByIds(List.of(USER_ID_1)))
+                .thenReturn(new UserNamesResponseDto(Map.of(USER_ID_1, USER_NAME_1)));
+        when(authServiceClient.getUserNamesByIds(List.of(USER_ID_2)))
+                .thenReturn(new UserNamesResponseDto(Map.of(USER_ID_2, USER_NAME_2)));
+
+        userNameCache.getUserNamesByIds(List.of(USER_ID_1));
+        UserNamesResponseDto result = userNameCache.getUserNamesByIds(List.of(USER_ID_1, USER_ID_2));
+
+        assertEquals(Map.of(USER_ID_1, USER_NAME_1, USER_ID_2, USER_NAME_2), result.names());
+        verify(authServiceClient, times(1)).getUserNamesByIds(List.of(USER_ID_1));
+        verify(authServiceClient, times(1)).getUserNamesByIds(List.of(USER_ID_2));
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void getUserNamesByIds_shouldCacheUnknownIds() {
+        when(authServiceClient.getUserNamesByIds(List.of(UNKNOWN_USER_ID)))
+                .thenReturn(new UserNamesResponseDto(Map.of()));
+
+        userNameCache.getUserNamesByIds(List.of(UNKNOWN_USER_ID));
+        UserNamesResponseDto result = userNameCache.getUserNamesByIds(List.of(UNKNOWN_USER_ID));
+
+        assertTrue(result.names().isEmpty());
+        verify(authServiceClient, times(1)).getUserNamesByIds(List.of(UNKNOWN_USER_ID));
+    }
+
+    @Test
+    void getUserNamesByIds_shouldShareOneRemoteCallBetweenConcurrentMisses() throws Exception {
+        CountDownLatch remoteCallStarted = new CountDownLatch(1);
+        CountDownLatch releaseRemoteCall = new CountDownLatch(1);
+        when(authServiceClient.getUserNamesByIds(anyList())).thenAnswer(invocation -> {
+            remoteCallStarted.countDown();
+            releaseRemoteCall.await(5, TimeUnit.SECONDS);
+            return new UserNamesResponseDto(Map.of(USER_ID_1, USER_NAME_1));
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_CALLERS);
+        try {
+            Future<UserNamesResponseDto> first = executor.submit(() -> userNameCache.getUserNamesByIds(List.of(USER_ID_1)));
+            assertTrue(remoteCallStarted.await(5, TimeUnit.SECONDS));
+
+            List<Future<UserNamesResponseDto>> others = new ArrayList<>();
+            for (int i = 1; i < CONCURRENT_CALLERS; i++) {
+                others.add(executor.submit(() -> userNameCache.getUserNamesByIds(List.of(USER_ID_1))));
+            }
+            releaseRemoteCall.countDown();
+
+            assertEquals(USER_NAME_1, first.get(5, TimeUnit.SECONDS).names().get(USER_ID_1));
+            for (Future<UserNamesResponseDto> other : others) {
+                assertEquals(USER_NAME_1, other.get(5, TimeUnit.SECONDS).names().get(USER_ID_1));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(authServiceClient, times(1)).getUserNamesByIds(anyList());
+    }
+
+    @Test
+    void getUserNamesByIds_shouldFallBackToCachedNamesWhenAuthServiceIsSlow() {
+        properties.setLookupTimeout(SHORT_TIMEOUT);
+        CountDownLatch releaseRemoteCall = new CountDownLatch(1);
+        when(authServiceClient.getUserNamesByIds(List.of(USER_ID_1)))
+                .thenReturn(new UserNamesResponseDto(Map.of(USER_ID_1, USER_NAME_1)));
+        when(authServiceClient.getUserNamesByIds(List.of(USER_ID_2))).thenAnswer(invocation -> {
+            releaseRemoteCall.await(5, TimeUnit.SECONDS);
+            return new UserNamesResponseDto(Map.of(USER_ID_2, USER_NAME_2));
+        });
+
+        try {
+            userNameCache.getUserNamesByIds(List.of(USER_ID_1));
+            UserNamesResponseDto result = userNameCache.getUserNamesByIds(List.of(USER_ID_1, USER_ID_2));
+
+            assertEquals(Map.of(USER_ID_1, USER_NAME_1), result.names());
+            assertEquals(1.0, meterRegistry.get("auth.names.lookup.degraded").tag("reason", "timeout").counter().count());
+        } finally {
+            releaseRemoteCall.countDown();
+        }
+    }
+
+    @Test
+    void getUserNamesByIds_shouldReturnNoNamesWhenAuthServiceFails() {
+        when(authServiceClient.getUserNamesByIds(anyList())).thenThrow(new IllegalStateException("auth-service is down"));
+
+        UserNamesResponseDto result = userNameCache.getUserNamesByIds(List.of(USER_ID_1));
+
+        assertTrue(result.names().isEmpty());
+        assertEquals(1.0, meterRegistry.get("auth.names.lookup.degraded").tag("reason", "error").counter().count());
+    }
+}
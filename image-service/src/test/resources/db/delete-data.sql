@@ -1,3 +1,5 @@
 DELETE FROM gallery.likes;
 DELETE FROM gallery.comments;
-DELETE FROM gallery.images;
\ No newline at end of file
+DELETE FROM gallery.images;
+DELETE FROM gallery.image_objects;
+DELETE FROM gallery.outbox_events;
\ No newline at end of file
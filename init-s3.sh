@@ -1,3 +1,12 @@
 #!/bin/sh
 echo "Creating S3 bucket..."
 awslocal s3 mb s3://images
+echo "Allowing browser uploads to presigned URLs..."
+awslocal s3api put-bucket-cors --bucket images --cors-configuration '{
+  "CORSRules": [{
+    "AllowedOrigins": ["http://localhost:3000"],
+    "AllowedMethods": ["PUT"],
+    "AllowedHeaders": ["*"],
+    "MaxAgeSeconds": 3000
+  }]
+}'
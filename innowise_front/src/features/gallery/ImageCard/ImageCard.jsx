@@ -27,7 +27,7 @@ export default function ImageCard({
       className="gallery-image-card image-card-clickable"
       onClick={() => onClick?.(image)}
     >
-      <img src={image.url} alt={displayDesc || "img"} className="img-view" />
+      <img src={image.mediumUrl ?? image.url} alt={displayDesc || "img"} className="img-view" />
 
       {showDetails && (
         <div className="image-info">
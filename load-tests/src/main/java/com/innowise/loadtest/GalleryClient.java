@@ -0,0 +1,121 @@
+package com.innowise.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * Calls the public API through the gateway, the way the frontend does.
+ */
+public class GalleryClient implements AutoCloseable {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final int PAGE_SIZE = 20;
+
+    private final String baseUrl;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public GalleryClient(String baseUrl) {
+        this.baseUrl = baseUrl;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    public void register(String username, String password) throws IOException, InterruptedException {
+        Response response = send(HttpRequest.newBuilder(uri("/api/auth/register"))
+                .header("Content-Type", "application/json")
+                .POST(json(Map.of("username", username, "email", username + "@loadtest.local",
+                        "password", password))));
+        if (!response.isSuccess() && response.status() != 409) {
+            throw new IllegalStateException("Registering " + username + " failed with " + response.status());
+        }
+    }
+
+    public String login(String username, String password) throws IOException, InterruptedException {
+        Response response = send(HttpRequest.newBuilder(uri("/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(json(Map.of("username", username, "password", password))));
+        return response.require().body().path("accessToken").asText();
+    }
+
+    public Response feed(String token, String cursor) throws IOException, InterruptedException {
+        String query = "/api/images?size=" + PAGE_SIZE
+                + (cursor == null ? "" : "&cursor=" + URLEncoder.encode(cursor, StandardCharsets.UTF_8));
+        return send(authorized(HttpRequest.newBuilder(uri(query)), token).GET());
+    }
+
+    public Response toggleLike(String token, long imageId) throws IOException, InterruptedException {
+        return send(authorized(HttpRequest.newBuilder(uri("/api/images/" + imageId + "/likes")), token)
+                .PUT(HttpRequest.BodyPublishers.noBody()));
+    }
+
+    public Response comment(String token, long imageId, String content) throws IOException, InterruptedException {
+        return send(authorized(HttpRequest.newBuilder(uri("/api/images/" + imageId + "/comments")), token)
+                .header("Content-Type", "application/json")
+                .POST(json(Map.of("content", content))));
+    }
+
+    public Response upload(String token, byte[] jpeg) throws IOException, InterruptedException {
+        return send(authorized(HttpRequest.newBuilder(uri("/api/images/stream?description=load-test")), token)
+                .header("Content-Type", "image/jpeg")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(jpeg)));
+    }
+
+    private HttpRequest.Builder authorized(HttpRequest.Builder builder, String token) {
+        return builder.header("Authorization", "Bearer " + token);
+    }
+
+    private HttpRequest.BodyPublisher json(Object body) throws IOException {
+        return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private Response send(HttpRequest.Builder builder) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = httpClient.send(builder.timeout(REQUEST_TIMEOUT).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        JsonNode body = response.body().length == 0 || !isJson(response)
+                ? objectMapper.missingNode()
+                : objectMapper.readTree(response.body());
+        return new Response(response.statusCode(), body);
+    }
+
+    private static boolean isJson(HttpResponse<?> response) {
+        return response.headers().firstValue("Content-Type").map(type -> type.contains("json")).orElse(false);
+    }
+
+    @Override
+    public void close() {
+        httpClient.close();
+    }
+
+    public record Response(int status, JsonNode body) {
+
+        public boolean isSuccess() {
+            return status >= 200 && status < 300;
+        }
+
+        public Response require() {
+            if (!isSuccess()) {
+                throw new IllegalStateException("Request failed with " + status + ": " + body);
+            }
+            return this;
+        }
+    }
+}
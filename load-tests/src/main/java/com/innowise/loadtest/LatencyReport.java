@@ -0,0 +1,131 @@
+package com.innowise.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-endpoint latency histograms in microseconds. {@link #snapshot()} is called once per second and
+ * appends the interval to {@code <scenario>.hlog}; {@link #write(double)} adds the percentile
+ * distribution ({@code <scenario>.hgrm}, in milliseconds) and a summary table.
+ */
+public class LatencyReport implements AutoCloseable {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final Path output;
+    private final Map<Scenario, Endpoint> endpoints = new EnumMap<>(Scenario.class);
+
+    public LatencyReport(Path output) throws IOException {
+        this.output = Files.createDirectories(output);
+        long startMillis = System.currentTimeMillis();
+        for (Scenario scenario : Scenario.values()) {
+            endpoints.put(scenario, new Endpoint(scenario, output, startMillis));
+        }
+    }
+
+    public void recordSuccess(Scenario scenario, long latencyNanos) {
+        endpoints.get(scenario).recorder.recordValue(
+                Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_TRACKABLE_MICROS));
+    }
+
+    public void recordError(Scenario scenario) {
+        endpoints.get(scenario).errors.increment();
+    }
+
+    public void recordDropped(Scenario scenario) {
+        endpoints.get(scenario).dropped.increment();
+    }
+
+    public synchronized void snapshot() {
+        for (Endpoint endpoint : endpoints.values()) {
+            endpoint.snapshot();
+        }
+    }
+
+    /**
+     * Writes the percentile distributions and prints the summary.
+     *
+     * @param seconds length of the measured phase
+     */
+    public synchronized void write(double seconds) throws IOException {
+        snapshot();
+        StringBuilder summary = new StringBuilder(String.format(Locale.ROOT,
+                "%-32s %9s %9s %8s %8s %9s %9s %9s %9s %9s%n", "endpoint", "ok", "errors", "dropped",
+                "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for (Endpoint endpoint : endpoints.values()) {
+            Histogram total = endpoint.total;
+            try (PrintStream hgrm = new PrintStream(
+                    output.resolve(endpoint.fileName() + ".hgrm").toFile(), "UTF-8")) {
+                total.outputPercentileDistribution(hgrm, MICROS_PER_MILLI);
+            }
+            summary.append(String.format(Locale.ROOT,
+                    "%-32s %9d %9d %8d %8.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    endpoint.scenario.endpoint(), total.getTotalCount(), endpoint.errors.sum(),
+                    endpoint.dropped.sum(), total.getTotalCount() / seconds,
+                    millis(total, 50), millis(total, 90), millis(total, 99), millis(total, 99.9),
+                    total.getMaxValue() / MICROS_PER_MILLI));
+        }
+        Files.writeString(output.resolve("summary.txt"), summary);
+        System.out.println();
+        System.out.print(summary);
+        System.out.println("Histograms written to " + output.toAbsolutePath());
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI;
+    }
+
+    @Override
+    public void close() {
+        for (Endpoint endpoint : endpoints.values()) {
+            endpoint.log.close();
+        }
+    }
+
+    private static final class Endpoint {
+
+        private final Scenario scenario;
+        private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        private final Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final PrintStream log;
+        private final HistogramLogWriter writer;
+        private Histogram interval;
+
+        private Endpoint(Scenario scenario, Path output, long startMillis) throws FileNotFoundException {
+            this.scenario = scenario;
+            this.log = new PrintStream(output.resolve(fileName() + ".hlog").toFile());
+            this.writer = new HistogramLogWriter(log);
+            writer.outputLogFormatVersion();
+            writer.outputStartTime(startMillis);
+            writer.setBaseTime(startMillis);
+            writer.outputComment("[" + scenario.endpoint() + " latency in microseconds]");
+            writer.outputLegend();
+        }
+
+        private String fileName() {
+            return scenario.name().toLowerCase(Locale.ROOT);
+        }
+
+        private void snapshot() {
+            interval = recorder.getIntervalHistogram(interval);
+            writer.outputIntervalHistogram(interval);
+            total.add(interval);
+        }
+    }
+}
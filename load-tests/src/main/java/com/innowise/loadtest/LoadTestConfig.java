@@ -0,0 +1,97 @@
+package com.innowise.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Load test settings, read from {@code loadtest.*} system properties.
+ *
+ * <ul>
+ *     <li>{@code loadtest.target} - base URL of an already running gateway; when set no containers
+ *     are started</li>
+ *     <li>{@code loadtest.images} - {@code build} to build the services from their Dockerfiles, or
+ *     the tag of images built by {@code build-all.ps1}, e.g. {@code 1.0.0}</li>
+ *     <li>{@code loadtest.rate} - arrivals per second across all scenarios</li>
+ *     <li>{@code loadtest.warmup}, {@code loadtest.duration} - e.g. {@code 30s}, {@code 2m}</li>
+ *     <li>{@code loadtest.mix} - scenario weights, e.g. {@code feed=70,like=15,comment=10,upload=5}</li>
+ *     <li>{@code loadtest.users}, {@code loadtest.seed-images}, {@code loadtest.hot-images} - size of
+ *     the data set created before the run; likes and comment bursts target the hot images</li>
+ *     <li>{@code loadtest.max-in-flight} - arrivals beyond this many outstanding requests are
+ *     dropped and counted instead of queued</li>
+ *     <li>{@code loadtest.image-service-env} - extra image-service environment, e.g.
+ *     {@code SPRING_THREADS_VIRTUAL_ENABLED=true;IMAGES_LIKES_SHARDED=true}</li>
+ *     <li>{@code loadtest.output} - directory for the histogram files</li>
+ * </ul>
+ */
+public record LoadTestConfig(
+        String target,
+        String images,
+        Path repositoryRoot,
+        double rate,
+        Duration warmup,
+        Duration duration,
+        Map<Scenario, Integer> mix,
+        int users,
+        int seedImages,
+        int hotImages,
+        int maxInFlight,
+        Map<String, String> imageServiceEnv,
+        Path output) {
+
+    public static LoadTestConfig fromSystemProperties() {
+        return new LoadTestConfig(
+                System.getProperty("loadtest.target"),
+                System.getProperty("loadtest.images", "build"),
+                Path.of(System.getProperty("loadtest.repository-root", "..")).toAbsolutePath().normalize(),
+                Double.parseDouble(System.getProperty("loadtest.rate", "100")),
+                parseDuration(System.getProperty("loadtest.warmup", "15s")),
+                parseDuration(System.getProperty("loadtest.duration", "60s")),
+                parseMix(System.getProperty("loadtest.mix", "feed=70,like=15,comment=10,upload=5")),
+                Integer.parseInt(System.getProperty("loadtest.users", "50")),
+                Integer.parseInt(System.getProperty("loadtest.seed-images", "100")),
+                Integer.parseInt(System.getProperty("loadtest.hot-images", "5")),
+                Integer.parseInt(System.getProperty("loadtest.max-in-flight", "5000")),
+                parseEnv(System.getProperty("loadtest.image-service-env", "")),
+                Path.of(System.getProperty("loadtest.output", "target/load-test/"
+                        + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")))));
+    }
+
+    static Duration parseDuration(String value) {
+        String trimmed = value.trim().toLowerCase();
+        if (trimmed.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(trimmed.substring(0, trimmed.length() - 2)));
+        }
+        long amount = Long.parseLong(trimmed.substring(0, trimmed.length() - 1));
+        return switch (trimmed.charAt(trimmed.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            case 'h' -> Duration.ofHours(amount);
+            default -> throw new IllegalArgumentException("Unsupported duration: " + value);
+        };
+    }
+
+    static Map<Scenario, Integer> parseMix(String value) {
+        Map<Scenario, Integer> mix = new EnumMap<>(Scenario.class);
+        for (String entry : value.split(",")) {
+            String[] weight = entry.split("=");
+            mix.put(Scenario.valueOf(weight[0].trim().toUpperCase()), Integer.parseInt(weight[1].trim()));
+        }
+        return mix;
+    }
+
+    static Map<String, String> parseEnv(String value) {
+        Map<String, String> env = new LinkedHashMap<>();
+        for (String entry : value.split(";")) {
+            if (!entry.isBlank()) {
+                String[] variable = entry.split("=", 2);
+                env.put(variable[0].trim(), variable[1].trim());
+            }
+        }
+        return env;
+    }
+}
@@ -0,0 +1,168 @@
+package com.innowise.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Starts the stack (unless {@code loadtest.target} points at one), seeds users and images, warms up
+ * and then runs the measured phase. After the run it waits for the outbox and the activity consumer
+ * to catch up, since a backlog there does not show in request latency.
+ */
+@Slf4j
+public class LoadTestRunner {
+
+    private static final String PASSWORD = "load-test-password";
+    private static final int MAX_CURSORS = 1_000;
+    private static final long COMMENT_BURST_MILLIS = TimeUnit.SECONDS.toMillis(5);
+    private static final Duration DRAIN_TIMEOUT = Duration.ofMinutes(2);
+
+    private final LoadTestConfig config;
+    private final GalleryClient client;
+    private final TestImages images = new TestImages();
+    private final List<String> tokens = new ArrayList<>();
+    private final List<Long> hotImages = new ArrayList<>();
+    private final ConcurrentLinkedQueue<String> cursors = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger cursorCount = new AtomicInteger();
+
+    LoadTestRunner(LoadTestConfig config, GalleryClient client) {
+        this.config = config;
+        this.client = client;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        if (config.target() != null) {
+            try (GalleryClient client = new GalleryClient(config.target())) {
+                new LoadTestRunner(config, client).run(null);
+            }
+            return;
+        }
+        try (ServiceStack stack = new ServiceStack(config)) {
+            stack.start();
+            try (GalleryClient client = new GalleryClient(stack.gatewayUrl())) {
+                new LoadTestRunner(config, client).run(stack);
+            }
+        }
+    }
+
+    void run(ServiceStack stack) throws Exception {
+        seed();
+        OpenModelDriver driver = new OpenModelDriver(config, this::execute);
+        log.info("Warming up for {} at {} arrivals/s", config.warmup(), config.rate());
+        driver.run(config.warmup(), null);
+
+        log.info("Measuring for {} at {} arrivals/s, mix {}", config.duration(), config.rate(), config.mix());
+        try (LatencyReport report = new LatencyReport(config.output())) {
+            long start = System.nanoTime();
+            driver.run(config.duration(), report);
+            report.write((System.nanoTime() - start) / 1e9);
+        }
+        if (stack != null) {
+            awaitDrained(stack);
+        }
+    }
+
+    private void seed() throws Exception {
+        log.info("Seeding {} users and {} images", config.users(), config.seedImages());
+        String prefix = "lt" + Long.toString(System.currentTimeMillis(), 36);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> logins = new ArrayList<>();
+            for (int i = 0; i < config.users(); i++) {
+                String username = prefix + "_" + i;
+                logins.add(executor.submit(() -> {
+                    client.register(username, PASSWORD);
+                    return client.login(username, PASSWORD);
+                }));
+            }
+            for (Future<String> login : logins) {
+                tokens.add(login.get());
+            }
+
+            List<Future<Long>> uploads = new ArrayList<>();
+            for (int i = 0; i < config.seedImages(); i++) {
+                String token = tokens.get(i % tokens.size());
+                uploads.add(executor.submit(() ->
+                        client.upload(token, images.next()).require().body().path("id").asLong()));
+            }
+            for (int i = 0; i < uploads.size(); i++) {
+                long id = uploads.get(i).get();
+                if (i < config.hotImages()) {
+                    hotImages.add(id);
+                }
+            }
+        }
+    }
+
+    private boolean execute(Scenario scenario) throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String token = tokens.get(random.nextInt(tokens.size()));
+        return switch (scenario) {
+            case FEED -> scrollFeed(token);
+            case LIKE -> client.toggleLike(token, hotImages.get(random.nextInt(hotImages.size()))).isSuccess();
+            case COMMENT -> client.comment(token, burstImage(), "load test comment " + random.nextInt())
+                    .isSuccess();
+            case UPLOAD -> client.upload(token, images.next()).isSuccess();
+        };
+    }
+
+    /**
+     * Half of the feed requests open the first page; the rest continue from a cursor an earlier
+     * request returned, which is what scrolling users do.
+     */
+    private boolean scrollFeed(String token) throws Exception {
+        String cursor = ThreadLocalRandom.current().nextBoolean() ? pollCursor() : null;
+        GalleryClient.Response response = client.feed(token, cursor);
+        if (!response.isSuccess()) {
+            return false;
+        }
+        JsonNode nextCursor = response.body().path("nextCursor");
+        if (nextCursor.isTextual() && cursorCount.incrementAndGet() <= MAX_CURSORS) {
+            cursors.add(nextCursor.asText());
+        } else if (nextCursor.isTextual()) {
+            cursorCount.decrementAndGet();
+        }
+        return true;
+    }
+
+    private String pollCursor() {
+        String cursor = cursors.poll();
+        if (cursor != null) {
+            cursorCount.decrementAndGet();
+        }
+        return cursor;
+    }
+
+    private long burstImage() {
+        long burst = System.currentTimeMillis() / COMMENT_BURST_MILLIS;
+        return hotImages.get((int) (burst % hotImages.size()));
+    }
+
+    private void awaitDrained(ServiceStack stack) throws Exception {
+        long start = System.nanoTime();
+        long deadline = start + DRAIN_TIMEOUT.toNanos();
+        long unsent;
+        long lag;
+        do {
+            unsent = stack.unsentOutboxEvents();
+            lag = stack.consumerLag();
+            if (unsent == 0 && lag == 0) {
+                break;
+            }
+            TimeUnit.MILLISECONDS.sleep(500);
+        } while (System.nanoTime() < deadline);
+        System.out.printf("Event pipeline drained in %.1f s (unsent outbox: %d, consumer lag: %d, "
+                        + "activity documents: %d)%n",
+                (System.nanoTime() - start) / 1e9, unsent, lag, stack.activityDocuments());
+    }
+}
@@ -0,0 +1,136 @@
+package com.innowise.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load: arrivals follow a Poisson process at a fixed rate no matter how slowly the
+ * system answers, each on its own virtual thread. Latency is measured from the arrival's scheduled
+ * time rather than from when the request was actually sent, so a stalled system cannot hide its
+ * queueing delay by slowing the generator down (coordinated omission). Once {@code maxInFlight}
+ * requests are outstanding further arrivals are dropped and counted.
+ */
+@Slf4j
+public class OpenModelDriver {
+
+    /**
+     * One request of a scenario.
+     */
+    @FunctionalInterface
+    public interface Action {
+
+        /**
+         * @return whether the request succeeded
+         */
+        boolean execute(Scenario scenario) throws Exception;
+    }
+
+    private final double rate;
+    private final int maxInFlight;
+    private final Scenario[] weighted;
+    private final Action action;
+
+    public OpenModelDriver(LoadTestConfig config, Action action) {
+        this.rate = config.rate();
+        this.maxInFlight = config.maxInFlight();
+        this.weighted = expand(config.mix());
+        this.action = action;
+    }
+
+    /**
+     * Runs arrivals for {@code duration}, then waits for outstanding requests. Results are only
+     * recorded when {@code report} is not null, which is how the warm-up is kept out of the
+     * histograms.
+     */
+    public void run(Duration duration, LatencyReport report) throws InterruptedException {
+        AtomicInteger inFlight = new AtomicInteger();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long nextSnapshot = start + TimeUnit.SECONDS.toNanos(1);
+        long arrival = start;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (arrival < end) {
+                waitUntil(arrival);
+                if (report != null && System.nanoTime() >= nextSnapshot) {
+                    report.snapshot();
+                    nextSnapshot += TimeUnit.SECONDS.toNanos(1);
+                }
+                Scenario scenario = weighted[ThreadLocalRandom.current().nextInt(weighted.length)];
+                if (inFlight.incrementAndGet() > maxInFlight) {
+                    inFlight.decrementAndGet();
+                    if (report != null) {
+                        report.recordDropped(scenario);
+                    }
+                } else {
+                    long scheduled = arrival;
+                    executor.execute(() -> {
+                        try {
+                            execute(scenario, scheduled, report);
+                        } finally {
+                            inFlight.decrementAndGet();
+                        }
+                    });
+                }
+                arrival += nextInterarrivalNanos();
+            }
+        }
+    }
+
+    private void execute(Scenario scenario, long scheduled, LatencyReport report) {
+        boolean success;
+        try {
+            success = action.execute(scenario);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            success = false;
+        } catch (Exception e) {
+            log.debug("{} failed", scenario, e);
+            success = false;
+        }
+        if (report == null) {
+            return;
+        }
+        if (success) {
+            report.recordSuccess(scenario, System.nanoTime() - scheduled);
+        } else {
+            report.recordError(scenario);
+        }
+    }
+
+    private long nextInterarrivalNanos() {
+        double uniform = 1.0 - ThreadLocalRandom.current().nextDouble();
+        return (long) (-Math.log(uniform) / rate * TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private static void waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private static Scenario[] expand(Map<Scenario, Integer> mix) {
+        Map<Scenario, Integer> weights = new EnumMap<>(mix);
+        int total = weights.values().stream().mapToInt(Integer::intValue).sum();
+        if (total <= 0) {
+            throw new IllegalArgumentException("Scenario mix has no weight: " + mix);
+        }
+        Scenario[] weighted = new Scenario[total];
+        int index = 0;
+        for (Map.Entry<Scenario, Integer> weight : weights.entrySet()) {
+            for (int i = 0; i < weight.getValue(); i++) {
+                weighted[index++] = weight.getKey();
+            }
+        }
+        return weighted;
+    }
+}
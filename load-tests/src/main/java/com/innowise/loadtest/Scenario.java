@@ -0,0 +1,38 @@
+package com.innowise.loadtest;
+
+/**
+ * The user behaviours the load test mixes. Each arrival runs one request of its scenario.
+ */
+public enum Scenario {
+
+    /**
+     * Opens the feed or scrolls on from a cursor another feed request returned.
+     */
+    FEED("GET /api/images"),
+
+    /**
+     * Toggles likes on a handful of hot images, so the same rows are contended.
+     */
+    LIKE("PUT /api/images/{id}/likes"),
+
+    /**
+     * Comments on one hot image at a time; the image changes every few seconds so comments arrive
+     * in bursts per image.
+     */
+    COMMENT("POST /api/images/{id}/comments"),
+
+    /**
+     * Streams a new JPEG upload.
+     */
+    UPLOAD("POST /api/images/stream");
+
+    private final String endpoint;
+
+    Scenario(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public String endpoint() {
+        return endpoint;
+    }
+}
@@ -0,0 +1,183 @@
+package com.innowise.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.testcontainers.containers.Container;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.localstack.LocalStackContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.images.builder.ImageFromDockerfile;
+import org.testcontainers.kafka.ConfluentKafkaContainer;
+import org.testcontainers.lifecycle.Startables;
+import org.testcontainers.utility.DockerImageName;
+import org.testcontainers.utility.MountableFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The whole gallery backend on one Docker network: Postgres, Kafka, Mongo and LocalStack as
+ * stand-ins for the managed services, plus the four Spring services. Network aliases match the
+ * host names the gateway routes to and the docker-compose file uses.
+ */
+@Slf4j
+public class ServiceStack implements AutoCloseable {
+
+    private static final String DB_USER = "postgres";
+    private static final String DB_PASSWORD = "postgres";
+    private static final String AUTH_SERVICE_SECRET = "load-test-secret";
+    private static final String BUCKET = "images";
+    private static final String KAFKA_BOOTSTRAP = "kafka:19092";
+    private static final int SERVICE_PORT = 8080;
+    private static final Duration SERVICE_STARTUP_TIMEOUT = Duration.ofMinutes(5);
+
+    private final Network network = Network.newNetwork();
+    private final PostgreSQLContainer<?> postgres;
+    private final ConfluentKafkaContainer kafka;
+    private final MongoDBContainer mongo;
+    private final LocalStackContainer localstack;
+    private final GenericContainer<?> authService;
+    private final GenericContainer<?> imageService;
+    private final GenericContainer<?> activityService;
+    private final GenericContainer<?> gateway;
+
+    public ServiceStack(LoadTestConfig config) {
+        Path root = config.repositoryRoot();
+        postgres = new PostgreSQLContainer<>(DockerImageName.parse("postgres:15"))
+                .withDatabaseName("postgres")
+                .withUsername(DB_USER)
+                .withPassword(DB_PASSWORD)
+                .withCopyFileToContainer(MountableFile.forHostPath(root.resolve("init-databases.sql")),
+                        "/docker-entrypoint-initdb.d/init-databases.sql")
+                .withNetwork(network)
+                .withNetworkAliases("postgres");
+        kafka = new ConfluentKafkaContainer(DockerImageName.parse("confluentinc/cp-kafka:7.8.0"))
+                .withListener(KAFKA_BOOTSTRAP)
+                .withNetwork(network)
+                .withNetworkAliases("kafka");
+        mongo = new MongoDBContainer(DockerImageName.parse("mongo:7"))
+                .withNetwork(network)
+                .withNetworkAliases("mongo");
+        localstack = new LocalStackContainer(DockerImageName.parse("localstack/localstack:3.8"))
+                .withServices(LocalStackContainer.Service.S3)
+                .withNetwork(network)
+                .withNetworkAliases("localstack");
+
+        authService = service(config, "authentication-service", Map.of(
+                "SPRING_DATASOURCE_URL", "jdbc:postgresql://postgres:5432/user_db",
+                "SPRING_DATASOURCE_USERNAME", DB_USER,
+                "SPRING_DATASOURCE_PASSWORD", DB_PASSWORD,
+                "AUTH_SERVICE_SECRET", AUTH_SERVICE_SECRET));
+        imageService = service(config, "image-service", Map.of(
+                "SPRING_DATASOURCE_URL", "jdbc:postgresql://postgres:5432/image_db",
+                "SPRING_DATASOURCE_USERNAME", DB_USER,
+                "SPRING_DATASOURCE_PASSWORD", DB_PASSWORD,
+                "AWS_S3_ENDPOINT_URL", "http://localstack:4566",
+                "AWS_S3_PUBLIC_URL", "http://localstack:4566",
+                "AWS_S3_REGION", localstack.getRegion(),
+                "AWS_S3_BUCKET_NAME", BUCKET,
+                "AWS_S3_ACCESS_KEY", localstack.getAccessKey(),
+                "AWS_S3_SECRET_KEY", localstack.getSecretKey(),
+                "SPRING_KAFKA_BOOTSTRAP_SERVERS", KAFKA_BOOTSTRAP))
+                .withEnv("AUTH_SERVICE_SECRET", AUTH_SERVICE_SECRET)
+                .withEnv(config.imageServiceEnv());
+        activityService = service(config, "activity-service", Map.of(
+                "SPRING_DATA_MONGODB_URI", "mongodb://mongo:27017/activitydb",
+                "SPRING_KAFKA_BOOTSTRAP_SERVERS", KAFKA_BOOTSTRAP));
+        gateway = service(config, "api-gateway", Map.of(
+                "GATEWAY_BASE_URL", "http://authentication-service:8080"));
+    }
+
+    public void start() throws IOException, InterruptedException {
+        log.info("Starting Postgres, Kafka, Mongo and LocalStack");
+        Startables.deepStart(postgres, kafka, mongo, localstack).join();
+        exec(localstack, "awslocal", "s3", "mb", "s3://" + BUCKET);
+
+        log.info("Starting services, building images where needed");
+        Startables.deepStart(authService, imageService, activityService).join();
+        gateway.start();
+        log.info("Gateway listening on {}", gatewayUrl());
+    }
+
+    public String gatewayUrl() {
+        return "http://" + gateway.getHost() + ":" + gateway.getMappedPort(SERVICE_PORT);
+    }
+
+    /**
+     * Outbox rows image-service has written but not yet published to Kafka.
+     */
+    public long unsentOutboxEvents() throws IOException, InterruptedException {
+        String count = exec(postgres, "psql", "-U", DB_USER, "-d", "image_db", "-tA", "-c",
+                "SELECT count(*) FROM gallery.outbox_events WHERE sent_at IS NULL");
+        return Long.parseLong(count.trim());
+    }
+
+    /**
+     * Messages published to Kafka that no consumer group, i.e. activity-service, has committed yet.
+     */
+    public long consumerLag() throws IOException, InterruptedException {
+        String describe = exec(kafka, "kafka-consumer-groups", "--bootstrap-server", KAFKA_BOOTSTRAP,
+                "--describe", "--all-groups");
+        long lag = 0;
+        for (String line : describe.split("\n")) {
+            String[] columns = line.trim().split("\\s+");
+            if (columns.length > 5 && columns[5].chars().allMatch(Character::isDigit)) {
+                lag += Long.parseLong(columns[5]);
+            }
+        }
+        return lag;
+    }
+
+    /**
+     * Documents activity-service has stored so far.
+     */
+    public long activityDocuments() throws IOException, InterruptedException {
+        String count = exec(mongo, "mongosh", "--quiet", "activitydb", "--eval", "db.activity.countDocuments()");
+        return Long.parseLong(count.trim());
+    }
+
+    private GenericContainer<?> service(LoadTestConfig config, String name, Map<String, String> env) {
+        GenericContainer<?> container = "build".equals(config.images())
+                ? new GenericContainer<>(fromDockerfile(config.repositoryRoot().resolve(name), name))
+                : new GenericContainer<>(DockerImageName.parse(name + ":" + config.images()));
+        return container
+                .withEnv(env)
+                .withExposedPorts(SERVICE_PORT)
+                .withNetwork(network)
+                .withNetworkAliases(name)
+                .waitingFor(Wait.forHttp("/actuator/health")
+                        .forPort(SERVICE_PORT)
+                        .forStatusCode(200)
+                        .withStartupTimeout(SERVICE_STARTUP_TIMEOUT));
+    }
+
+    private static ImageFromDockerfile fromDockerfile(Path serviceDir, String name) {
+        return new ImageFromDockerfile("load-test/" + name, false)
+                .withFileFromPath("Dockerfile", serviceDir.resolve("Dockerfile"))
+                .withFileFromPath("pom.xml", serviceDir.resolve("pom.xml"))
+                .withFileFromPath("src", serviceDir.resolve("src"));
+    }
+
+    private static String exec(GenericContainer<?> container, String... command)
+            throws IOException, InterruptedException {
+        Container.ExecResult result = container.execInContainer(command);
+        if (result.getExitCode() != 0) {
+            throw new IllegalStateException(String.join(" ", command) + " failed: " + result.getStderr());
+        }
+        return result.getStdout();
+    }
+
+    @Override
+    public void close() {
+        for (GenericContainer<?> container : List.of(gateway, activityService, imageService, authService,
+                localstack, mongo, kafka, postgres)) {
+            container.stop();
+        }
+        network.close();
+    }
+}
@@ -0,0 +1,58 @@
+package com.innowise.loadtest;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Noise JPEGs between image-service's minimum and maximum upload size. Every upload appends random
+ * bytes after the end-of-image marker, which decoders ignore, so each upload has a new content hash
+ * and is stored instead of deduplicated.
+ */
+public final class TestImages {
+
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+    private static final int VARIANTS = 4;
+    private static final int UNIQUE_SUFFIX_BYTES = 16;
+
+    private final List<byte[]> variants = new ArrayList<>(VARIANTS);
+
+    public TestImages() {
+        for (int i = 0; i < VARIANTS; i++) {
+            variants.add(noiseJpeg());
+        }
+    }
+
+    public byte[] next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        byte[] variant = variants.get(random.nextInt(VARIANTS));
+        byte[] upload = Arrays.copyOf(variant, variant.length + UNIQUE_SUFFIX_BYTES);
+        for (int i = variant.length; i < upload.length; i++) {
+            upload[i] = (byte) random.nextInt(256);
+        }
+        return upload;
+    }
+
+    private static byte[] noiseJpeg() {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                image.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        try (ByteArrayOutputStream jpeg = new ByteArrayOutputStream()) {
+            ImageIO.write(image, "jpg", jpeg);
+            return jpeg.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}